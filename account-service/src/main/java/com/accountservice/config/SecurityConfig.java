@@ -1,5 +1,6 @@
 package com.accountservice.config;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -7,12 +8,22 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import com.bankcommon.security.BoundedPasswordEncoder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class SecurityConfig {
     
+    // BCrypt fora das threads do Tomcat, em pool limitado (ver BoundedPasswordEncoder)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${bank.password-hash.threads:0}") int threads,
+                                           @Value("${bank.password-hash.queue-capacity:64}") int queueCapacity,
+                                           @Value("${bank.password-hash.retry-after-seconds:1}") long retryAfterSeconds) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), poolSize, queueCapacity,
+                retryAfterSeconds, "bank", meterRegistry);
     }
 
     @Bean
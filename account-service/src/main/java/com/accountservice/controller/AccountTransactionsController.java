@@ -2,6 +2,7 @@ package com.accountservice.controller;
 
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -9,21 +10,35 @@ import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.CachedAccount;
+import com.accountservice.dto.CursorPage;
+import com.accountservice.dto.DailyLimitResponse;
+import com.accountservice.dto.HistoricalBalanceResponse;
 import com.accountservice.dto.TransactionRequest;
 import com.accountservice.dto.TransactionResponse;
+import com.accountservice.exception.AccountNotFoundException;
 import com.accountservice.model.Account;
 import com.accountservice.model.Transaction;
 import com.accountservice.service.AccountService;
+import com.accountservice.service.BalanceSnapshotService;
+import com.accountservice.service.DailySpendTracker;
+import com.accountservice.service.IdempotencyService;
+import com.accountservice.service.StatementExportService;
 import com.accountservice.service.TransactionService;
 
 import jakarta.validation.Valid;
@@ -33,13 +48,26 @@ import jakarta.validation.Valid;
 public class AccountTransactionsController {
     
     private static final Logger log = LoggerFactory.getLogger(AccountTransactionsController.class);
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
     private final AccountService accountService;
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
+    private final StatementExportService statementExportService;
+    private final DailySpendTracker dailySpendTracker;
+    private final BalanceSnapshotService balanceSnapshotService;
 
     
-    public AccountTransactionsController(AccountService accountService, TransactionService transactionService) {
+    public AccountTransactionsController(AccountService accountService, TransactionService transactionService,
+                                         IdempotencyService idempotencyService,
+                                         StatementExportService statementExportService,
+                                         DailySpendTracker dailySpendTracker,
+                                         BalanceSnapshotService balanceSnapshotService) {
         this.accountService = accountService;
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
+        this.statementExportService = statementExportService;
+        this.dailySpendTracker = dailySpendTracker;
+        this.balanceSnapshotService = balanceSnapshotService;
        
     }
     
@@ -47,10 +75,12 @@ public class AccountTransactionsController {
     @PostMapping("/{accountNumber}/deposit")
     public ResponseEntity<TransactionResponse> deposit(
             @PathVariable String accountNumber,
-            @Valid @RequestBody TransactionRequest request) {
+            @Valid @RequestBody TransactionRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
-        log.info("Depositando R$ {:.2f} na conta: {}", request.getAmount(), accountNumber);
-        TransactionResponse response = transactionService.deposit(accountNumber, request);
+        log.info("Depositando R$ {} na conta: {}", request.getAmount(), accountNumber);
+        TransactionResponse response = idempotencyService.execute("deposit:" + accountNumber, idempotencyKey,
+                request, TransactionResponse.class, () -> transactionService.deposit(accountNumber, request));
         return ResponseEntity.ok(response);
     }
     
@@ -58,37 +88,72 @@ public class AccountTransactionsController {
     public ResponseEntity<TransactionResponse> withdraw(
             @PathVariable String accountNumber,
             @Valid @RequestBody TransactionRequest request,
-            @RequestParam String transactionalPassword) { 
+            @RequestParam(required = false) String transactionalPassword,
+            @RequestHeader(value = "X-Step-Up-Token", required = false) String stepUpToken,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) { 
         
-        System.out.println("Sacando R$ " + request.getAmount() + " da conta: " + accountNumber);
-        TransactionResponse response = transactionService.withdraw(accountNumber, request, transactionalPassword);
+        log.debug("Sacando R$ {} da conta: {}", request.getAmount(), accountNumber);
+        TransactionResponse response = idempotencyService.execute("withdraw:" + accountNumber, idempotencyKey,
+                request, TransactionResponse.class, () -> transactionService.withdraw(accountNumber, request, transactionalPassword,
+                        stepUpToken, deviceId));
         return ResponseEntity.ok(response);
 }
     
    
+    // Extrato paginado: próxima página via header X-Next-Cursor (ausente na última)
     @GetMapping("/{accountNumber}/transactions/accounts")
-    public ResponseEntity<List<Transaction>> getAccountTransactions(@PathVariable String accountNumber) {
+    public ResponseEntity<List<Transaction>> getAccountTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         log.info("Buscando extrato da conta: {}", accountNumber);
         
-        Account account = accountService.getAccountByNumber(accountNumber)
+        Long accountId = accountService.getAccountIdByNumber(accountNumber)
             .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
         
-        List<Transaction> transactions = transactionService.getAccountTransactions(account.getId());
-        return ResponseEntity.ok(transactions);
+        CursorPage<Transaction> page = transactionService.getAccountTransactions(accountId, cursor, limit);
+        return withNextCursor(page);
     }
 
     @GetMapping("/{accountId}/transactions")
     public ResponseEntity<List<AccountTransactionDTO>> getTransactions(
-            @PathVariable Long accountId) {
+            @PathVariable Long accountId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "5") int limit) {
+
+        CursorPage<AccountTransactionDTO> page = transactionService.getTransactionsForAccount(accountId, cursor, limit);
+        return withNextCursor(page);
+    }
+
+    // Extrato completo para download (CSV ou NDJSON), gzip quando o cliente aceita
+    @GetMapping("/{accountId}/transactions/export")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable Long accountId,
+            @RequestParam(defaultValue = "CSV") StatementExportService.ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
-        List<AccountTransactionDTO> transactions = transactionService.getTransactionsForAccount(accountId);
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        boolean csv = format == StatementExportService.ExportFormat.CSV;
+        String fileName = "extrato-" + accountId + (csv ? ".csv" : ".ndjson");
 
-        // Opcional: limitar às últimas 5 transações
-        List<AccountTransactionDTO> last5 = transactions.stream()
-                .limit(5)
-                .collect(Collectors.toList());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // Antes do primeiro byte: o download inclui os depósitos e saques recém-confirmados
+        transactionService.awaitRecorded(accountId);
+        return response.body(out -> statementExportService.export(accountId, format, gzip, out));
+    }
 
-        return ResponseEntity.ok(last5);
+    private static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.hasNext()) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+        }
+        return response.body(page.getItems());
     }
     
     // SALDO - Mantém o existente
@@ -99,9 +164,31 @@ public class AccountTransactionsController {
         return ResponseEntity.ok(balance);
     }
 
+    // SALDO HISTÓRICO - saldo em um instante (ex.: ?at=2025-01-31T23:59:59)
+    @GetMapping("/{accountNumber}/balance/at")
+    public ResponseEntity<HistoricalBalanceResponse> getBalanceAt(
+            @PathVariable String accountNumber,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        Account account = accountService.getAccountByNumber(accountNumber)
+            .orElseThrow(() -> new AccountNotFoundException("Conta não encontrada: " + accountNumber));
+        return ResponseEntity.ok(balanceSnapshotService.balanceAt(account, at));
+    }
+
+    // LIMITE DIÁRIO - quanto ainda pode ser debitado hoje
+    @GetMapping("/{accountNumber}/daily-limit")
+    public ResponseEntity<DailyLimitResponse> getDailyLimit(@PathVariable String accountNumber) {
+        Account account = accountService.getAccountByNumber(accountNumber)
+            .orElseThrow(() -> new AccountNotFoundException("Conta não encontrada: " + accountNumber));
+
+        BigDecimal used = dailySpendTracker.spent(account.getId());
+        BigDecimal limit = account.getDailyLimit();
+        BigDecimal remaining = limit == null ? null : dailySpendTracker.remaining(account.getId(), limit);
+        return ResponseEntity.ok(new DailyLimitResponse(accountNumber, limit, used, remaining));
+    }
+
     @GetMapping("/{accountNumber}/details")
     public ResponseEntity<Map<String, String>> getAccountDetails(@PathVariable String accountNumber) {
-        Account account = accountService.getAccountByNumber(accountNumber)
+        CachedAccount account = accountService.getCachedAccount(accountNumber)
             .orElseThrow(() -> new RuntimeException("Conta não encontrada"));
         
         Map<String, String> details = new HashMap<>();
@@ -0,0 +1,32 @@
+package com.accountservice.controller;
+
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.accountservice.service.StatementArchiver;
+
+/**
+ * Operação interna: /api/admin não é roteado pelo gateway. Meses no formato AAAA-MM.
+ */
+@RestController
+@RequestMapping("/api/admin/archive")
+public class AdminArchiveController {
+
+    private final StatementArchiver statementArchiver;
+
+    public AdminArchiveController(StatementArchiver statementArchiver) {
+        this.statementArchiver = statementArchiver;
+    }
+
+    @PostMapping("/{month}")
+    public ResponseEntity<Map<String, Object>> archive(@PathVariable YearMonth month) {
+        long rows = statementArchiver.archive(month);
+        return ResponseEntity.ok(Map.of("month", month.toString(), "rows", rows));
+    }
+}
@@ -0,0 +1,46 @@
+package com.accountservice.controller;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.accountservice.model.HistoryPartition;
+import com.accountservice.service.HistoryPartitionManager;
+
+/**
+ * Operação interna: /api/admin não é roteado pelo gateway. Meses no formato AAAA-MM.
+ */
+@RestController
+@RequestMapping("/api/admin/partitions")
+public class AdminPartitionController {
+
+    private final HistoryPartitionManager partitionManager;
+
+    public AdminPartitionController(HistoryPartitionManager partitionManager) {
+        this.partitionManager = partitionManager;
+    }
+
+    @GetMapping
+    public ResponseEntity<List<HistoryPartition>> list() {
+        return ResponseEntity.ok(partitionManager.partitions());
+    }
+
+    @PostMapping("/{month}/detach")
+    public ResponseEntity<Void> detach(@PathVariable YearMonth month) {
+        partitionManager.detach(month);
+        return ResponseEntity.noContent().build();
+    }
+
+    @DeleteMapping("/{month}")
+    public ResponseEntity<Void> drop(@PathVariable YearMonth month) {
+        partitionManager.drop(month);
+        return ResponseEntity.noContent().build();
+    }
+}
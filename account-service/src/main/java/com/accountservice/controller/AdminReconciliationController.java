@@ -0,0 +1,42 @@
+package com.accountservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.accountservice.dto.ReconciliationReport;
+import com.accountservice.service.BalanceReconciliationService;
+
+/**
+ * Operação interna: /api/admin não é roteado pelo gateway.
+ */
+@RestController
+@RequestMapping("/api/admin/reconciliation")
+public class AdminReconciliationController {
+
+    private final BalanceReconciliationService reconciliationService;
+
+    public AdminReconciliationController(BalanceReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    // runId de uma execução interrompida retoma dos checkpoints
+    @PostMapping
+    public ResponseEntity<ReconciliationReport> start(
+            @RequestParam(defaultValue = "false") boolean repair,
+            @RequestParam(required = false) String runId) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(reconciliationService.start(runId, repair));
+    }
+
+    @GetMapping("/{runId}")
+    public ResponseEntity<ReconciliationReport> report(@PathVariable String runId) {
+        return reconciliationService.report(runId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,35 @@
+package com.accountservice.controller;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.accountservice.service.BalanceSnapshotService;
+
+/**
+ * Operação interna: /api/admin não é roteado pelo gateway.
+ */
+@RestController
+@RequestMapping("/api/admin/snapshots")
+public class AdminSnapshotController {
+
+    private final BalanceSnapshotService balanceSnapshotService;
+
+    public AdminSnapshotController(BalanceSnapshotService balanceSnapshotService) {
+        this.balanceSnapshotService = balanceSnapshotService;
+    }
+
+    // Regera os snapshots de um dia (ex.: dias perdidos com o serviço fora do ar)
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> snapshot(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        long written = balanceSnapshotService.snapshot(date);
+        return ResponseEntity.ok(Map.of("date", date.toString(), "snapshots", written));
+    }
+}
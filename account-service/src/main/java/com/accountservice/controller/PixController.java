@@ -1,9 +1,14 @@
 package com.accountservice.controller;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -15,14 +20,23 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.accountservice.dto.PixBatchTransferRequest;
+import com.accountservice.dto.PixBatchTransferResponse;
 import com.accountservice.dto.PixKeyRequest;
 import com.accountservice.dto.PixKeyRequestInfo;
 import com.accountservice.dto.PixKeyResponseInfo;
 import com.accountservice.dto.PixTransferRequest;
 import com.accountservice.dto.PixTransferResponse;
+import com.accountservice.exception.AccountLockTimeoutException;
+import com.accountservice.exception.IdempotencyConflictException;
+import com.accountservice.exception.IdempotencyKeyReuseException;
 import com.accountservice.model.PixKey;
+import com.accountservice.service.IdempotencyService;
+import com.accountservice.service.PixBatchService;
 import com.accountservice.service.PixService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 import jakarta.validation.Valid;
 
@@ -32,9 +46,16 @@ public class PixController {
     
     private static final Logger log = LoggerFactory.getLogger(PixController.class);
     private final PixService pixService;
+    private final PixBatchService pixBatchService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyService idempotencyService;
     
-    public PixController(PixService pixService) {
+    public PixController(PixService pixService, PixBatchService pixBatchService, ObjectMapper objectMapper,
+                         IdempotencyService idempotencyService) {
         this.pixService = pixService;
+        this.pixBatchService = pixBatchService;
+        this.objectMapper = objectMapper;
+        this.idempotencyService = idempotencyService;
     }
 
     @PostMapping("/keys/register")
@@ -71,20 +92,77 @@ public class PixController {
     public ResponseEntity<PixTransferResponse> transferPix(
             @RequestHeader("X-User-Id") Long userId,
             @RequestParam String keyValue,             // valor da chave PIX (ex: maria@email.com)
-            @Valid @RequestBody PixTransferRequest request) {
+            @Valid @RequestBody PixTransferRequest request,
+            @RequestHeader(value = "X-Step-Up-Token", required = false) String stepUpToken,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
 
-        System.out.println("💸 Transferência PIX do usuário: " + userId + " para chave " + keyValue);
+        log.debug("💸 Transferência PIX do usuário: {} para chave {}", userId, keyValue);
 
-        PixTransferResponse response = pixService.transferPix(
-                userId,
-                request,
-                keyValue,
-                request.getPassword() // senha vem do body
-        );
+        // A chave de destino vem na query: entra no hash junto com o corpo
+        PixTransferResponse response = idempotencyService.execute("pix:" + userId, idempotencyKey,
+                List.of(keyValue, request), PixTransferResponse.class, () -> pixService.transferPix(
+                        userId,
+                        request,
+                        keyValue,
+                        request.getPassword(), // senha vem do body; dispensável com token de step-up
+                        stepUpToken,
+                        deviceId
+                ));
 
         return ResponseEntity.ok(response);
     }
 
+
+    // TRANSFERÊNCIA PIX EM LOTE (uma senha para N pagamentos)
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<PixBatchTransferResponse> transferPixBatch(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody PixBatchTransferRequest request,
+            @RequestHeader(value = "X-Step-Up-Token", required = false) String stepUpToken,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        log.info("Lote PIX do usuário {} com {} transferências", userId, request.getItems().size());
+        return ResponseEntity.ok(idempotencyService.execute("pix-batch:" + userId, idempotencyKey,
+                request, PixBatchTransferResponse.class,
+                () -> pixBatchService.transfer(userId, request, stepUpToken, deviceId)));
+    }
+
+    // LOTE GRANDE: progresso em NDJSON, uma linha por bloco processado + resumo final.
+    // Mesma Idempotency-Key do lote síncrono: a repetição depois de uma queda recebe só o resumo
+    @PostMapping(value = "/transfer/batch/stream", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> transferPixBatchStream(
+            @RequestHeader("X-User-Id") Long userId,
+            @Valid @RequestBody PixBatchTransferRequest request,
+            @RequestHeader(value = "X-Step-Up-Token", required = false) String stepUpToken,
+            @RequestHeader(value = "X-Device-Id", required = false) String deviceId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+
+        // Autorização e resolução de chaves antes do primeiro byte: erros saem como HTTP normal
+        PixBatchService.PreparedBatch batch = pixBatchService.prepare(userId, request, stepUpToken, deviceId);
+
+        // Cliente desconectado não interrompe o lote (ver PixBatchService.execute)
+        StreamingResponseBody body = out -> {
+            PixBatchTransferResponse summary = idempotencyService.execute("pix-batch:" + userId, idempotencyKey,
+                    request, PixBatchTransferResponse.class,
+                    () -> pixBatchService.execute(batch, progress -> writeLine(out, progress)));
+            writeLine(out, summary);
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    private void writeLine(OutputStream out, Object value) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(value));
+            out.write('\n');
+            out.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
     
     // CONSULTAR CHAVE PIX
     @GetMapping("/keys/check/{keyType}/{keyValue}")
@@ -93,10 +171,30 @@ public class PixController {
             @PathVariable String keyValue) {
         
         log.info("Consultando chave PIX: {} {}", keyType, keyValue);
-        // Esta funcionalidade será implementada no service
+        PixKey.PixKeyType type = PixKey.PixKeyType.valueOf(keyType.toUpperCase());
+        if (!pixService.checkPixKey(type, keyValue)) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Chave PIX não encontrada");
+        }
         return ResponseEntity.ok("Chave disponível para consulta");
     }
     
+    // Contas travadas por outra transferência: conflito que o cliente pode repetir, não erro de requisição
+    @ExceptionHandler(AccountLockTimeoutException.class)
+    public ResponseEntity<String> handleLockTimeout(AccountLockTimeoutException ex) {
+        log.warn("Transferência PIX não concluída por contenção: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<String> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<String> handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY).body(ex.getMessage());
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
         log.error("Erro na operação PIX: {}", ex.getMessage());
@@ -13,6 +13,8 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.accountservice.dto.ResetTransactionalPasswordRequest;
+import com.accountservice.dto.StepUpRequest;
+import com.accountservice.dto.StepUpTokenResponse;
 import com.accountservice.dto.TransactionalPasswordRequest;
 import com.accountservice.dto.UpdateTransactionalPasswordRequest;
 import com.accountservice.service.TransactionalPasswordService;
@@ -57,6 +59,16 @@ public class TransactionalPasswordController {
 
 
 
+    // ✅ STEP-UP: valida a senha uma vez e devolve um token para os próximos saques/PIX
+    @PostMapping("/step-up")
+    public ResponseEntity<StepUpTokenResponse> stepUp(
+            @RequestHeader("X-User-Id") Long userId,
+            @RequestHeader("X-Device-Id") String deviceId,
+            @Valid @RequestBody StepUpRequest request) {
+
+        return ResponseEntity.ok(passwordService.issueStepUpToken(userId, deviceId, request));
+    }
+
     // ✅ VERIFICAR STATUS
     @GetMapping("/status")
     public ResponseEntity<String> getPasswordStatus(@RequestHeader("X-User-Id") Long userId) {
@@ -0,0 +1,37 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+
+public class AccountDrift {
+
+    private Long accountId;
+    private BigDecimal balance;       // accounts.balance
+    private BigDecimal expected;      // soma do razão
+    private boolean repaired;
+
+    public AccountDrift(Long accountId, BigDecimal balance, BigDecimal expected, boolean repaired) {
+        this.accountId = accountId;
+        this.balance = balance;
+        this.expected = expected;
+        this.repaired = repaired;
+    }
+
+    public AccountDrift() {
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public BigDecimal getExpected() {
+        return expected;
+    }
+
+    public boolean isRepaired() {
+        return repaired;
+    }
+}
@@ -0,0 +1,74 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+
+import com.accountservice.model.Account;
+
+/**
+ * Cópia imutável dos campos de conta servidos pelo {@link com.accountservice.service.AccountCache}:
+ * a mesma instância é lida por várias requisições ao mesmo tempo.
+ */
+public final class CachedAccount {
+
+    private final Long id;
+    private final String accountNumber;
+    private final String bankCode;
+    private final String agencyNumber;
+    private final String userName;
+    private final String userCpf;
+    private final Account.AccountType type;
+    private final BigDecimal balance;
+    private final String bankDetails;
+
+    private CachedAccount(Account account) {
+        this.id = account.getId();
+        this.accountNumber = account.getAccountNumber();
+        this.bankCode = account.getBankCode();
+        this.agencyNumber = account.getAgencyNumber();
+        this.userName = account.getUserName();
+        this.userCpf = account.getUserCpf();
+        this.type = account.getType();
+        this.balance = account.getBalance();
+        this.bankDetails = account.getBankDetails();
+    }
+
+    public static CachedAccount of(Account account) {
+        return new CachedAccount(account);
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public String getBankCode() {
+        return bankCode;
+    }
+
+    public String getAgencyNumber() {
+        return agencyNumber;
+    }
+
+    public String getUserName() {
+        return userName;
+    }
+
+    public String getUserCpf() {
+        return userCpf;
+    }
+
+    public Account.AccountType getType() {
+        return type;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public String getBankDetails() {
+        return bankDetails;
+    }
+}
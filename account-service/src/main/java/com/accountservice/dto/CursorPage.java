@@ -0,0 +1,37 @@
+package com.accountservice.dto;
+
+import java.util.List;
+
+public class CursorPage<T> {
+
+    private List<T> items;
+    private String nextCursor;     // null quando não há próxima página
+
+    public CursorPage(List<T> items, String nextCursor) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+    }
+
+    public CursorPage() {
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public void setItems(List<T> items) {
+        this.items = items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public void setNextCursor(String nextCursor) {
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+}
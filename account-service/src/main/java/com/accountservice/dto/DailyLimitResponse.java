@@ -0,0 +1,53 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+
+public class DailyLimitResponse {
+
+    private String accountNumber;
+    private BigDecimal dailyLimit;
+    private BigDecimal used;          // débitos de hoje
+    private BigDecimal remaining;
+
+    public DailyLimitResponse(String accountNumber, BigDecimal dailyLimit, BigDecimal used, BigDecimal remaining) {
+        this.accountNumber = accountNumber;
+        this.dailyLimit = dailyLimit;
+        this.used = used;
+        this.remaining = remaining;
+    }
+
+    public DailyLimitResponse() {
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public BigDecimal getDailyLimit() {
+        return dailyLimit;
+    }
+
+    public void setDailyLimit(BigDecimal dailyLimit) {
+        this.dailyLimit = dailyLimit;
+    }
+
+    public BigDecimal getUsed() {
+        return used;
+    }
+
+    public void setUsed(BigDecimal used) {
+        this.used = used;
+    }
+
+    public BigDecimal getRemaining() {
+        return remaining;
+    }
+
+    public void setRemaining(BigDecimal remaining) {
+        this.remaining = remaining;
+    }
+}
@@ -0,0 +1,55 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+public class HistoricalBalanceResponse {
+
+    private String accountNumber;
+    private LocalDateTime at;
+    private BigDecimal balance;
+    private LocalDate snapshotDate;   // snapshot usado como base (nulo se não havia)
+
+    public HistoricalBalanceResponse(String accountNumber, LocalDateTime at, BigDecimal balance, LocalDate snapshotDate) {
+        this.accountNumber = accountNumber;
+        this.at = at;
+        this.balance = balance;
+        this.snapshotDate = snapshotDate;
+    }
+
+    public HistoricalBalanceResponse() {
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    public void setAt(LocalDateTime at) {
+        this.at = at;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public void setBalance(BigDecimal balance) {
+        this.balance = balance;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public void setSnapshotDate(LocalDate snapshotDate) {
+        this.snapshotDate = snapshotDate;
+    }
+}
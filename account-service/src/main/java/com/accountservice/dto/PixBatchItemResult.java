@@ -0,0 +1,70 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+
+public class PixBatchItemResult {
+
+    private int index;                 // posição do item no lote
+    private String keyValue;
+    private BigDecimal amount;
+    private String status;             // COMPLETED ou FAILED
+    private String transactionId;      // preenchido quando COMPLETED
+    private String message;
+
+    public PixBatchItemResult(int index, String keyValue, BigDecimal amount) {
+        this.index = index;
+        this.keyValue = keyValue;
+        this.amount = amount;
+    }
+
+    public PixBatchItemResult() {
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public String getKeyValue() {
+        return keyValue;
+    }
+
+    public void setKeyValue(String keyValue) {
+        this.keyValue = keyValue;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getTransactionId() {
+        return transactionId;
+    }
+
+    public void setTransactionId(String transactionId) {
+        this.transactionId = transactionId;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,41 @@
+package com.accountservice.dto;
+
+import java.util.List;
+
+// Uma linha NDJSON por bloco processado no endpoint de lote em streaming
+public class PixBatchProgress {
+
+    private int processed;
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<PixBatchItemResult> results;   // resultados do bloco recém-processado
+
+    public PixBatchProgress(int processed, int total, int succeeded, int failed, List<PixBatchItemResult> results) {
+        this.processed = processed;
+        this.total = total;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.results = results;
+    }
+
+    public int getProcessed() {
+        return processed;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public List<PixBatchItemResult> getResults() {
+        return results;
+    }
+}
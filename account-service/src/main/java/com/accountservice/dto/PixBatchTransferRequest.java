@@ -0,0 +1,35 @@
+package com.accountservice.dto;
+
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+public class PixBatchTransferRequest {
+
+    // Só entrada: nunca serializada (nem no hash da Idempotency-Key)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+    private String password;
+
+    @NotEmpty(message = "O lote deve conter ao menos uma transferência")
+    @Valid
+    private List<PixBatchTransferItem> items;
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public List<PixBatchTransferItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<PixBatchTransferItem> items) {
+        this.items = items;
+    }
+}
@@ -0,0 +1,45 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public class PixBatchTransferResponse {
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private BigDecimal totalTransferred;
+    private List<PixBatchItemResult> results;
+
+    public PixBatchTransferResponse(int total, int succeeded, int failed,
+                                    BigDecimal totalTransferred, List<PixBatchItemResult> results) {
+        this.total = total;
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.totalTransferred = totalTransferred;
+        this.results = results;
+    }
+
+    public PixBatchTransferResponse() {
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getSucceeded() {
+        return succeeded;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public BigDecimal getTotalTransferred() {
+        return totalTransferred;
+    }
+
+    public List<PixBatchItemResult> getResults() {
+        return results;
+    }
+}
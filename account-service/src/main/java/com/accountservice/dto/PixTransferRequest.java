@@ -5,6 +5,8 @@ import jakarta.validation.constraints.DecimalMin;
 
 import jakarta.validation.constraints.NotNull;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 public class PixTransferRequest {
     
     
@@ -14,6 +16,8 @@ public class PixTransferRequest {
     
     private String description;
 
+    // Só entrada: nunca serializada (nem no hash da Idempotency-Key)
+    @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
     private String password;
 
     public BigDecimal getAmount() {
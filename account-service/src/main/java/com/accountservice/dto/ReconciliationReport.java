@@ -0,0 +1,95 @@
+package com.accountservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class ReconciliationReport {
+
+    private String runId;
+    private String status;            // RUNNING, COMPLETED ou FAILED
+    private boolean repair;
+    private int partitions;
+    private int partitionsCompleted;
+    private long rowsScanned;
+    private long accountsChecked;
+    private long driftCount;
+    private long repairedCount;
+    private List<AccountDrift> drifts; // amostra limitada
+    private String error;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+
+    public ReconciliationReport(String runId, String status, boolean repair, int partitions, int partitionsCompleted,
+                                long rowsScanned, long accountsChecked, long driftCount, long repairedCount,
+                                List<AccountDrift> drifts, String error,
+                                LocalDateTime startedAt, LocalDateTime finishedAt) {
+        this.runId = runId;
+        this.status = status;
+        this.repair = repair;
+        this.partitions = partitions;
+        this.partitionsCompleted = partitionsCompleted;
+        this.rowsScanned = rowsScanned;
+        this.accountsChecked = accountsChecked;
+        this.driftCount = driftCount;
+        this.repairedCount = repairedCount;
+        this.drifts = drifts;
+        this.error = error;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+    }
+
+    public ReconciliationReport() {
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public boolean isRepair() {
+        return repair;
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    public int getPartitionsCompleted() {
+        return partitionsCompleted;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public long getAccountsChecked() {
+        return accountsChecked;
+    }
+
+    public long getDriftCount() {
+        return driftCount;
+    }
+
+    public long getRepairedCount() {
+        return repairedCount;
+    }
+
+    public List<AccountDrift> getDrifts() {
+        return drifts;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+}
@@ -0,0 +1,66 @@
+package com.accountservice.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import com.accountservice.exception.InvalidCursorException;
+
+/**
+ * Posição no extrato: (createdAt, origem, id) da última linha entregue.
+ * Origem 'T' = transactions, 'P' = pix_transactions. Trafega como token opaco (base64url).
+ */
+public class StatementCursor {
+
+    public static final char TRANSACTION = 'T';
+    public static final char PIX = 'P';
+
+    private final LocalDateTime createdAt;
+    private final char source;
+    private final long id;
+
+    public StatementCursor(LocalDateTime createdAt, char source, long id) {
+        this.createdAt = createdAt;
+        this.source = source;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public char getSource() {
+        return source;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + source + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Token nulo ou vazio = primeira página. */
+    public static StatementCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Cursor de paginação inválido");
+        }
+        if (parts.length != 3 || parts[1].length() != 1
+                || (parts[1].charAt(0) != TRANSACTION && parts[1].charAt(0) != PIX)) {
+            throw new InvalidCursorException("Cursor de paginação inválido");
+        }
+        try {
+            return new StatementCursor(LocalDateTime.parse(parts[0]), parts[1].charAt(0), Long.parseLong(parts[2]));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor de paginação inválido");
+        }
+    }
+}
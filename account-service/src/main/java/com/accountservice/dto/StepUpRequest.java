@@ -0,0 +1,36 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+public class StepUpRequest {
+
+    @NotBlank(message = "Senha transacional é obrigatória")
+    @Pattern(regexp = "\\d{4}", message = "A senha deve ter 4 dígitos numéricos")
+    private String password;
+
+    // Valor máximo de cada operação autorizada pelo token
+    @NotNull(message = "Valor máximo é obrigatório")
+    @DecimalMin(value = "0.01", message = "Valor máximo deve ser maior que zero")
+    private BigDecimal maxAmount;
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+}
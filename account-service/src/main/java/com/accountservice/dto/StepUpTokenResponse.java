@@ -0,0 +1,44 @@
+package com.accountservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public class StepUpTokenResponse {
+
+    private String token;
+    private BigDecimal maxAmount;
+    private Instant expiresAt;
+
+    public StepUpTokenResponse(String token, BigDecimal maxAmount, Instant expiresAt) {
+        this.token = token;
+        this.maxAmount = maxAmount;
+        this.expiresAt = expiresAt;
+    }
+
+    public StepUpTokenResponse() {
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public BigDecimal getMaxAmount() {
+        return maxAmount;
+    }
+
+    public void setMaxAmount(BigDecimal maxAmount) {
+        this.maxAmount = maxAmount;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+}
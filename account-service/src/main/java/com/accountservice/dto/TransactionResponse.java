@@ -31,6 +31,9 @@ public class TransactionResponse {
         this.message = message;
     }
 
+    public TransactionResponse() {
+    }
+
     public String getTransactionId() {
         return transactionId;
     }
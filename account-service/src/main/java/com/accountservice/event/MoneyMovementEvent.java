@@ -0,0 +1,117 @@
+package com.accountservice.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Dinheiro entrou ou saiu de uma conta. Publicado pelo outbox no tópico
+ * bank.outbox.topic com a conta como chave: os eventos de uma mesma conta
+ * chegam na ordem em que aconteceram. O consumidor deve descartar eventId
+ * repetidos (o relay entrega pelo menos uma vez).
+ */
+public class MoneyMovementEvent {
+
+    public static final String ACCOUNT_DEBITED = "ACCOUNT_DEBITED";
+    public static final String ACCOUNT_CREDITED = "ACCOUNT_CREDITED";
+
+    private String eventId;
+    private String eventType;
+    private LocalDateTime timestamp;
+
+    private String movementId;
+    private String movementType;
+    private Long accountId;
+    private Long counterpartyAccountId;
+    private BigDecimal amount;
+    private BigDecimal balanceAfter;
+
+    public MoneyMovementEvent(String eventType, String movementId, String movementType, Long accountId,
+                              Long counterpartyAccountId, BigDecimal amount, BigDecimal balanceAfter,
+                              LocalDateTime timestamp) {
+        this.eventId = UUID.randomUUID().toString();
+        this.eventType = eventType;
+        this.movementId = movementId;
+        this.movementType = movementType;
+        this.accountId = accountId;
+        this.counterpartyAccountId = counterpartyAccountId;
+        this.amount = amount;
+        this.balanceAfter = balanceAfter;
+        this.timestamp = timestamp;
+    }
+
+    public MoneyMovementEvent() {
+    }
+
+    public String getEventId() {
+        return eventId;
+    }
+
+    public void setEventId(String eventId) {
+        this.eventId = eventId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public void setEventType(String eventType) {
+        this.eventType = eventType;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public String getMovementId() {
+        return movementId;
+    }
+
+    public void setMovementId(String movementId) {
+        this.movementId = movementId;
+    }
+
+    public String getMovementType() {
+        return movementType;
+    }
+
+    public void setMovementType(String movementType) {
+        this.movementType = movementType;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(Long accountId) {
+        this.accountId = accountId;
+    }
+
+    public Long getCounterpartyAccountId() {
+        return counterpartyAccountId;
+    }
+
+    public void setCounterpartyAccountId(Long counterpartyAccountId) {
+        this.counterpartyAccountId = counterpartyAccountId;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public void setAmount(BigDecimal amount) {
+        this.amount = amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(BigDecimal balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+}
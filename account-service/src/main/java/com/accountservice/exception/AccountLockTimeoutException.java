@@ -0,0 +1,7 @@
+package com.accountservice.exception;
+
+public class AccountLockTimeoutException extends RuntimeException {
+    public AccountLockTimeoutException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.accountservice.exception;
+
+public class DailyLimitExceededException extends RuntimeException {
+    public DailyLimitExceededException(String message) {
+        super(message);
+    }
+}
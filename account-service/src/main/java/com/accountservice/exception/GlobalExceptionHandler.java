@@ -5,14 +5,18 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import jakarta.validation.ConstraintViolationException;
 
+import com.bankcommon.security.PasswordHashingBusyException;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
@@ -42,6 +46,49 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
     }
 
+    @ExceptionHandler(DailyLimitExceededException.class)
+    public ResponseEntity<Object> handleDailyLimitExceeded(DailyLimitExceededException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(AccountLockTimeoutException.class)
+    public ResponseEntity<Object> handleAccountLockTimeout(AccountLockTimeoutException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<Object> handleIdempotencyConflict(IdempotencyConflictException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<Object> handleIdempotencyKeyReuse(IdempotencyKeyReuseException ex) {
+        return buildResponse(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage());
+    }
+
+    @ExceptionHandler(ReconciliationInProgressException.class)
+    public ResponseEntity<Object> handleReconciliationInProgress(ReconciliationInProgressException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(PartitionStateException.class)
+    public ResponseEntity<Object> handlePartitionState(PartitionStateException ex) {
+        return buildResponse(HttpStatus.CONFLICT, ex.getMessage());
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursor(InvalidCursorException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+
+    @ExceptionHandler(PasswordHashingBusyException.class)
+    public ResponseEntity<Object> handlePasswordHashingBusy(PasswordHashingBusyException ex) {
+        ResponseEntity<Object> response = buildResponse(HttpStatus.TOO_MANY_REQUESTS, ex.getMessage());
+        return ResponseEntity.status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(response.getBody());
+    }
+
     @ExceptionHandler(PasswordMismatchException.class)
     public ResponseEntity<Object> handlePasswordMismatch(PasswordMismatchException ex) {
         return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage());
@@ -80,6 +127,12 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, String.join("; ", violations));
     }
 
+    // Parâmetro de query/path com valor inválido (ex: format=xls na exportação)
+    @ExceptionHandler(MethodArgumentTypeMismatchException.class)
+    public ResponseEntity<Object> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
+        return buildResponse(HttpStatus.BAD_REQUEST, "Valor inválido para o parâmetro " + ex.getName());
+    }
+
     // Handler genérico para outros erros não previstos
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Object> handleGeneralException(Exception ex) {
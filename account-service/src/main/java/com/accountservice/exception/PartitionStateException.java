@@ -0,0 +1,7 @@
+package com.accountservice.exception;
+
+public class PartitionStateException extends RuntimeException {
+    public PartitionStateException(String message) {
+        super(message);
+    }
+}
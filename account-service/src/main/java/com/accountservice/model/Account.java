@@ -2,14 +2,9 @@ package com.accountservice.model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
 
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import com.accountservice.exception.InvalidTransactionalPasswordException;
-import com.accountservice.exception.PasswordBlockedException;
-import com.accountservice.exception.PasswordNotSetException;
-
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -17,10 +12,14 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "accounts")
+@Table(name = "accounts", indexes = {
+    @Index(name = "idx_accounts_user_status", columnList = "user_id, status"),
+    @Index(name = "idx_accounts_activation_token", columnList = "activation_token")
+})
 public class Account {
     
     @Id
@@ -316,34 +315,6 @@ public class Account {
     }
 
     
-    // ✅ MÉTODO PARA VALIDAR SENHA TRANSACIONAL
-    public boolean validateTransactionalPassword(String password, PasswordEncoder passwordEncoder) {
-        if (passwordBlockedUntil != null && LocalDateTime.now().isBefore(passwordBlockedUntil)) {
-            throw new PasswordBlockedException("Senha bloqueada. Tente novamente em " +
-                ChronoUnit.MINUTES.between(LocalDateTime.now(), passwordBlockedUntil) + " minutos");
-        }
-
-        if (transactionalPassword == null || !passwordSet) {
-            throw new PasswordNotSetException("Senha transacional não configurada");
-        }
-
-        boolean isValid = passwordEncoder.matches(password, transactionalPassword);
-
-        if (!isValid) {
-            failedAttempts++;
-            if (failedAttempts >= 3) {
-                passwordBlockedUntil = LocalDateTime.now().plusMinutes(30);
-                throw new PasswordBlockedException("Senha bloqueada por 30 minutos devido a múltiplas tentativas falhas");
-            }
-            throw new InvalidTransactionalPasswordException("Senha incorreta. Tentativas restantes: " + (3 - failedAttempts));
-        } else {
-            failedAttempts = 0;
-            passwordBlockedUntil = null;
-        }
-
-        return true;
-    }
-
     
     // ✅ VERIFICAR SE SENHA ESTÁ CONFIGURADA
     public boolean isTransactionalPasswordSet() {
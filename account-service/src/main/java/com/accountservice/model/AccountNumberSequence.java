@@ -0,0 +1,33 @@
+package com.accountservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Próximo número de conta ainda não reservado. Cada instância avança
+ * next_value de uma vez por um bloco inteiro e distribui o bloco da memória.
+ */
+@Entity
+@Table(name = "account_number_sequences")
+public class AccountNumberSequence {
+
+    @Id
+    @Column(length = 50)
+    private String name;
+
+    @Column(name = "next_value", nullable = false)
+    private Long nextValue;
+
+    public AccountNumberSequence() {
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getNextValue() {
+        return nextValue;
+    }
+}
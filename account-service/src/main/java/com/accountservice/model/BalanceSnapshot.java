@@ -0,0 +1,63 @@
+package com.accountservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Saldo da conta no fim de um dia (00:00 do dia seguinte). Só existe linha para
+ * dias com movimentação: sem linha no dia, vale o snapshot anterior.
+ */
+@Entity
+@Table(name = "balance_snapshots",
+       uniqueConstraints = @UniqueConstraint(name = "uk_snapshot_account_date",
+                                             columnNames = { "account_id", "snapshot_date" }))
+public class BalanceSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private Long accountId;
+
+    @Column(name = "snapshot_date", nullable = false, updatable = false)
+    private LocalDate snapshotDate;
+
+    @Column(nullable = false, precision = 15, scale = 2, updatable = false)
+    private BigDecimal balance;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public BalanceSnapshot() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getSnapshotDate() {
+        return snapshotDate;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.accountservice.model;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Total debitado de uma conta em um dia, em centavos. Compartilhado por todas
+ * as instâncias: a reserva é um UPDATE condicional nesta linha, na mesma
+ * transação do débito.
+ */
+@Entity
+@Table(name = "daily_spend",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_spend_account_date",
+                                             columnNames = { "account_id", "spend_date" }))
+public class DailySpend {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private Long accountId;
+
+    @Column(name = "spend_date", nullable = false, updatable = false)
+    private LocalDate spendDate;
+
+    @Column(name = "spent_cents", nullable = false)
+    private long spentCents;
+
+    public DailySpend() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public LocalDate getSpendDate() {
+        return spendDate;
+    }
+
+    public long getSpentCents() {
+        return spentCents;
+    }
+}
@@ -0,0 +1,94 @@
+package com.accountservice.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Partição mensal do histórico (transactions / pix_transactions).
+ *
+ * ATTACHED: o mês faz parte da tabela principal. DETACHED: o mês saiu da tabela
+ * principal e está sozinho em {@code partitionTable}, que as consultas com
+ * período ainda alcançam até o mês ser descartado. ARCHIVED: o mês foi gravado
+ * nos segmentos do arquivo frio (bank.archive.dir) e a tabela já não existe.
+ */
+@Entity
+@Table(name = "history_partitions",
+       uniqueConstraints = @UniqueConstraint(columnNames = { "base_table", "month_start" }))
+public class HistoryPartition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "base_table", nullable = false, length = 50)
+    private String baseTable;
+
+    // Primeiro dia do mês ("month" é palavra reservada no H2)
+    @Column(name = "month_start", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "partition_table", nullable = false, length = 60)
+    private String partitionTable;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PartitionStatus status = PartitionStatus.ATTACHED;
+
+    @Column(name = "detached_at")
+    private LocalDateTime detachedAt;
+
+    public enum PartitionStatus {
+        ATTACHED, DETACHED, ARCHIVED
+    }
+
+    public HistoryPartition(String baseTable, LocalDate month, String partitionTable) {
+        this.baseTable = baseTable;
+        this.month = month;
+        this.partitionTable = partitionTable;
+    }
+
+    public HistoryPartition() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getBaseTable() {
+        return baseTable;
+    }
+
+    public LocalDate getMonth() {
+        return month;
+    }
+
+    public String getPartitionTable() {
+        return partitionTable;
+    }
+
+    public PartitionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(PartitionStatus status) {
+        this.status = status;
+    }
+
+    public LocalDateTime getDetachedAt() {
+        return detachedAt;
+    }
+
+    public void setDetachedAt(LocalDateTime detachedAt) {
+        this.detachedAt = detachedAt;
+    }
+}
@@ -0,0 +1,50 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Nó do gerador de ids ({@code TransactionIdGenerator}) e seu dono. O lease
+ * impede duas instâncias vivas no mesmo nó; reserved_millis é o maior
+ * timestamp que o dono pode usar, e quem assumir o nó começa depois dele.
+ */
+@Entity
+@Table(name = "id_nodes")
+public class IdNode {
+
+    @Id
+    @Column(name = "node_id")
+    private Integer nodeId;
+
+    @Column(length = 100)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    @Column(name = "reserved_millis", nullable = false)
+    private long reservedMillis;
+
+    public IdNode() {
+    }
+
+    public Integer getNodeId() {
+        return nodeId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+
+    public long getReservedMillis() {
+        return reservedMillis;
+    }
+}
@@ -0,0 +1,125 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "idempotency_records")
+public class IdempotencyRecord {
+
+    // escopo + ":" + valor do header Idempotency-Key
+    @Id
+    @Column(name = "record_key", length = 200)
+    private String recordKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatus status;
+
+    @Lob
+    @Column(name = "response_body")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // SHA-256 do escopo + corpo da requisição: a mesma chave com outro pedido é recusada
+    @Column(name = "request_hash", length = 64)
+    private String requestHash;
+
+    // IN_PROGRESS: até quando o nó que executa é dono da chave; depois, outro pode assumi-la
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Execução dona da chave (reivindicação ou tomada após lease vencido)
+    @Column(name = "owner_token", length = 36)
+    private String ownerToken;
+
+    public enum IdempotencyStatus {
+        // EXECUTED: o dinheiro já se moveu (marcado na mesma transação), a resposta ainda não foi gravada
+        IN_PROGRESS, EXECUTED, COMPLETED
+    }
+
+    public IdempotencyRecord(String recordKey, IdempotencyStatus status, LocalDateTime expiresAt) {
+        this.recordKey = recordKey;
+        this.status = status;
+        this.expiresAt = expiresAt;
+    }
+
+    public IdempotencyRecord() {
+    }
+
+    public String getRecordKey() {
+        return recordKey;
+    }
+
+    public void setRecordKey(String recordKey) {
+        this.recordKey = recordKey;
+    }
+
+    public IdempotencyStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(IdempotencyStatus status) {
+        this.status = status;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public void setResponseBody(String responseBody) {
+        this.responseBody = responseBody;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(LocalDateTime expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public void setRequestHash(String requestHash) {
+        this.requestHash = requestHash;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public String getOwnerToken() {
+        return ownerToken;
+    }
+
+    public void setOwnerToken(String ownerToken) {
+        this.ownerToken = ownerToken;
+    }
+}
@@ -0,0 +1,96 @@
+package com.accountservice.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Lançamento do razão (partida dobrada). Cada movimentação gera exatamente um
+ * DEBIT e um CREDIT com o mesmo movement_id; as linhas nunca são alteradas.
+ * account_id 0 representa o mundo externo (dinheiro que entra ou sai do banco).
+ */
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        @Index(name = "idx_ledger_account_id", columnList = "account_id, id"),
+        @Index(name = "idx_ledger_account_created", columnList = "account_id, created_at"),
+        @Index(name = "idx_ledger_movement", columnList = "movement_id")
+})
+public class LedgerEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // transactionId da Transaction / PixTransaction que originou o lançamento
+    @Column(name = "movement_id", nullable = false, length = 50, updatable = false)
+    private String movementId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "movement_type", nullable = false, length = 20, updatable = false)
+    private TransactionType movementType;
+
+    @Column(name = "account_id", nullable = false, updatable = false)
+    private Long accountId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 6, updatable = false)
+    private EntryType entryType;
+
+    @Column(nullable = false, precision = 15, scale = 2, updatable = false)
+    private BigDecimal amount;
+
+    // Saldo da conta logo após este lançamento (nulo para a conta externa)
+    @Column(name = "balance_after", precision = 15, scale = 2, updatable = false)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public enum EntryType {
+        DEBIT, CREDIT
+    }
+
+    public LedgerEntry() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMovementId() {
+        return movementId;
+    }
+
+    public TransactionType getMovementType() {
+        return movementType;
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public EntryType getEntryType() {
+        return entryType;
+    }
+
+    public BigDecimal getAmount() {
+        return amount;
+    }
+
+    public BigDecimal getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,71 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * Evento a publicar no Kafka, gravado na mesma transação da movimentação.
+ * A linha é apagada assim que o broker confirma o envio. partition_id agrupa
+ * as contas em fatias que um único relay por vez é dono (ver outbox_leases).
+ */
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_partition", columnList = "partition_id, id"),
+        @Index(name = "idx_outbox_created", columnList = "created_at")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "partition_id", nullable = false, updatable = false)
+    private int partitionId;
+
+    // Conta dona do evento: chave da mensagem no Kafka
+    @Column(name = "aggregate_id", nullable = false, updatable = false)
+    private Long aggregateId;
+
+    @Column(name = "event_type", nullable = false, length = 40, updatable = false)
+    private String eventType;
+
+    @Column(nullable = false, length = 4000, updatable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    public OutboxEvent() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    public Long getAggregateId() {
+        return aggregateId;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,42 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Dono de uma partição do outbox. Um relay só publica as partições cujo lease
+ * é seu e não expirou; lease vencido pode ser tomado por qualquer instância.
+ */
+@Entity
+@Table(name = "outbox_leases")
+public class OutboxLease {
+
+    @Id
+    @Column(name = "partition_id")
+    private Integer partitionId;
+
+    @Column(length = 100)
+    private String owner;
+
+    @Column(name = "lease_until")
+    private LocalDateTime leaseUntil;
+
+    public OutboxLease() {
+    }
+
+    public Integer getPartitionId() {
+        return partitionId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    public LocalDateTime getLeaseUntil() {
+        return leaseUntil;
+    }
+}
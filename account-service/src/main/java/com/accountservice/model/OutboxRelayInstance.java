@@ -0,0 +1,35 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Relays vivos (heartbeat recente). Cada um fica com no máximo
+ * partições / instâncias vivas, arredondado para cima.
+ */
+@Entity
+@Table(name = "outbox_relay_instances")
+public class OutboxRelayInstance {
+
+    @Id
+    @Column(name = "instance_id", length = 100)
+    private String instanceId;
+
+    @Column(name = "heartbeat_at", nullable = false)
+    private LocalDateTime heartbeatAt;
+
+    public OutboxRelayInstance() {
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public LocalDateTime getHeartbeatAt() {
+        return heartbeatAt;
+    }
+}
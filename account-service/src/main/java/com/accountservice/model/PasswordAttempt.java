@@ -0,0 +1,34 @@
+package com.accountservice.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * Erros seguidos de senha transacional de uma conta, compartilhados por todas
+ * as instâncias. Fora da linha de accounts para não disputar a linha mais
+ * quente do banco; só existe enquanto há erros sem acerto nem bloqueio.
+ */
+@Entity
+@Table(name = "password_attempts")
+public class PasswordAttempt {
+
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+
+    @Column(nullable = false)
+    private int failures;
+
+    public PasswordAttempt() {
+    }
+
+    public Long getAccountId() {
+        return accountId;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
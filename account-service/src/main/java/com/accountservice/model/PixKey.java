@@ -11,12 +11,16 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
 @Entity
 @Table(name = "pix_keys", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"key_value", "key_type"})
+    @UniqueConstraint(columnNames = {"key_value", "key_type"})   // também atende findByKeyValue
+}, indexes = {
+    @Index(name = "idx_pix_keys_user_status", columnList = "user_id, status"),
+    @Index(name = "idx_pix_keys_created_at", columnList = "created_at")   // refresh do PixKeyDirectory
 })
 public class PixKey {
     
@@ -13,10 +13,18 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "pix_transactions")
+@Table(name = "pix_transactions", indexes = {
+    @Index(name = "idx_pix_tx_from_account_created", columnList = "from_account_id, created_at"),
+    @Index(name = "idx_pix_tx_to_account_created", columnList = "to_account_id, created_at"),
+    @Index(name = "idx_pix_tx_from_user", columnList = "from_user_id"),
+    @Index(name = "idx_pix_tx_to_user", columnList = "to_user_id"),
+    @Index(name = "idx_pix_tx_status_created", columnList = "status, created_at"),
+    @Index(name = "idx_pix_tx_created", columnList = "created_at")
+})
 public class PixTransaction {
     
     @Id
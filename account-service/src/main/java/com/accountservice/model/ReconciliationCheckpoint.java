@@ -0,0 +1,129 @@
+package com.accountservice.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * Progresso de uma execução da reconciliação de saldos: uma linha por faixa de
+ * contas. Ao retomar a mesma execução, faixas COMPLETED são puladas.
+ */
+@Entity
+@Table(name = "reconciliation_checkpoints",
+       uniqueConstraints = @UniqueConstraint(columnNames = { "run_id", "partition_index" }))
+public class ReconciliationCheckpoint {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "run_id", nullable = false, length = 50)
+    private String runId;
+
+    @Column(name = "partition_index", nullable = false)
+    private int partitionIndex;
+
+    // Faixa de contas [fromAccountId, toAccountId]
+    @Column(name = "from_account_id", nullable = false)
+    private Long fromAccountId;
+
+    @Column(name = "to_account_id", nullable = false)
+    private Long toAccountId;
+
+    // Maior id do razão considerado: lançamentos posteriores ficam para a próxima execução
+    @Column(name = "ledger_watermark", nullable = false)
+    private Long ledgerWatermark;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private CheckpointStatus status = CheckpointStatus.PENDING;
+
+    @Column(name = "rows_scanned", nullable = false)
+    private long rowsScanned;
+
+    @Column(name = "drift_count", nullable = false)
+    private int driftCount;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum CheckpointStatus {
+        PENDING, COMPLETED
+    }
+
+    public ReconciliationCheckpoint(String runId, int partitionIndex, Long fromAccountId, Long toAccountId,
+                                    Long ledgerWatermark) {
+        this.runId = runId;
+        this.partitionIndex = partitionIndex;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.ledgerWatermark = ledgerWatermark;
+    }
+
+    public ReconciliationCheckpoint() {
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getPartitionIndex() {
+        return partitionIndex;
+    }
+
+    public Long getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public Long getToAccountId() {
+        return toAccountId;
+    }
+
+    public Long getLedgerWatermark() {
+        return ledgerWatermark;
+    }
+
+    public CheckpointStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(CheckpointStatus status) {
+        this.status = status;
+    }
+
+    public long getRowsScanned() {
+        return rowsScanned;
+    }
+
+    public void setRowsScanned(long rowsScanned) {
+        this.rowsScanned = rowsScanned;
+    }
+
+    public int getDriftCount() {
+        return driftCount;
+    }
+
+    public void setDriftCount(int driftCount) {
+        this.driftCount = driftCount;
+    }
+
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(LocalDateTime completedAt) {
+        this.completedAt = completedAt;
+    }
+}
@@ -12,10 +12,14 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+    @Index(name = "idx_transactions_account_created", columnList = "account_id, created_at"),
+    @Index(name = "idx_transactions_created", columnList = "created_at")
+})
 public class Transaction {
     
     @Id
@@ -1,5 +1,7 @@
 package com.accountservice.model;
 
 public enum  TransactionType {
-    DEPOSIT, WITHDRAW, PIX, TRANSFER
+    DEPOSIT, WITHDRAW, PIX, TRANSFER,
+    // Só no razão: saldo com que a conta entra nele (ver LedgerService.open)
+    OPENING_BALANCE
 }
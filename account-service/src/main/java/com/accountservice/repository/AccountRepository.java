@@ -1,9 +1,13 @@
 package com.accountservice.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -15,6 +19,22 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    @Query("SELECT a.id FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<Long> findIdByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT a.balance FROM Account a WHERE a.id = :id")
+    Optional<BigDecimal> findBalanceById(@Param("id") Long id);
+
+    // Crédito atômico: um único UPDATE, sem carregar a entidade
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance + :amount, a.updatedAt = :now WHERE a.id = :id")
+    int creditBalance(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
+    // Débito condicional: só altera a linha se houver saldo (0 linhas = saldo insuficiente ou conta inexistente)
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Account a SET a.balance = a.balance - :amount, a.updatedAt = :now WHERE a.id = :id AND a.balance >= :amount")
+    int debitBalance(@Param("id") Long id, @Param("amount") BigDecimal amount, @Param("now") LocalDateTime now);
+
     Optional<Account> findByUserEmail(String email);
     
     Optional<Account> findFirstByUserId(Long userId);
@@ -31,6 +51,13 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
     
     @Query("SELECT a FROM Account a WHERE a.userId = :userId AND a.status = 'ACTIVE'")
     List<Account> findActiveAccountsByUserId(@Param("userId") Long userId);
+
+    // Conta principal: a ativa mais antiga, resolvida só pelo índice (user_id, status)
+    @Query("SELECT a.id FROM Account a WHERE a.userId = :userId AND a.status = 'ACTIVE' ORDER BY a.id")
+    List<Long> findActiveAccountIdsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT a FROM Account a WHERE a.userId IN :userIds AND a.status = 'ACTIVE' ORDER BY a.id")
+    List<Account> findActiveAccountsByUserIdIn(@Param("userIds") Collection<Long> userIds);
     
     @Query("SELECT COALESCE(COUNT(a), 0) FROM Account a WHERE a.userId = :userId")
     long countByUserId(@Param("userId") Long userId);
@@ -0,0 +1,155 @@
+package com.accountservice.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.CursorPage;
+import com.accountservice.dto.StatementCursor;
+
+/**
+ * Extrato da conta (depósitos, saques e PIX) em uma única consulta: os nomes
+ * dos titulares vêm por JOIN com accounts e a ordenação/limite ficam no banco.
+ *
+ * Paginação por keyset em (created_at, origem, id) decrescente: cada ramo do
+ * UNION filtra a partir do cursor e já traz no máximo uma página, então o custo
+ * de uma página não depende do tamanho do histórico.
+ */
+@Repository
+public class AccountStatementRepository {
+
+    private static final String TRANSACTION_BRANCH =
+            "SELECT 'T' AS src, t.id, t.transaction_id, t.type,"
+            + "  CASE WHEN t.type = 'WITHDRAW' THEN 'OUT' ELSE 'IN' END AS direction,"
+            + "  t.amount, t.description, CAST(NULL AS VARCHAR(100)) AS pix_key, t.created_at,"
+            + "  a.user_name AS from_user_name, a.user_name AS to_user_name"
+            + " FROM transactions t JOIN accounts a ON a.id = t.account_id"
+            + " WHERE t.account_id = :accountId";
+
+    // Saídas e entradas PIX em ramos separados: cada um filtra por uma única coluna de conta
+    private static final String PIX_OUT_BRANCH =
+            "SELECT 'P', p.id, p.transaction_id, 'PIX', 'OUT', p.amount, p.description, p.pix_key, p.created_at,"
+            + "  fa.user_name, ta.user_name"
+            + " FROM pix_transactions p JOIN accounts fa ON fa.id = p.from_account_id"
+            + "  JOIN accounts ta ON ta.id = p.to_account_id"
+            + " WHERE p.from_account_id = :accountId";
+
+    private static final String PIX_IN_BRANCH =
+            "SELECT 'P', p.id, p.transaction_id, 'PIX', 'IN', p.amount, p.description, p.pix_key, p.created_at,"
+            + "  fa.user_name, ta.user_name"
+            + " FROM pix_transactions p JOIN accounts fa ON fa.id = p.from_account_id"
+            + "  JOIN accounts ta ON ta.id = p.to_account_id"
+            + " WHERE p.to_account_id = :accountId AND p.from_account_id <> :accountId";
+
+    // Exportação: histórico completo em ordem cronológica
+    private static final String EXPORT_SQL = "SELECT * FROM ("
+            + TRANSACTION_BRANCH + " UNION ALL " + PIX_OUT_BRANCH + " UNION ALL " + PIX_IN_BRANCH
+            + ") s ORDER BY s.created_at, s.src, s.id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate exportTemplate;
+
+    public AccountStatementRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                      DataSource dataSource,
+                                      @Value("${bank.statement.export-fetch-size:1000}") int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        // Cursor no banco com fetch size fixo: as linhas chegam em blocos, nunca o resultado inteiro
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(exportFetchSize);
+        this.exportTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /** Uma página do extrato, mais recentes primeiro. {@code cursor} nulo = primeira página. */
+    public CursorPage<AccountTransactionDTO> findPage(Long accountId, StatementCursor cursor, int limit) {
+        String sql = "SELECT * FROM ("
+                + pageBranch(TRANSACTION_BRANCH, cursor, "t", StatementCursor.TRANSACTION)
+                + " UNION ALL " + pageBranch(PIX_OUT_BRANCH, cursor, "p", StatementCursor.PIX)
+                + " UNION ALL " + pageBranch(PIX_IN_BRANCH, cursor, "p", StatementCursor.PIX)
+                + ") s ORDER BY s.created_at DESC, s.src DESC, s.id DESC LIMIT :fetch";
+
+        // Uma linha a mais só para saber se existe próxima página
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("accountId", accountId)
+                .addValue("fetch", limit + 1);
+        if (cursor != null) {
+            params.addValue("cursorAt", cursor.getCreatedAt())
+                  .addValue("cursorId", cursor.getId());
+        }
+
+        List<AccountTransactionDTO> items = new ArrayList<>(limit);
+        StatementCursor[] last = new StatementCursor[1];
+        boolean[] hasMore = new boolean[1];
+        jdbcTemplate.query(sql, params, rs -> {
+            if (items.size() == limit) {
+                hasMore[0] = true;
+                return;
+            }
+            items.add(mapRow(rs));
+            last[0] = new StatementCursor(rs.getObject("created_at", LocalDateTime.class),
+                    rs.getString("src").charAt(0), rs.getLong("id"));
+        });
+
+        return new CursorPage<>(items, hasMore[0] ? last[0].encode() : null);
+    }
+
+    /**
+     * Percorre o extrato inteiro, linha a linha, sem acumular resultados.
+     * Deve rodar dentro de uma transação para que o driver mantenha o cursor aberto.
+     */
+    public void streamAll(Long accountId, Consumer<AccountTransactionDTO> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource("accountId", accountId);
+        exportTemplate.query(EXPORT_SQL, params, rs -> {
+            consumer.accept(mapRow(rs));
+        });
+    }
+
+    private static String pageBranch(String branch, StatementCursor cursor, String alias, char branchSource) {
+        return "(" + branch + after(cursor, alias, branchSource)
+                + " ORDER BY " + alias + ".created_at DESC, " + alias + ".id DESC LIMIT :fetch)";
+    }
+
+    /**
+     * Condição "depois do cursor" para um ramo. A origem do ramo é fixa, então a
+     * comparação de tupla vira um filtro simples em (created_at, id), que usa o índice.
+     */
+    private static String after(StatementCursor cursor, String alias, char branchSource) {
+        if (cursor == null) {
+            return "";
+        }
+        if (branchSource < cursor.getSource()) {
+            return " AND " + alias + ".created_at <= :cursorAt";
+        }
+        if (branchSource > cursor.getSource()) {
+            return " AND " + alias + ".created_at < :cursorAt";
+        }
+        return " AND (" + alias + ".created_at < :cursorAt OR ("
+                + alias + ".created_at = :cursorAt AND " + alias + ".id < :cursorId))";
+    }
+
+    static AccountTransactionDTO mapRow(ResultSet rs) throws SQLException {
+        AccountTransactionDTO dto = new AccountTransactionDTO();
+        dto.setTransactionId(rs.getString("transaction_id"));
+        dto.setType(rs.getString("type"));
+        dto.setDirection(rs.getString("direction"));
+        dto.setAmount(rs.getBigDecimal("amount"));
+        dto.setDescription(rs.getString("description"));
+        dto.setPixKey(rs.getString("pix_key"));
+        dto.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        dto.setFromUserName(rs.getString("from_user_name"));
+        dto.setToUserName(rs.getString("to_user_name"));
+        return dto;
+    }
+}
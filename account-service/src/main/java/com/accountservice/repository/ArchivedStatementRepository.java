@@ -0,0 +1,229 @@
+package com.accountservice.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.StatementCursor;
+
+/**
+ * Extrato dos meses arquivados, em segmentos comprimidos no disco local
+ * (bank.archive.dir), um ou mais arquivos por mês. Os segmentos são mapeados em
+ * memória; cada mês cobre um intervalo de created_at que não se sobrepõe ao dos
+ * outros nem ao das tabelas online, então percorrer os meses do mais novo para o
+ * mais antigo já entrega as linhas na ordem do extrato.
+ */
+@Repository
+public class ArchivedStatementRepository {
+
+    private static final String FILE_PREFIX = "statement-";
+    private static final String FILE_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final long maxSegmentBytes;
+    private final JdbcTemplate streamingTemplate;
+    private final NavigableMap<YearMonth, List<StatementSegmentReader>> segments = new ConcurrentSkipListMap<>();
+
+    public ArchivedStatementRepository(DataSource dataSource,
+                                       @Value("${bank.archive.dir:data/archive}") String directory,
+                                       @Value("${bank.archive.max-segment-bytes:1073741824}") long maxSegmentBytes,
+                                       @Value("${bank.statement.export-fetch-size:1000}") int fetchSize) {
+        this.directory = Paths.get(directory);
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+    }
+
+    public boolean isEmpty() {
+        return segments.isEmpty();
+    }
+
+    /** Todo o conteúdo arquivado é anterior a este instante; nulo se não há arquivo. */
+    public LocalDateTime boundary() {
+        Map.Entry<YearMonth, List<StatementSegmentReader>> newest = segments.lastEntry();
+        return newest == null ? null : newest.getKey().plusMonths(1).atDay(1).atStartOfDay();
+    }
+
+    /** Até {@code limit} linhas da conta depois de {@code after} (nulo = do início), mais recentes primeiro. */
+    public List<Entry> findAfter(Long accountId, StatementCursor after, int limit) {
+        List<Entry> result = new ArrayList<>(Math.min(limit, 256));
+        for (Map.Entry<YearMonth, List<StatementSegmentReader>> month : segments.descendingMap().entrySet()) {
+            // Mês inteiro mais novo que o cursor: nada dele entra na página
+            if (after != null && month.getKey().atDay(1).atStartOfDay().isAfter(after.getCreatedAt())) {
+                continue;
+            }
+            for (StatementSegmentReader reader : month.getValue()) {
+                if (!reader.mayContain(accountId)) {
+                    continue;
+                }
+                for (Entry entry : reader.rows(accountId)) {
+                    if (after == null || precedes(entry.position, after)) {
+                        result.add(entry);
+                        if (result.size() == limit) {
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /** Extrato arquivado inteiro da conta, em ordem cronológica. */
+    public void streamAll(Long accountId, Consumer<AccountTransactionDTO> consumer) {
+        for (List<StatementSegmentReader> month : segments.values()) {
+            for (StatementSegmentReader reader : month) {
+                if (reader.mayContain(accountId)) {
+                    List<Entry> rows = reader.rows(accountId);
+                    Collections.reverse(rows);
+                    rows.forEach(entry -> consumer.accept(entry.transaction));
+                }
+            }
+        }
+    }
+
+    /**
+     * Grava os segmentos do mês a partir das tabelas do mês destacado. Deve rodar
+     * dentro de uma transação para que o driver mantenha o cursor aberto.
+     * Devolve o número de linhas de extrato gravadas.
+     */
+    public long writeMonth(YearMonth month, String transactionsTable, String pixTable) throws IOException {
+        Files.createDirectories(directory);
+        deleteMonth(month);
+
+        long[] written = new long[1];
+        int[] part = new int[1];
+        long[] lastOwner = { Long.MIN_VALUE };
+        StatementSegmentWriter[] writer = { new StatementSegmentWriter(file(month, 0)) };
+        try {
+            streamingTemplate.query(monthSql(transactionsTable, pixTable), rs -> {
+                try {
+                    long owner = rs.getLong("owner_id");
+                    // Arquivo novo só na troca de conta: cada conta fica inteira em um arquivo do mês
+                    if (owner != lastOwner[0] && writer[0].size() >= maxSegmentBytes) {
+                        writer[0].finish();
+                        writer[0].close();
+                        writer[0] = new StatementSegmentWriter(file(month, ++part[0]));
+                    }
+                    lastOwner[0] = owner;
+                    writer[0].add(owner, rs.getString("src").charAt(0), rs.getLong("id"),
+                            AccountStatementRepository.mapRow(rs));
+                    written[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer[0].finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            writer[0].close();
+        }
+        return written[0];
+    }
+
+    /** Passa a servir os segmentos do mês (já gravados por {@link #writeMonth}). */
+    public void open(YearMonth month) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (Files.isDirectory(directory)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix(month) + "*" + FILE_SUFFIX)) {
+                stream.forEach(files::add);
+            }
+        }
+        Collections.sort(files);
+        List<StatementSegmentReader> readers = new ArrayList<>(files.size());
+        for (Path file : files) {
+            readers.add(StatementSegmentReader.open(file));
+        }
+        segments.put(month, List.copyOf(readers));
+    }
+
+    private void deleteMonth(YearMonth month) throws IOException {
+        segments.remove(month);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, prefix(month) + "*")) {
+            for (Path file : stream) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path file(YearMonth month, int part) {
+        return directory.resolve(prefix(month) + part + FILE_SUFFIX);
+    }
+
+    private static String prefix(YearMonth month) {
+        return String.format("%s%04d%02d-", FILE_PREFIX, month.getYear(), month.getMonthValue());
+    }
+
+    // Ordem do extrato é (created_at, origem, id) decrescente: "depois" do cursor = menor na tupla
+    private static boolean precedes(StatementCursor row, StatementCursor cursor) {
+        int byTime = row.getCreatedAt().compareTo(cursor.getCreatedAt());
+        if (byTime != 0) {
+            return byTime < 0;
+        }
+        if (row.getSource() != cursor.getSource()) {
+            return row.getSource() < cursor.getSource();
+        }
+        return row.getId() < cursor.getId();
+    }
+
+    // Mesmas linhas do extrato online, agrupadas pela conta dona da linha
+    private static String monthSql(String transactionsTable, String pixTable) {
+        return "SELECT * FROM ("
+                + "SELECT t.account_id AS owner_id, 'T' AS src, t.id, t.transaction_id, t.type,"
+                + "  CASE WHEN t.type = 'WITHDRAW' THEN 'OUT' ELSE 'IN' END AS direction,"
+                + "  t.amount, t.description, CAST(NULL AS VARCHAR(100)) AS pix_key, t.created_at,"
+                + "  a.user_name AS from_user_name, a.user_name AS to_user_name"
+                + " FROM " + transactionsTable + " t JOIN accounts a ON a.id = t.account_id"
+                + " UNION ALL"
+                + " SELECT p.from_account_id, 'P', p.id, p.transaction_id, 'PIX', 'OUT', p.amount, p.description,"
+                + "  p.pix_key, p.created_at, fa.user_name, ta.user_name"
+                + " FROM " + pixTable + " p JOIN accounts fa ON fa.id = p.from_account_id"
+                + "  JOIN accounts ta ON ta.id = p.to_account_id"
+                + " UNION ALL"
+                + " SELECT p.to_account_id, 'P', p.id, p.transaction_id, 'PIX', 'IN', p.amount, p.description,"
+                + "  p.pix_key, p.created_at, fa.user_name, ta.user_name"
+                + " FROM " + pixTable + " p JOIN accounts fa ON fa.id = p.from_account_id"
+                + "  JOIN accounts ta ON ta.id = p.to_account_id"
+                + " WHERE p.to_account_id <> p.from_account_id"
+                + ") s ORDER BY s.owner_id, s.created_at DESC, s.src DESC, s.id DESC";
+    }
+
+    /** Uma linha do extrato arquivado e sua posição para o cursor. */
+    public static final class Entry {
+        private final StatementCursor position;
+        private final AccountTransactionDTO transaction;
+
+        Entry(StatementCursor position, AccountTransactionDTO transaction) {
+            this.position = position;
+            this.transaction = transaction;
+        }
+
+        public StatementCursor getPosition() {
+            return position;
+        }
+
+        public AccountTransactionDTO getTransaction() {
+            return transaction;
+        }
+    }
+}
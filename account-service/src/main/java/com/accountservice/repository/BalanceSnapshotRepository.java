@@ -0,0 +1,17 @@
+package com.accountservice.repository;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.model.BalanceSnapshot;
+
+@Repository
+public interface BalanceSnapshotRepository extends JpaRepository<BalanceSnapshot, Long> {
+
+    // Snapshot mais recente até a data (índice único account_id, snapshot_date)
+    Optional<BalanceSnapshot> findFirstByAccountIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(
+            Long accountId, LocalDate snapshotDate);
+}
@@ -0,0 +1,24 @@
+package com.accountservice.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.model.HistoryPartition;
+import com.accountservice.model.HistoryPartition.PartitionStatus;
+
+@Repository
+public interface HistoryPartitionRepository extends JpaRepository<HistoryPartition, Long> {
+
+    Optional<HistoryPartition> findByBaseTableAndMonth(String baseTable, LocalDate month);
+
+    List<HistoryPartition> findByBaseTableAndStatusAndMonthBetweenOrderByMonth(String baseTable, PartitionStatus status,
+                                                                              LocalDate from, LocalDate to);
+
+    List<HistoryPartition> findByStatusOrderByMonth(PartitionStatus status);
+
+    List<HistoryPartition> findByStatusAndMonthBefore(PartitionStatus status, LocalDate month);
+}
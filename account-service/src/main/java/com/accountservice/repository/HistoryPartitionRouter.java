@@ -0,0 +1,48 @@
+package com.accountservice.repository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.stereotype.Component;
+
+import com.accountservice.model.HistoryPartition;
+import com.accountservice.model.HistoryPartition.PartitionStatus;
+
+/**
+ * Decide quais tabelas uma consulta com período precisa ler: a tabela principal
+ * (meses ATTACHED, que o PostgreSQL ainda poda pelo created_at) e a tabela de
+ * cada mês DETACHED dentro do período. Meses fora do período nunca são lidos.
+ */
+@Component
+public class HistoryPartitionRouter {
+
+    private final HistoryPartitionRepository partitionRepository;
+
+    public HistoryPartitionRouter(HistoryPartitionRepository partitionRepository) {
+        this.partitionRepository = partitionRepository;
+    }
+
+    public static String partitionTable(String baseTable, YearMonth month) {
+        return String.format("%s_p%04d%02d", baseTable, month.getYear(), month.getMonthValue());
+    }
+
+    public List<String> tablesFor(String baseTable, LocalDateTime from, LocalDateTime to) {
+        YearMonth first = YearMonth.from(from);
+        YearMonth last = YearMonth.from(to);
+        List<HistoryPartition> detached = partitionRepository.findByBaseTableAndStatusAndMonthBetweenOrderByMonth(
+                baseTable, PartitionStatus.DETACHED, first.atDay(1), last.atDay(1));
+
+        List<String> tables = new ArrayList<>(detached.size() + 1);
+        // Período inteiro fora da tabela principal: não há o que ler nela
+        if (detached.size() < ChronoUnit.MONTHS.between(first, last) + 1) {
+            tables.add(baseTable);
+        }
+        for (HistoryPartition partition : detached) {
+            tables.add(partition.getPartitionTable());
+        }
+        return tables;
+    }
+}
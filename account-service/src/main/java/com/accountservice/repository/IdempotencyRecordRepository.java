@@ -0,0 +1,65 @@
+package com.accountservice.repository;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.model.IdempotencyRecord;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    // INSERT explícito: save() faria merge e poderia sobrescrever a linha de outro nó
+    @Modifying
+    @Query(value = "INSERT INTO idempotency_records (record_key, status, created_at, expires_at, request_hash,"
+            + " lease_expires_at, owner_token)"
+            + " VALUES (:recordKey, 'IN_PROGRESS', :now, :expiresAt, :requestHash, :leaseExpiresAt, :ownerToken)",
+            nativeQuery = true)
+    int insertInProgress(@Param("recordKey") String recordKey,
+                         @Param("now") LocalDateTime now,
+                         @Param("expiresAt") LocalDateTime expiresAt,
+                         @Param("requestHash") String requestHash,
+                         @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                         @Param("ownerToken") String ownerToken);
+
+    // Assume uma chave cujo dono caiu sem mover dinheiro (ainda IN_PROGRESS): só um nó consegue
+    @Modifying
+    @Query(value = "UPDATE idempotency_records SET lease_expires_at = :leaseExpiresAt, owner_token = :ownerToken"
+            + " WHERE record_key = :recordKey AND status = 'IN_PROGRESS'"
+            + " AND (lease_expires_at < :now OR (lease_expires_at IS NULL AND created_at < :staleBefore))",
+            nativeQuery = true)
+    int takeOverExpiredLease(@Param("recordKey") String recordKey,
+                             @Param("now") LocalDateTime now,
+                             @Param("staleBefore") LocalDateTime staleBefore,
+                             @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt,
+                             @Param("ownerToken") String ownerToken);
+
+    // Na transação que move o dinheiro: 0 linhas = a chave foi assumida por outra execução
+    @Modifying
+    @Query(value = "UPDATE idempotency_records SET status = 'EXECUTED'"
+            + " WHERE record_key = :recordKey AND owner_token = :ownerToken AND status IN ('IN_PROGRESS', 'EXECUTED')",
+            nativeQuery = true)
+    int markExecuted(@Param("recordKey") String recordKey, @Param("ownerToken") String ownerToken);
+
+    // Falha: sem movimentação a chave é liberada; com movimentação, quem repetir recebe 409 já
+    @Modifying
+    @Query(value = "DELETE FROM idempotency_records"
+            + " WHERE record_key = :recordKey AND owner_token = :ownerToken AND status = 'IN_PROGRESS'",
+            nativeQuery = true)
+    int releaseUnexecuted(@Param("recordKey") String recordKey, @Param("ownerToken") String ownerToken);
+
+    @Modifying
+    @Query(value = "UPDATE idempotency_records SET lease_expires_at = :now"
+            + " WHERE record_key = :recordKey AND owner_token = :ownerToken AND status = 'EXECUTED'",
+            nativeQuery = true)
+    int endLease(@Param("recordKey") String recordKey, @Param("ownerToken") String ownerToken,
+                 @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,32 @@
+package com.accountservice.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.model.LedgerEntry;
+
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    List<LedgerEntry> findByMovementId(String movementId);
+
+    // Saldo corrente = balance_after do último lançamento da conta (índice account_id, id)
+    @Query(value = "SELECT balance_after FROM ledger_entries WHERE account_id = :accountId "
+            + "ORDER BY id DESC LIMIT 1", nativeQuery = true)
+    Optional<BigDecimal> findLatestBalance(@Param("accountId") Long accountId);
+
+    // Saldo em um instante = balance_after do último lançamento até ele, a partir de "since"
+    @Query(value = "SELECT balance_after FROM ledger_entries WHERE account_id = :accountId "
+            + "AND created_at >= :since AND created_at <= :at "
+            + "ORDER BY created_at DESC, id DESC LIMIT 1", nativeQuery = true)
+    Optional<BigDecimal> findBalanceAt(@Param("accountId") Long accountId,
+                                       @Param("since") LocalDateTime since,
+                                       @Param("at") LocalDateTime at);
+}
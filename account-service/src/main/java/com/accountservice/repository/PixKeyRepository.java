@@ -1,6 +1,7 @@
 package com.accountservice.repository;
 
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +18,8 @@ public interface PixKeyRepository extends JpaRepository<PixKey, Long> {
     List<PixKey> findByUserId(Long userId);
 
     Optional<PixKey> findByKeyValue(String keyValue);
+
+    List<PixKey> findByKeyValueIn(Collection<String> keyValues);
     
     Optional<PixKey> findByKeyValueAndKeyType(String keyValue, PixKey.PixKeyType keyType);
     
@@ -0,0 +1,15 @@
+package com.accountservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.accountservice.model.PixTransaction;
+
+/** Consultas por período, roteadas para as partições mensais que cobrem o intervalo. */
+public interface PixTransactionHistoryRepository {
+
+    List<PixTransaction> findTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate);
+
+    // Enviados e recebidos pela conta
+    List<PixTransaction> findByAccountIdInPeriod(Long accountId, LocalDateTime from, LocalDateTime to);
+}
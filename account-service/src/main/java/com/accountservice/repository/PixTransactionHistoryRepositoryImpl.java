@@ -0,0 +1,85 @@
+package com.accountservice.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.accountservice.model.PixKey.PixKeyType;
+import com.accountservice.model.PixTransaction;
+
+public class PixTransactionHistoryRepositoryImpl implements PixTransactionHistoryRepository {
+
+    static final String TABLE = "pix_transactions";
+
+    private static final String SELECT = "SELECT id, transaction_id, from_user_id, from_account_id, to_user_id,"
+            + " to_account_id, amount, key_type, pix_key, description, status, created_at, processed_at FROM ";
+
+    private static final RowMapper<PixTransaction> ROW_MAPPER = (rs, rowNum) -> {
+        Timestamp processedAt = rs.getTimestamp("processed_at");
+        return new PixTransaction(
+                rs.getLong("id"),
+                rs.getString("transaction_id"),
+                rs.getLong("from_user_id"),
+                rs.getLong("from_account_id"),
+                rs.getLong("to_user_id"),
+                rs.getLong("to_account_id"),
+                rs.getBigDecimal("amount"),
+                PixKeyType.valueOf(rs.getString("key_type")),
+                rs.getString("pix_key"),
+                rs.getString("description"),
+                PixTransaction.TransactionStatus.valueOf(rs.getString("status")),
+                rs.getTimestamp("created_at").toLocalDateTime(),
+                processedAt == null ? null : processedAt.toLocalDateTime());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryPartitionRouter router;
+
+    public PixTransactionHistoryRepositoryImpl(JdbcTemplate jdbcTemplate, HistoryPartitionRouter router) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.router = router;
+    }
+
+    @Override
+    public List<PixTransaction> findTransactionsByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (String table : router.tablesFor(TABLE, startDate, endDate)) {
+            union(sql).append(SELECT).append(table).append(" WHERE created_at BETWEEN ? AND ?");
+            args.add(Timestamp.valueOf(startDate));
+            args.add(Timestamp.valueOf(endDate));
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    @Override
+    public List<PixTransaction> findByAccountIdInPeriod(Long accountId, LocalDateTime from, LocalDateTime to) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (String table : router.tablesFor(TABLE, from, to)) {
+            // Dois ramos por tabela, um por índice; o segundo descarta o PIX para a própria conta
+            union(sql).append(SELECT).append(table)
+                    .append(" WHERE from_account_id = ? AND created_at BETWEEN ? AND ?");
+            union(sql).append(SELECT).append(table)
+                    .append(" WHERE to_account_id = ? AND from_account_id <> ? AND created_at BETWEEN ? AND ?");
+            args.add(accountId);
+            args.add(Timestamp.valueOf(from));
+            args.add(Timestamp.valueOf(to));
+            args.add(accountId);
+            args.add(accountId);
+            args.add(Timestamp.valueOf(from));
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    private static StringBuilder union(StringBuilder sql) {
+        return sql.length() > 0 ? sql.append(" UNION ALL ") : sql;
+    }
+}
@@ -1,6 +1,5 @@
 package com.accountservice.repository;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,19 +11,22 @@ import org.springframework.stereotype.Repository;
 import com.accountservice.model.PixTransaction;
 
 @Repository
-public interface PixTransactionRepository extends JpaRepository<PixTransaction, Long> {
+public interface PixTransactionRepository extends JpaRepository<PixTransaction, Long>,
+        PixTransactionHistoryRepository {
     
     Optional<PixTransaction> findByTransactionId(String transactionId);
 
-    List<PixTransaction> findByFromAccountIdOrToAccountId(Long fromAccountId, Long toAccountId);
+    // UNION em vez de OR: cada ramo usa o próprio índice (from/to_account_id, created_at)
+    @Query(value = "SELECT * FROM pix_transactions WHERE from_account_id = :fromAccountId"
+            + " UNION"
+            + " SELECT * FROM pix_transactions WHERE to_account_id = :toAccountId"
+            + " ORDER BY created_at DESC, id DESC", nativeQuery = true)
+    List<PixTransaction> findByFromAccountIdOrToAccountId(@Param("fromAccountId") Long fromAccountId,
+                                                          @Param("toAccountId") Long toAccountId);
     
     List<PixTransaction> findByFromUserId(Long fromUserId);
     
     List<PixTransaction> findByToUserId(Long toUserId);
     
     List<PixTransaction> findByStatus(PixTransaction.TransactionStatus status);
-    
-    @Query("SELECT pt FROM PixTransaction pt WHERE pt.createdAt BETWEEN :startDate AND :endDate")
-    List<PixTransaction> findTransactionsByDateRange(@Param("startDate") LocalDateTime startDate, 
-                                                   @Param("endDate") LocalDateTime endDate);
 }
@@ -0,0 +1,14 @@
+package com.accountservice.repository;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.accountservice.model.ReconciliationCheckpoint;
+
+@Repository
+public interface ReconciliationCheckpointRepository extends JpaRepository<ReconciliationCheckpoint, Long> {
+
+    List<ReconciliationCheckpoint> findByRunIdOrderByPartitionIndex(String runId);
+}
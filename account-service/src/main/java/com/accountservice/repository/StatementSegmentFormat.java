@@ -0,0 +1,76 @@
+package com.accountservice.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formato dos segmentos de extrato arquivado (um arquivo por mês, ou mais se o
+ * mês passar de bank.archive.max-segment-bytes):
+ *
+ * <pre>
+ * MAGIC VERSION | bloco 0 | bloco 1 | ... | índice | posição do índice (long) MAGIC
+ * </pre>
+ *
+ * As linhas ficam ordenadas por (conta, created_at DESC, origem DESC, id DESC),
+ * a mesma ordem do extrato, em blocos de até {@link #BLOCK_ROWS} linhas. Cada
+ * bloco é gravado coluna a coluna (números em varint com delta) e comprimido
+ * com Deflate. O índice é esparso: uma entrada por bloco, com a primeira e a
+ * última conta do bloco.
+ */
+final class StatementSegmentFormat {
+
+    static final int MAGIC = 0x424B5347;   // "BKSG"
+    static final int VERSION = 1;
+    static final int BLOCK_ROWS = 4096;
+    static final int HEADER_BYTES = 8;
+    static final int FOOTER_BYTES = 12;
+    // primeira conta, última conta, posição, tamanho comprimido, tamanho original, linhas
+    static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 4 + 4 + 4;
+
+    private StatementSegmentFormat() {
+    }
+
+    // Varint com zigzag: deltas negativos pequenos também ocupam poucos bytes
+    static void writeLong(ByteArrayOutputStream out, long value) {
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    static long readLong(ByteBuffer in) {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // Comprimento + 1 (0 = nulo) seguido dos bytes UTF-8
+    static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeLong(out, bytes.length + 1L);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    static String readString(ByteBuffer in) {
+        int length = (int) readLong(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,235 @@
+package com.accountservice.repository;
+
+import static com.accountservice.repository.StatementSegmentFormat.readLong;
+import static com.accountservice.repository.StatementSegmentFormat.readString;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.StatementCursor;
+import com.accountservice.repository.ArchivedStatementRepository.Entry;
+
+/**
+ * Leitura de um segmento mapeado em memória. Só o índice esparso fica no heap;
+ * os blocos são lidos do mapeamento (page cache do SO) e descomprimidos sob
+ * demanda, apenas os que podem conter a conta pedida.
+ */
+final class StatementSegmentReader {
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long[] firstAccount;
+    private final long[] lastAccount;
+    private final int[] offset;
+    private final int[] compressedLength;
+    private final int[] rawLength;
+    private final int[] rows;
+
+    private StatementSegmentReader(Path path, MappedByteBuffer buffer, int blocks) {
+        this.path = path;
+        this.buffer = buffer;
+        this.firstAccount = new long[blocks];
+        this.lastAccount = new long[blocks];
+        this.offset = new int[blocks];
+        this.compressedLength = new int[blocks];
+        this.rawLength = new int[blocks];
+        this.rows = new int[blocks];
+    }
+
+    static StatementSegmentReader open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE || size < StatementSegmentFormat.HEADER_BYTES + StatementSegmentFormat.FOOTER_BYTES) {
+                throw new IOException("Segmento com tamanho inválido: " + path);
+            }
+            // O mapeamento continua válido depois que o canal é fechado
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        int size = buffer.capacity();
+        if (buffer.getInt(0) != StatementSegmentFormat.MAGIC
+                || buffer.getInt(4) != StatementSegmentFormat.VERSION
+                || buffer.getInt(size - 4) != StatementSegmentFormat.MAGIC) {
+            throw new IOException("Segmento corrompido ou de outra versão: " + path);
+        }
+        int indexOffset = (int) buffer.getLong(size - StatementSegmentFormat.FOOTER_BYTES);
+        int blocks = buffer.getInt(indexOffset);
+
+        StatementSegmentReader reader = new StatementSegmentReader(path, buffer, blocks);
+        int position = indexOffset + 4;
+        for (int i = 0; i < blocks; i++, position += StatementSegmentFormat.INDEX_ENTRY_BYTES) {
+            reader.firstAccount[i] = buffer.getLong(position);
+            reader.lastAccount[i] = buffer.getLong(position + 8);
+            reader.offset[i] = (int) buffer.getLong(position + 16);
+            reader.compressedLength[i] = buffer.getInt(position + 24);
+            reader.rawLength[i] = buffer.getInt(position + 28);
+            reader.rows[i] = buffer.getInt(position + 32);
+        }
+        return reader;
+    }
+
+    boolean mayContain(long accountId) {
+        int blocks = firstAccount.length;
+        return blocks > 0 && firstAccount[0] <= accountId && accountId <= lastAccount[blocks - 1];
+    }
+
+    /** Linhas da conta neste segmento, na ordem do extrato (mais recentes primeiro). */
+    List<Entry> rows(long accountId) {
+        List<Entry> result = new ArrayList<>();
+        for (int block = firstBlock(accountId); block < firstAccount.length && firstAccount[block] <= accountId; block++) {
+            decode(block, accountId, result);
+        }
+        return result;
+    }
+
+    // Primeiro bloco cuja última conta é >= accountId (busca binária no índice esparso)
+    private int firstBlock(long accountId) {
+        int low = 0;
+        int high = lastAccount.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (lastAccount[mid] < accountId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void decode(int block, long accountId, List<Entry> result) {
+        ByteBuffer in = ByteBuffer.wrap(inflate(block));
+        int n = rows[block];
+
+        // Só as linhas da conta são materializadas; as demais são puladas coluna a coluna
+        boolean[] match = new boolean[n];
+        int matches = 0;
+        long account = 0;
+        for (int i = 0; i < n; i++) {
+            account += readLong(in);
+            if (account == accountId) {
+                match[i] = true;
+                matches++;
+            }
+        }
+        if (matches == 0) {
+            return;
+        }
+
+        long[] seconds = new long[n];
+        long previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += readLong(in);
+            seconds[i] = previous;
+        }
+        int[] nanos = new int[n];
+        for (int i = 0; i < n; i++) {
+            nanos[i] = (int) readLong(in);
+        }
+        byte[] sources = new byte[n];
+        in.get(sources);
+        long[] ids = new long[n];
+        previous = 0;
+        for (int i = 0; i < n; i++) {
+            previous += readLong(in);
+            ids[i] = previous;
+        }
+        long[] amounts = new long[n];
+        for (int i = 0; i < n; i++) {
+            amounts[i] = readLong(in);
+        }
+
+        AccountTransactionDTO[] dtos = new AccountTransactionDTO[n];
+        for (int i = 0; i < n; i++) {
+            if (match[i]) {
+                AccountTransactionDTO dto = new AccountTransactionDTO();
+                dto.setCreatedAt(LocalDateTime.ofEpochSecond(seconds[i], nanos[i], ZoneOffset.UTC));
+                dto.setAmount(BigDecimal.valueOf(amounts[i], 2));
+                dtos[i] = dto;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setTransactionId(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setType(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setDirection(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setDescription(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setPixKey(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setFromUserName(value);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            String value = readString(in);
+            if (match[i]) {
+                dtos[i].setToUserName(value);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            if (match[i]) {
+                StatementCursor position = new StatementCursor(dtos[i].getCreatedAt(), (char) sources[i], ids[i]);
+                result.add(new Entry(position, dtos[i]));
+            }
+        }
+    }
+
+    private byte[] inflate(int block) {
+        byte[] raw = new byte[rawLength[block]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(buffer.slice(offset[block], compressedLength[block]));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("bloco truncado");
+                }
+                read += n;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Bloco " + block + " corrompido em " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
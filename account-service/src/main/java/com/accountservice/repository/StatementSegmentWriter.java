@@ -0,0 +1,189 @@
+package com.accountservice.repository;
+
+import static com.accountservice.repository.StatementSegmentFormat.BLOCK_ROWS;
+import static com.accountservice.repository.StatementSegmentFormat.INDEX_ENTRY_BYTES;
+import static com.accountservice.repository.StatementSegmentFormat.writeLong;
+import static com.accountservice.repository.StatementSegmentFormat.writeString;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+import com.accountservice.dto.AccountTransactionDTO;
+
+/**
+ * Grava um segmento a partir de linhas já na ordem do extrato. O arquivo é
+ * escrito como .tmp e só ganha o nome final em {@link #finish()}, depois do fsync.
+ */
+final class StatementSegmentWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private int blocks;
+    private long rowsWritten;
+    private boolean finished;
+
+    // Colunas do bloco corrente
+    private final long[] accountIds = new long[BLOCK_ROWS];
+    private final long[] seconds = new long[BLOCK_ROWS];
+    private final int[] nanos = new int[BLOCK_ROWS];
+    private final byte[] sources = new byte[BLOCK_ROWS];
+    private final long[] ids = new long[BLOCK_ROWS];
+    private final long[] amounts = new long[BLOCK_ROWS];
+    private final AccountTransactionDTO[] texts = new AccountTransactionDTO[BLOCK_ROWS];
+    private int rows;
+
+    StatementSegmentWriter(Path target) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(StatementSegmentFormat.HEADER_BYTES)
+                .putInt(StatementSegmentFormat.MAGIC).putInt(StatementSegmentFormat.VERSION);
+        write(header.flip());
+    }
+
+    void add(long accountId, char source, long id, AccountTransactionDTO row) throws IOException {
+        accountIds[rows] = accountId;
+        seconds[rows] = row.getCreatedAt().toEpochSecond(ZoneOffset.UTC);
+        nanos[rows] = row.getCreatedAt().getNano();
+        sources[rows] = (byte) source;
+        ids[rows] = id;
+        amounts[rows] = row.getAmount().setScale(2, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        texts[rows] = row;
+        rows++;
+        rowsWritten++;
+        if (rows == BLOCK_ROWS) {
+            flushBlock();
+        }
+    }
+
+    /** Bytes já gravados: usado para abrir um novo arquivo na troca de conta. */
+    long size() throws IOException {
+        return channel.position();
+    }
+
+    long rowsWritten() {
+        return rowsWritten;
+    }
+
+    void finish() throws IOException {
+        flushBlock();
+        long indexOffset = channel.position();
+        ByteBuffer count = ByteBuffer.allocate(4).putInt(blocks);
+        write(count.flip());
+        write(ByteBuffer.wrap(index.toByteArray()));
+        ByteBuffer footer = ByteBuffer.allocate(StatementSegmentFormat.FOOTER_BYTES)
+                .putLong(indexOffset).putInt(StatementSegmentFormat.MAGIC);
+        write(footer.flip());
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private void flushBlock() throws IOException {
+        if (rows == 0) {
+            return;
+        }
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(rows * 64);
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            writeLong(raw, accountIds[i] - previous);
+            previous = accountIds[i];
+        }
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            writeLong(raw, seconds[i] - previous);
+            previous = seconds[i];
+        }
+        for (int i = 0; i < rows; i++) {
+            writeLong(raw, nanos[i]);
+        }
+        raw.write(sources, 0, rows);
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            writeLong(raw, ids[i] - previous);
+            previous = ids[i];
+        }
+        for (int i = 0; i < rows; i++) {
+            writeLong(raw, amounts[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getTransactionId());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getType());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getDirection());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getDescription());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getPixKey());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getFromUserName());
+        }
+        for (int i = 0; i < rows; i++) {
+            writeString(raw, texts[i].getToUserName());
+        }
+
+        byte[] input = raw.toByteArray();
+        byte[] compressed = compress(input);
+        long offset = channel.position();
+        write(ByteBuffer.wrap(compressed));
+
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES)
+                .putLong(accountIds[0]).putLong(accountIds[rows - 1]).putLong(offset)
+                .putInt(compressed.length).putInt(input.length).putInt(rows);
+        index.write(entry.array(), 0, INDEX_ENTRY_BYTES);
+        blocks++;
+
+        Arrays.fill(texts, 0, rows, null);
+        rows = 0;
+    }
+
+    private byte[] compress(byte[] input) {
+        deflater.reset();
+        deflater.setInput(input);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 4 + 64);
+        byte[] buffer = new byte[64 * 1024];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(buffer);
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
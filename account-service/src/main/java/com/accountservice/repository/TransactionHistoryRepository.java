@@ -0,0 +1,12 @@
+package com.accountservice.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.accountservice.model.Transaction;
+
+/** Consultas por período, roteadas para as partições mensais que cobrem o intervalo. */
+public interface TransactionHistoryRepository {
+
+    List<Transaction> findByAccountIdInPeriod(Long accountId, LocalDateTime from, LocalDateTime to);
+}
@@ -0,0 +1,57 @@
+package com.accountservice.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import com.accountservice.model.Transaction;
+import com.accountservice.model.TransactionType;
+
+public class TransactionHistoryRepositoryImpl implements TransactionHistoryRepository {
+
+    static final String TABLE = "transactions";
+
+    private static final String SELECT = "SELECT id, transaction_id, account_id, type, amount, previous_balance,"
+            + " new_balance, description, status, created_at FROM ";
+
+    private static final RowMapper<Transaction> ROW_MAPPER = (rs, rowNum) -> new Transaction(
+            rs.getLong("id"),
+            rs.getString("transaction_id"),
+            rs.getLong("account_id"),
+            TransactionType.valueOf(rs.getString("type")),
+            rs.getBigDecimal("amount"),
+            rs.getBigDecimal("previous_balance"),
+            rs.getBigDecimal("new_balance"),
+            rs.getString("description"),
+            Transaction.TransactionStatus.valueOf(rs.getString("status")),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HistoryPartitionRouter router;
+
+    public TransactionHistoryRepositoryImpl(JdbcTemplate jdbcTemplate, HistoryPartitionRouter router) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.router = router;
+    }
+
+    @Override
+    public List<Transaction> findByAccountIdInPeriod(Long accountId, LocalDateTime from, LocalDateTime to) {
+        StringBuilder sql = new StringBuilder();
+        List<Object> args = new ArrayList<>();
+        for (String table : router.tablesFor(TABLE, from, to)) {
+            if (sql.length() > 0) {
+                sql.append(" UNION ALL ");
+            }
+            sql.append(SELECT).append(table).append(" WHERE account_id = ? AND created_at BETWEEN ? AND ?");
+            args.add(accountId);
+            args.add(Timestamp.valueOf(from));
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC");
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+}
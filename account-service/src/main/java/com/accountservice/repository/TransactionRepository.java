@@ -1,8 +1,10 @@
 package com.accountservice.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -11,7 +13,7 @@ import org.springframework.stereotype.Repository;
 import com.accountservice.model.Transaction;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, TransactionHistoryRepository {
     
     Optional<Transaction> findByTransactionId(String transactionId);
     
@@ -19,4 +21,16 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     
     @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId ORDER BY t.createdAt DESC")
     List<Transaction> findRecentTransactionsByAccountId(@Param("accountId") Long accountId);
+
+    // Paginação por keyset em (createdAt, id): o Pageable só carrega o tamanho da página
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findFirstPageByAccountId(@Param("accountId") Long accountId, Pageable page);
+
+    @Query("SELECT t FROM Transaction t WHERE t.accountId = :accountId"
+            + " AND (t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id))"
+            + " ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByAccountIdAfter(@Param("accountId") Long accountId,
+                                               @Param("createdAt") LocalDateTime createdAt,
+                                               @Param("id") Long id,
+                                               Pageable page);
 }
\ No newline at end of file
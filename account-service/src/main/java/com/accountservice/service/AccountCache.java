@@ -0,0 +1,200 @@
+package com.accountservice.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.accountservice.dto.CachedAccount;
+import com.accountservice.model.Account;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Cache local das contas lidas por número (saldo e detalhes), LRU por segmento
+ * com TTL. Guarda cópias imutáveis ({@link CachedAccount}), nunca a entidade.
+ *
+ * Toda alteração de saldo passa por {@link #beginWrite(Long)}: enquanto a
+ * transação estiver aberta a conta não é servida do cache, e no fim dela a
+ * entrada é removida. Cada remoção avança a época do segmento; uma leitura do
+ * banco que começou antes só entra no cache se a época não mudou. Assim este nó
+ * nunca devolve um saldo anterior ao último commit feito nele. Escritas de
+ * outros nós só aparecem depois do TTL.
+ *
+ * O índice id -> número tem exatamente as contas em cache: entra junto com a
+ * entrada e sai com ela (invalidação, TTL ou LRU).
+ */
+@Component
+public class AccountCache {
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+
+    // id -> número das contas em cache, para invalidar a partir dos caminhos de escrita (que só conhecem o id)
+    private final Map<Long, String> numbersById = new ConcurrentHashMap<>();
+    // Contas com transação de escrita em andamento: lidas sempre do banco
+    private final Map<Long, Integer> writing = new ConcurrentHashMap<>();
+    // Avança quando uma conta fora do índice é alterada: descarta leituras em curso de qualquer conta
+    private final AtomicLong globalEpoch = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public AccountCache(MeterRegistry meterRegistry,
+                        @Value("${bank.account-cache.max-size:100000}") int maxSize,
+                        @Value("${bank.account-cache.ttl-seconds:60}") long ttlSeconds,
+                        @Value("${bank.account-cache.segments:16}") int segmentCount) {
+        this.segments = new Segment[segmentCount];
+        int perSegment = Math.max(1, maxSize / segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(perSegment);
+        }
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+
+        this.hits = Counter.builder("bank.account.cache").tag("result", "hit")
+                .description("Leituras de conta servidas pelo cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bank.account.cache").tag("result", "miss")
+                .description("Leituras de conta que foram ao banco")
+                .register(meterRegistry);
+        Gauge.builder("bank.account.cache.size", this, AccountCache::size)
+                .description("Contas em cache")
+                .register(meterRegistry);
+    }
+
+    /** Conta pelo número, do cache ou de {@code loader}. */
+    public Optional<CachedAccount> get(String accountNumber, Function<String, Optional<Account>> loader) {
+        Segment segment = segmentFor(accountNumber);
+        long global;
+        long epoch;
+        synchronized (segment) {
+            Entry entry = segment.entries.get(accountNumber);
+            if (entry != null && System.nanoTime() - entry.loadedAt < ttlNanos
+                    && !writing.containsKey(entry.account.getId())) {
+                hits.increment();
+                return Optional.of(entry.account);
+            }
+            if (entry != null) {
+                segment.remove(accountNumber);
+            }
+            global = globalEpoch.get();
+            epoch = segment.epoch;
+        }
+
+        misses.increment();
+        Optional<CachedAccount> loaded = loader.apply(accountNumber).map(CachedAccount::of);
+        if (loaded.isEmpty()) {
+            return loaded;
+        }
+        CachedAccount account = loaded.get();
+        synchronized (segment) {
+            // Conta fora do índice alterada depois da leitura avança a época global: a leitura
+            // não entra. Se a invalidação vier depois, ela encontra o número no índice
+            if (segment.epoch == epoch && globalEpoch.get() == global && !writing.containsKey(account.getId())) {
+                numbersById.put(account.getId(), accountNumber);
+                segment.entries.put(accountNumber, new Entry(account, System.nanoTime()));
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * O saldo da conta vai mudar na transação corrente. Sem transação, só invalida.
+     */
+    public void beginWrite(Long accountId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(accountId);
+            return;
+        }
+        writing.merge(accountId, 1, Integer::sum);
+        invalidate(accountId);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(accountId);
+                writing.computeIfPresent(accountId, (id, count) -> count == 1 ? null : count - 1);
+            }
+        });
+    }
+
+    public void invalidate(Long accountId) {
+        String accountNumber = numbersById.get(accountId);
+        if (accountNumber == null) {
+            globalEpoch.incrementAndGet();
+            accountNumber = numbersById.get(accountId);
+            if (accountNumber == null) {
+                return;
+            }
+        }
+        Segment segment = segmentFor(accountNumber);
+        synchronized (segment) {
+            segment.epoch++;
+            segment.remove(accountNumber);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+
+    // Tamanho do índice id -> número (testes)
+    int indexedAccounts() {
+        return numbersById.size();
+    }
+
+    private Segment segmentFor(String accountNumber) {
+        return segments[Math.floorMod(accountNumber.hashCode(), segments.length)];
+    }
+
+    private final class Segment {
+        private final LinkedHashMap<String, Entry> entries;
+        private long epoch;
+
+        private Segment(int capacity) {
+            // accessOrder = true: a entrada menos usada recentemente sai primeiro
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    if (size() <= capacity) {
+                        return false;
+                    }
+                    numbersById.remove(eldest.getValue().account.getId(), eldest.getKey());
+                    return true;
+                }
+            };
+        }
+
+        private void remove(String accountNumber) {
+            Entry removed = entries.remove(accountNumber);
+            if (removed != null) {
+                numbersById.remove(removed.account.getId(), accountNumber);
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final CachedAccount account;
+        private final long loadedAt;
+
+        private Entry(CachedAccount account, long loadedAt) {
+            this.account = account;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
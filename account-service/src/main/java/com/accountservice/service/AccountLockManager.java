@@ -0,0 +1,107 @@
+package com.accountservice.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.accountservice.exception.AccountLockTimeoutException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Locks "listrados" por conta: cada conta cai sempre no mesmo stripe, então
+ * mutações na mesma conta são serializadas enquanto contas diferentes
+ * seguem em paralelo (salvo colisão de stripe).
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+    private final Timer lockWait;
+
+    public AccountLockManager(@Value("${bank.locks.stripes:1024}") int stripeCount,
+                              @Value("${bank.locks.timeout-ms:5000}") long timeoutMillis,
+                              MeterRegistry meterRegistry) {
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+        this.lockWait = Timer.builder("bank.account.lock.wait")
+                .description("Tempo de espera pelos locks de conta")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public <T> T withLock(Long accountId, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripeIndex(accountId)];
+        long start = System.nanoTime();
+        acquire(lock, accountId);
+        lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Trava várias contas de uma vez. Os stripes são adquiridos sempre em ordem
+     * crescente de índice (e cada um só uma vez), então duas operações A→B e B→A
+     * nunca esperam uma pela outra em ciclo.
+     */
+    public <T> T withLocks(Collection<Long> accountIds, Supplier<T> action) {
+        TreeSet<Integer> ordered = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            ordered.add(stripeIndex(accountId));
+        }
+
+        List<ReentrantLock> held = new ArrayList<>(ordered.size());
+        long start = System.nanoTime();
+        try {
+            for (Integer index : ordered) {
+                ReentrantLock lock = stripes[index];
+                acquire(lock, accountIds);
+                held.add(lock);
+            }
+            lockWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return action.get();
+        } finally {
+            for (int i = held.size() - 1; i >= 0; i--) {
+                held.get(i).unlock();
+            }
+        }
+    }
+
+    int stripeIndex(Long accountId) {
+        // Espalha ids sequenciais (IDENTITY) pelos stripes
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void acquire(ReentrantLock lock, Object accounts) {
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new AccountLockTimeoutException("Conta " + accounts + " ocupada. Tente novamente.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountLockTimeoutException("Operação interrompida aguardando a conta " + accounts);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.accountservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Números de conta no formato 00000000-D: 8 dígitos sequenciais e um dígito
+ * verificador (Luhn).
+ *
+ * A instância reserva blocos de {@code block-size} números em
+ * account_number_sequences e entrega os números do bloco sem ir ao banco.
+ * A reserva roda em transação própria e é confirmada antes do primeiro uso:
+ * se a criação da conta falhar, o número se perde, mas nunca é entregue duas
+ * vezes. Números de um bloco não usado até o desligamento também se perdem.
+ * Os números antigos (5 dígitos) têm outro tamanho e não colidem com estes.
+ */
+@Component
+public class AccountNumberAllocator {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountNumberAllocator.class);
+
+    static final String SEQUENCE_NAME = "account_number";
+    static final long MAX_NUMBER = 99_999_999L;
+
+    private static final String SEED_SQL = "INSERT INTO account_number_sequences (name, next_value) VALUES (?, ?)";
+    private static final String RESERVE_SQL =
+            "UPDATE account_number_sequences SET next_value = next_value + ? WHERE name = ?";
+    private static final String NEXT_VALUE_SQL = "SELECT next_value FROM account_number_sequences WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate reserveTransaction;
+    private final int blockSize;
+    private final long firstNumber;
+
+    // [next, limit): números do bloco corrente ainda não entregues
+    private long next;
+    private long limit;
+
+    public AccountNumberAllocator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.account-number.block-size:1000}") int blockSize,
+                                  @Value("${bank.account-number.first:1}") long firstNumber) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+        this.firstNumber = firstNumber;
+    }
+
+    public synchronized String nextAccountNumber() {
+        if (next >= limit) {
+            reserveBlock();
+        }
+        return format(next++);
+    }
+
+    private void reserveBlock() {
+        Long end = reserveTransaction.execute(status -> {
+            if (jdbcTemplate.update(RESERVE_SQL, blockSize, SEQUENCE_NAME) == 0) {
+                seed();
+                jdbcTemplate.update(RESERVE_SQL, blockSize, SEQUENCE_NAME);
+            }
+            // Mesma transação do UPDATE: a linha continua travada, ninguém avançou depois
+            return jdbcTemplate.queryForObject(NEXT_VALUE_SQL, Long.class, SEQUENCE_NAME);
+        });
+        long start = end - blockSize;
+        if (start > MAX_NUMBER) {
+            throw new IllegalStateException("Faixa de números de conta esgotada");
+        }
+        this.next = start;
+        this.limit = Math.min(end, MAX_NUMBER + 1);
+        log.info("Bloco de números de conta reservado: {} a {}", start, limit - 1);
+    }
+
+    private void seed() {
+        try {
+            // Transação separada: a falha por chave duplicada não pode marcar a de reserva como rollback
+            new TransactionTemplate(reserveTransaction.getTransactionManager(), reserveTransaction)
+                    .executeWithoutResult(status -> jdbcTemplate.update(SEED_SQL, SEQUENCE_NAME, firstNumber));
+        } catch (DuplicateKeyException e) {
+            // outra instância criou a sequência ao mesmo tempo
+        }
+    }
+
+    static String format(long number) {
+        String digits = String.format("%08d", number);
+        return digits + "-" + checkDigit(digits);
+    }
+
+    /** Dígito verificador de Luhn (mod 10) para uma sequência de dígitos. */
+    static int checkDigit(String digits) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    /** Confere o dígito verificador de um número no formato 00000000-D. */
+    static boolean isValid(String accountNumber) {
+        int dash = accountNumber.indexOf('-');
+        if (dash <= 0 || dash != accountNumber.length() - 2) {
+            return false;
+        }
+        String digits = accountNumber.substring(0, dash);
+        char check = accountNumber.charAt(dash + 1);
+        return digits.chars().allMatch(Character::isDigit) && Character.isDigit(check)
+                && checkDigit(digits) == check - '0';
+    }
+}
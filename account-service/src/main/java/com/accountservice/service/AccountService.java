@@ -2,15 +2,18 @@ package com.accountservice.service;
 
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.accountservice.dto.CachedAccount;
+import com.accountservice.exception.AccountNotFoundException;
+import com.accountservice.exception.InsufficientBalanceException;
 import com.accountservice.model.Account;
 import com.accountservice.repository.AccountRepository;
 
@@ -19,9 +22,19 @@ public class AccountService {
     
     private static final Logger log = LoggerFactory.getLogger(AccountService.class);
     private final AccountRepository accountRepository;
+    private final AccountCache accountCache;
+    private final AccountNumberAllocator accountNumberAllocator;
+    private final PrimaryAccountIndex primaryAccountIndex;
+    private final LedgerService ledgerService;
     
-    public AccountService(AccountRepository accountRepository) {
+    public AccountService(AccountRepository accountRepository, AccountCache accountCache,
+                          AccountNumberAllocator accountNumberAllocator, PrimaryAccountIndex primaryAccountIndex,
+                          LedgerService ledgerService) {
         this.accountRepository = accountRepository;
+        this.accountCache = accountCache;
+        this.accountNumberAllocator = accountNumberAllocator;
+        this.primaryAccountIndex = primaryAccountIndex;
+        this.ledgerService = ledgerService;
     }
     
     @Transactional
@@ -31,18 +44,27 @@ public class AccountService {
         System.out.println("Criando conta para usuário: " + userName + " (" + userEmail + ")");
         
         // Verifica se já existe conta para o usuário
-        if (accountRepository.existsByUserId(userId)) {
+        boolean firstAccount = !accountRepository.existsByUserId(userId);
+        if (!firstAccount) {
             System.out.println("Usuário ID: " + userId + " já possui conta. Criando conta adicional.");
         }
         
-        // Gera número da conta único
-        String accountNumber = generateAccountNumber();
+        // Gera número da conta único (bloco reservado em memória, sem consulta por conta)
+        String accountNumber = accountNumberAllocator.nextAccountNumber();
         
         // ✅ USA O CONSTRUTOR CORRETO (sem agencyNumber como parâmetro)
         Account account = new Account(userId, userName, userCpf, userEmail, userPhone, 
                                     accountNumber, type);
         
         Account savedAccount = accountRepository.save(account);
+        // Abre a conta no razão com o saldo inicial (zero)
+        ledgerService.open(savedAccount.getId(), savedAccount.getBalance(), savedAccount.getCreatedAt());
+        if (firstAccount) {
+            primaryAccountIndex.registerAfterCommit(userId, savedAccount.getId());
+        } else {
+            primaryAccountIndex.onAccountSaved(userId, savedAccount.getId(),
+                savedAccount.getStatus() == Account.AccountStatus.ACTIVE);
+        }
         
         System.out.println("✅ CONTA BANCÁRIA CRIADA");
         System.out.println("   🏦 Agência: " + savedAccount.getAgencyNumber()); // Já vem com "00001"
@@ -75,6 +97,7 @@ public class AccountService {
             return account;
         }
 
+        accountCache.beginWrite(account.getId());
         Account updatedAccount = accountRepository.save(account);
         log.info("Conta do usuário {} atualizada com sucesso", userId);
         log.info("   📧 Email: {}", updatedAccount.getUserEmail());
@@ -88,52 +111,71 @@ public class AccountService {
         return accountRepository.findByAccountNumber(accountNumber);
     }
     
+    /** Conta pelo número via {@link AccountCache} (cópia imutável), para as leituras de saldo e detalhes. */
+    public Optional<CachedAccount> getCachedAccount(String accountNumber) {
+        return accountCache.get(accountNumber, accountRepository::findByAccountNumber);
+    }
+    
     public Optional<Account> getAccountById(Long accountId) {
         return accountRepository.findById(accountId);
     }
+
+    public Optional<Long> getAccountIdByNumber(String accountNumber) {
+        return accountRepository.findIdByAccountNumber(accountNumber);
+    }
     
+    /**
+     * Credita o valor com um UPDATE atômico e retorna o novo saldo.
+     * O SELECT seguinte roda na mesma transação, com a linha já travada pelo UPDATE.
+     */
     @Transactional
-    public Account deposit(String accountNumber, BigDecimal amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-            .orElseThrow(() -> new RuntimeException("Conta não encontrada: " + accountNumber));
-        
-        account.deposit(amount);
-        return accountRepository.save(account);
+    public BigDecimal credit(Long accountId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Valor do depósito deve ser positivo");
+        }
+        accountCache.beginWrite(accountId);
+        if (accountRepository.creditBalance(accountId, amount, LocalDateTime.now()) == 0) {
+            throw new AccountNotFoundException("Conta não encontrada: " + accountId);
+        }
+        return currentBalance(accountId);
     }
-    
+
+    /**
+     * Debita o valor somente se houver saldo (balance >= amount) e retorna o novo saldo.
+     */
     @Transactional
-    public Account withdraw(String accountNumber, BigDecimal amount) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
-            .orElseThrow(() -> new RuntimeException("Conta não encontrada: " + accountNumber));
-        
-        account.withdraw(amount);
-        return accountRepository.save(account);
+    public BigDecimal debit(Long accountId, BigDecimal amount) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new IllegalArgumentException("Valor do saque deve ser positivo");
+        }
+        accountCache.beginWrite(accountId);
+        if (accountRepository.debitBalance(accountId, amount, LocalDateTime.now()) == 0) {
+            // Caminho de falha: só aqui vale a pena consultar o motivo
+            BigDecimal balance = currentBalance(accountId);
+            throw new InsufficientBalanceException(
+                "Saldo insuficiente. Saldo atual: R$ " + balance + ", Valor solicitado: R$ " + amount);
+        }
+        return currentBalance(accountId);
+    }
+
+    private BigDecimal currentBalance(Long accountId) {
+        return accountRepository.findBalanceById(accountId)
+            .orElseThrow(() -> new AccountNotFoundException("Conta não encontrada: " + accountId));
     }
     
     public BigDecimal getBalance(String accountNumber) {
-        Account account = accountRepository.findByAccountNumber(accountNumber)
+        CachedAccount account = getCachedAccount(accountNumber)
             .orElseThrow(() -> new RuntimeException("Conta não encontrada: " + accountNumber));
         
         return account.getBalance();
     }
     
-    private String generateAccountNumber() {
-        Random random = new Random();
-        String accountNumber;
-        
-        do {
-            // Gera número no formato: 00001-1 (5 dígitos + 1 dígito verificador)
-            int numero = 10000 + random.nextInt(90000);
-            int digito = random.nextInt(10);
-            accountNumber = String.format("%05d-%d", numero, digito);
-        } while (accountRepository.existsByAccountNumber(accountNumber));
-        
-        return accountNumber;
-    }
-
-
     public Account updateAccount(Account account) {
-        return accountRepository.save(account);
+        Account saved = accountRepository.save(account);
+        accountCache.invalidate(saved.getId());
+        primaryAccountIndex.onAccountSaved(saved.getUserId(), saved.getId(),
+            saved.getStatus() == Account.AccountStatus.ACTIVE);
+        return saved;
     }
 
     public Account getPrimaryAccount(Long userId) {
@@ -148,6 +190,38 @@ public class AccountService {
         return accountOpt.get();
     }
 
+    /** Conta principal ativa, pelo {@link PrimaryAccountIndex}: um SELECT por chave primária. */
+    public Account getActivePrimaryAccount(Long userId) {
+        return findActivePrimaryAccount(userId)
+            .orElseThrow(() -> new RuntimeException("Usuário não possui conta ativa"));
+    }
+
+    private Optional<Account> findActivePrimaryAccount(Long userId) {
+        Optional<Long> accountId = primaryAccountIndex.get(userId, this::loadPrimaryAccountId);
+        if (accountId.isEmpty()) {
+            // Sem conta ativa: o índice guarda a resposta até a próxima criação ou troca de status
+            return Optional.empty();
+        }
+        Optional<Account> account = accountId.flatMap(accountRepository::findById);
+        if (isActiveAccountOf(account, userId)) {
+            return account;
+        }
+        // Entrada velha (status alterado em outra instância): recalcula uma vez
+        primaryAccountIndex.invalidate(userId);
+        account = primaryAccountIndex.get(userId, this::loadPrimaryAccountId)
+            .flatMap(accountRepository::findById);
+        return isActiveAccountOf(account, userId) ? account : Optional.empty();
+    }
+
+    private Optional<Long> loadPrimaryAccountId(Long userId) {
+        return accountRepository.findActiveAccountIdsByUserId(userId).stream().findFirst();
+    }
+
+    private static boolean isActiveAccountOf(Optional<Account> account, Long userId) {
+        return account.isPresent() && userId.equals(account.get().getUserId())
+            && account.get().getStatus() == Account.AccountStatus.ACTIVE;
+    }
+
     /**
      * Retorna todas as contas do usuário (opcional)
      */
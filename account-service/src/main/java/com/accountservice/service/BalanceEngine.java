@@ -0,0 +1,29 @@
+package com.accountservice.service;
+
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executa mutações de saldo com o lock da conta segurado durante toda a
+ * transação: o lock só é liberado depois do commit, então a próxima
+ * mutação na mesma conta sempre lê o saldo já gravado.
+ */
+@Service
+public class BalanceEngine {
+
+    private final AccountLockManager lockManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public BalanceEngine(AccountLockManager lockManager, PlatformTransactionManager transactionManager) {
+        this.lockManager = lockManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(Long accountId, Supplier<T> mutation) {
+        return lockManager.withLock(accountId,
+                () -> transactionTemplate.execute(status -> mutation.get()));
+    }
+}
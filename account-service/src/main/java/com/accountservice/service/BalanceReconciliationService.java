@@ -0,0 +1,383 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.dto.AccountDrift;
+import com.accountservice.dto.ReconciliationReport;
+import com.accountservice.exception.ReconciliationInProgressException;
+import com.accountservice.model.ReconciliationCheckpoint;
+import com.accountservice.model.ReconciliationCheckpoint.CheckpointStatus;
+import com.accountservice.repository.ReconciliationCheckpointRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Confere accounts.balance contra o razão (ledger_entries) e, se pedido, corrige.
+ *
+ * As contas são divididas em faixas de id processadas em paralelo num
+ * ForkJoinPool. Cada faixa lê o razão em streaming (fetch size fixo), soma em
+ * centavos por conta e compara com os saldos. Só entram lançamentos até a marca
+ * d'água do início da execução; uma divergência é confirmada (e corrigida) com
+ * a conta travada, somando o razão inteiro, para não acusar movimentações em
+ * andamento. Cada faixa concluída grava um checkpoint: a mesma execução pode ser
+ * retomada depois de uma falha.
+ */
+@Service
+public class BalanceReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceReconciliationService.class);
+
+    private static final int MAX_REPORTED_DRIFTS = 100;
+
+    private static final String LEDGER_SQL =
+            "SELECT account_id, entry_type, amount FROM ledger_entries"
+            + " WHERE account_id BETWEEN ? AND ? AND id <= ?";
+    private static final String BALANCES_SQL =
+            "SELECT id, balance FROM accounts WHERE id BETWEEN ? AND ?";
+    private static final String ACCOUNT_LEDGER_SUM_SQL =
+            "SELECT COALESCE(SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END), 0)"
+            + " FROM ledger_entries WHERE account_id = ?";
+    private static final String ACCOUNT_BALANCE_SQL = "SELECT balance FROM accounts WHERE id = ?";
+    private static final String REPAIR_SQL = "UPDATE accounts SET balance = ?, updated_at = ? WHERE id = ?";
+
+    private final ReconciliationCheckpointRepository checkpointRepository;
+    private final AccountLockManager lockManager;
+    private final AccountCache accountCache;
+    private final TransactionIdGenerator idGenerator;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final ExecutorService launcher;
+    private final int partitions;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, RunState> runs = new ConcurrentHashMap<>();
+    private final AtomicInteger partitionsCompleted = new AtomicInteger();
+    private final Counter rowsCounter;
+    private final Counter driftCounter;
+    private final Timer partitionTimer;
+
+    public BalanceReconciliationService(ReconciliationCheckpointRepository checkpointRepository,
+                                        AccountLockManager lockManager,
+                                        AccountCache accountCache,
+                                        TransactionIdGenerator idGenerator,
+                                        JdbcTemplate jdbcTemplate,
+                                        DataSource dataSource,
+                                        PlatformTransactionManager transactionManager,
+                                        MeterRegistry meterRegistry,
+                                        @Value("${bank.reconciliation.parallelism:4}") int parallelism,
+                                        @Value("${bank.reconciliation.partitions:64}") int partitions,
+                                        @Value("${bank.reconciliation.fetch-size:5000}") int fetchSize) {
+        this.checkpointRepository = checkpointRepository;
+        this.lockManager = lockManager;
+        this.accountCache = accountCache;
+        this.idGenerator = idGenerator;
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.launcher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "balance-reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.partitions = Math.max(1, partitions);
+
+        this.rowsCounter = Counter.builder("bank.reconciliation.rows")
+                .description("Lançamentos do razão lidos pela reconciliação")
+                .register(meterRegistry);
+        this.driftCounter = Counter.builder("bank.reconciliation.drifts")
+                .description("Contas com saldo divergente do razão")
+                .register(meterRegistry);
+        this.partitionTimer = Timer.builder("bank.reconciliation.partition")
+                .description("Tempo de processamento de uma faixa de contas")
+                .register(meterRegistry);
+        Gauge.builder("bank.reconciliation.partitions.completed", partitionsCompleted, AtomicInteger::get)
+                .description("Faixas concluídas na execução corrente")
+                .register(meterRegistry);
+    }
+
+    /** Dispara em segundo plano. {@code runId} existente retoma a execução do checkpoint. */
+    public ReconciliationReport start(String runId, boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ReconciliationInProgressException("Já existe uma reconciliação em andamento");
+        }
+        String id = runId == null || runId.isBlank() ? idGenerator.nextTransactionId("REC") : runId;
+        RunState state = new RunState(id, repair);
+        runs.put(id, state);
+        try {
+            launcher.execute(() -> {
+                try {
+                    execute(state);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+        return state.toReport();
+    }
+
+    /** Execução síncrona (linha de comando). */
+    public ReconciliationReport run(String runId, boolean repair) {
+        if (!running.compareAndSet(false, true)) {
+            throw new ReconciliationInProgressException("Já existe uma reconciliação em andamento");
+        }
+        String id = runId == null || runId.isBlank() ? idGenerator.nextTransactionId("REC") : runId;
+        RunState state = new RunState(id, repair);
+        runs.put(id, state);
+        try {
+            execute(state);
+        } finally {
+            running.set(false);
+        }
+        return state.toReport();
+    }
+
+    public Optional<ReconciliationReport> report(String runId) {
+        RunState state = runs.get(runId);
+        if (state != null) {
+            return Optional.of(state.toReport());
+        }
+        // Execução de outro processo / antes de um restart: só o que está nos checkpoints
+        List<ReconciliationCheckpoint> checkpoints = checkpointRepository.findByRunIdOrderByPartitionIndex(runId);
+        if (checkpoints.isEmpty()) {
+            return Optional.empty();
+        }
+        RunState restored = new RunState(runId, false);
+        restored.absorb(checkpoints);
+        restored.status = restored.partitionsCompleted.get() == checkpoints.size() ? "COMPLETED" : "INTERRUPTED";
+        return Optional.of(restored.toReport());
+    }
+
+    private void execute(RunState state) {
+        try {
+            List<ReconciliationCheckpoint> checkpoints = loadOrPlan(state.runId);
+            state.absorb(checkpoints);
+            partitionsCompleted.set(state.partitionsCompleted.get());
+
+            List<ForkJoinTask<?>> tasks = new ArrayList<>();
+            for (ReconciliationCheckpoint checkpoint : checkpoints) {
+                if (checkpoint.getStatus() != CheckpointStatus.COMPLETED) {
+                    tasks.add(ForkJoinTask.adapt(() -> partitionTimer.record(() -> reconcile(state, checkpoint))));
+                }
+            }
+            log.info("Reconciliação {}: {} faixas, {} pendentes, correção {}",
+                    state.runId, checkpoints.size(), tasks.size(), state.repair ? "ligada" : "desligada");
+
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).get();
+
+            state.status = "COMPLETED";
+            state.finishedAt = LocalDateTime.now();
+            log.info("✅ Reconciliação {} concluída: {} lançamentos, {} contas, {} divergências, {} corrigidas",
+                    state.runId, state.rowsScanned.get(), state.accountsChecked.get(),
+                    state.driftCount.get(), state.repairedCount.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state.fail(e);
+        } catch (ExecutionException | RuntimeException e) {
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            log.error("❌ Reconciliação {} falhou (retomável pelo mesmo runId): {}", state.runId, cause.getMessage());
+            state.fail(cause);
+        }
+    }
+
+    // Retoma os checkpoints da execução ou divide as contas em faixas novas
+    private List<ReconciliationCheckpoint> loadOrPlan(String runId) {
+        List<ReconciliationCheckpoint> existing = checkpointRepository.findByRunIdOrderByPartitionIndex(runId);
+        if (!existing.isEmpty()) {
+            return existing;
+        }
+
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM accounts", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM accounts", Long.class);
+        Long watermark = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM ledger_entries", Long.class);
+        if (minId == null) {
+            return List.of();
+        }
+
+        long span = maxId - minId + 1;
+        long size = Math.max(1, (span + partitions - 1) / partitions);
+        List<ReconciliationCheckpoint> planned = new ArrayList<>();
+        int index = 0;
+        for (long from = minId; from <= maxId; from += size) {
+            planned.add(new ReconciliationCheckpoint(runId, index++, from, Math.min(maxId, from + size - 1), watermark));
+        }
+        return transactionTemplate.execute(status -> checkpointRepository.saveAll(planned));
+    }
+
+    private void reconcile(RunState state, ReconciliationCheckpoint checkpoint) {
+        long from = checkpoint.getFromAccountId();
+        long to = checkpoint.getToAccountId();
+
+        // 1️⃣ Soma do razão por conta, em centavos, lendo em streaming
+        Map<Long, long[]> expected = new HashMap<>();
+        long[] rows = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(LEDGER_SQL, rs -> {
+            long cents = rs.getBigDecimal(3).movePointRight(2).longValueExact();
+            long signed = "CREDIT".equals(rs.getString(2)) ? cents : -cents;
+            expected.computeIfAbsent(rs.getLong(1), id -> new long[1])[0] += signed;
+            if (++rows[0] % 10_000 == 0) {
+                rowsCounter.increment(10_000);
+            }
+        }, from, to, checkpoint.getLedgerWatermark()));
+        rowsCounter.increment(rows[0] % 10_000);
+
+        // 2️⃣ Compara com os saldos atuais
+        List<Long> suspects = new ArrayList<>();
+        long[] accounts = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> streamingTemplate.query(BALANCES_SQL, rs -> {
+            accounts[0]++;
+            long balance = rs.getBigDecimal(2).movePointRight(2).longValueExact();
+            long[] sum = expected.get(rs.getLong(1));
+            if (balance != (sum == null ? 0 : sum[0])) {
+                suspects.add(rs.getLong(1));
+            }
+        }, from, to));
+
+        // 3️⃣ Confirma (e corrige) cada suspeita com a conta travada
+        int drifts = 0;
+        for (Long accountId : suspects) {
+            if (confirmDrift(state, accountId)) {
+                drifts++;
+            }
+        }
+
+        checkpoint.setStatus(CheckpointStatus.COMPLETED);
+        checkpoint.setRowsScanned(rows[0]);
+        checkpoint.setDriftCount(drifts);
+        checkpoint.setCompletedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.save(checkpoint));
+
+        state.rowsScanned.addAndGet(rows[0]);
+        state.accountsChecked.addAndGet(accounts[0]);
+        state.partitionsCompleted.incrementAndGet();
+        partitionsCompleted.incrementAndGet();
+    }
+
+    private boolean confirmDrift(RunState state, Long accountId) {
+        AccountDrift drift = lockManager.withLock(accountId, () -> transactionTemplate.execute(status -> {
+            BigDecimal balance = jdbcTemplate.queryForObject(ACCOUNT_BALANCE_SQL, BigDecimal.class, accountId);
+            BigDecimal ledger = jdbcTemplate.queryForObject(ACCOUNT_LEDGER_SUM_SQL, BigDecimal.class, accountId);
+            if (balance == null || ledger == null || balance.compareTo(ledger) == 0) {
+                return null;
+            }
+            if (state.repair) {
+                accountCache.beginWrite(accountId);
+                jdbcTemplate.update(REPAIR_SQL, ledger, Timestamp.valueOf(LocalDateTime.now()), accountId);
+            }
+            return new AccountDrift(accountId, balance, ledger, state.repair);
+        }));
+        if (drift == null) {
+            return false;
+        }
+
+        driftCounter.increment();
+        state.driftCount.incrementAndGet();
+        if (drift.isRepaired()) {
+            state.repairedCount.incrementAndGet();
+        }
+        state.addDrift(drift);
+        log.warn("Saldo divergente na conta {}: saldo R$ {}, razão R$ {}{}", accountId,
+                drift.getBalance(), drift.getExpected(), drift.isRepaired() ? " (corrigido)" : "");
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        launcher.shutdownNow();
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private static final class RunState {
+        private final String runId;
+        private final boolean repair;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private volatile LocalDateTime finishedAt;
+        private volatile String status = "RUNNING";
+        private volatile String error;
+        private volatile int partitions;
+        private final AtomicInteger partitionsCompleted = new AtomicInteger();
+        private final AtomicLong rowsScanned = new AtomicLong();
+        private final AtomicLong accountsChecked = new AtomicLong();
+        private final AtomicLong driftCount = new AtomicLong();
+        private final AtomicLong repairedCount = new AtomicLong();
+        private final List<AccountDrift> drifts = new ArrayList<>();
+
+        private RunState(String runId, boolean repair) {
+            this.runId = runId;
+            this.repair = repair;
+        }
+
+        // Conta o que já foi feito antes de um restart
+        private void absorb(List<ReconciliationCheckpoint> checkpoints) {
+            partitions = checkpoints.size();
+            for (ReconciliationCheckpoint checkpoint : checkpoints) {
+                if (checkpoint.getStatus() == CheckpointStatus.COMPLETED) {
+                    partitionsCompleted.incrementAndGet();
+                    rowsScanned.addAndGet(checkpoint.getRowsScanned());
+                    driftCount.addAndGet(checkpoint.getDriftCount());
+                }
+            }
+        }
+
+        private void fail(Throwable cause) {
+            error = cause.getMessage();
+            status = "FAILED";
+            finishedAt = LocalDateTime.now();
+        }
+
+        private synchronized void addDrift(AccountDrift drift) {
+            if (drifts.size() < MAX_REPORTED_DRIFTS) {
+                drifts.add(drift);
+            }
+        }
+
+        private synchronized ReconciliationReport toReport() {
+            LocalDateTime end = finishedAt == null && !"RUNNING".equals(status) ? LocalDateTime.now() : finishedAt;
+            return new ReconciliationReport(runId, status, repair, partitions, partitionsCompleted.get(),
+                    rowsScanned.get(), accountsChecked.get(), driftCount.get(), repairedCount.get(),
+                    new ArrayList<>(drifts), error, startedAt, end);
+        }
+    }
+}
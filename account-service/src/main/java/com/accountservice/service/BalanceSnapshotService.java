@@ -0,0 +1,173 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.dto.HistoricalBalanceResponse;
+import com.accountservice.model.Account;
+import com.accountservice.model.BalanceSnapshot;
+import com.accountservice.repository.BalanceSnapshotRepository;
+import com.accountservice.repository.LedgerEntryRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Snapshots de saldo de fim de dia e consulta de saldo em um instante qualquer.
+ *
+ * O job noturno grava, para cada conta com lançamentos no dia, o balance_after
+ * do último lançamento do dia: um INSERT ... SELECT por faixa de contas, com as
+ * faixas em paralelo. Contas sem movimento não geram linha. O saldo em um
+ * instante é o snapshot mais recente antes dele mais o último lançamento entre o
+ * snapshot e o instante, no índice (account_id, created_at).
+ */
+@Service
+public class BalanceSnapshotService {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotService.class);
+
+    private static final String DELETE_SQL =
+            "DELETE FROM balance_snapshots WHERE snapshot_date = ? AND account_id BETWEEN ? AND ?";
+    private static final String SNAPSHOT_SQL =
+            "INSERT INTO balance_snapshots (account_id, snapshot_date, balance, created_at)"
+            + " SELECT l.account_id, ?, l.balance_after, ? FROM ledger_entries l WHERE l.id IN ("
+            + " SELECT MAX(id) FROM ledger_entries"
+            + " WHERE account_id BETWEEN ? AND ? AND created_at >= ? AND created_at < ?"
+            + " GROUP BY account_id)"
+            + " AND l.balance_after IS NOT NULL";
+
+    private final BalanceSnapshotRepository snapshotRepository;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+    private final Counter rowsCounter;
+    private final Timer runTimer;
+
+    public BalanceSnapshotService(BalanceSnapshotRepository snapshotRepository,
+                                  LedgerEntryRepository ledgerEntryRepository,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${bank.snapshot.parallelism:4}") int parallelism,
+                                  @Value("${bank.snapshot.chunk-size:10000}") int chunkSize) {
+        this.snapshotRepository = snapshotRepository;
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.pool = new ForkJoinPool(Math.max(1, parallelism));
+        this.chunkSize = Math.max(1, chunkSize);
+        this.rowsCounter = Counter.builder("bank.snapshot.rows")
+                .description("Snapshots de saldo gravados")
+                .register(meterRegistry);
+        this.runTimer = Timer.builder("bank.snapshot.run")
+                .description("Tempo para gerar os snapshots de um dia")
+                .register(meterRegistry);
+    }
+
+    /** Saldo da conta no instante {@code at}. */
+    public HistoricalBalanceResponse balanceAt(Account account, LocalDateTime at) {
+        // Snapshot do dia D vale para 00:00 de D+1, então só serve até o dia anterior a "at"
+        Optional<BalanceSnapshot> snapshot = snapshotRepository
+                .findFirstByAccountIdAndSnapshotDateLessThanEqualOrderBySnapshotDateDesc(
+                        account.getId(), at.toLocalDate().minusDays(1));
+
+        LocalDateTime since = snapshot
+                .map(s -> s.getSnapshotDate().plusDays(1).atStartOfDay())
+                .orElse(account.getCreatedAt());
+        BigDecimal base = snapshot.map(BalanceSnapshot::getBalance).orElse(BigDecimal.ZERO);
+        BigDecimal balance = ledgerEntryRepository.findBalanceAt(account.getId(), since, at).orElse(base);
+
+        return new HistoricalBalanceResponse(account.getAccountNumber(), at, balance,
+                snapshot.map(BalanceSnapshot::getSnapshotDate).orElse(null));
+    }
+
+    @Scheduled(cron = "${bank.snapshot.cron:0 15 0 * * *}")
+    public void snapshotYesterday() {
+        snapshot(LocalDate.now().minusDays(1));
+    }
+
+    /**
+     * Gera (ou refaz) os snapshots de {@code date}. Idempotente: cada faixa apaga
+     * e regrava o dia na mesma transação. Devolve quantos snapshots foram gravados.
+     */
+    public synchronized long snapshot(LocalDate date) {
+        Long minId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM accounts", Long.class);
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM accounts", Long.class);
+        if (minId == null) {
+            return 0;
+        }
+
+        Timestamp dayStart = Timestamp.valueOf(date.atStartOfDay());
+        Timestamp dayEnd = Timestamp.valueOf(date.plusDays(1).atStartOfDay());
+        AtomicLong written = new AtomicLong();
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        for (long start = minId; start <= maxId; start += chunkSize) {
+            long from = start;
+            long to = Math.min(maxId, start + chunkSize - 1);
+            tasks.add(ForkJoinTask.adapt(() -> written.addAndGet(snapshotRange(date, from, to, dayStart, dayEnd))));
+        }
+
+        long started = System.nanoTime();
+        try {
+            pool.submit(() -> ForkJoinTask.invokeAll(tasks)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Snapshots de " + date + " interrompidos", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao gerar snapshots de " + date, e.getCause());
+        }
+        runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+
+        log.info("📸 Snapshots de {}: {} contas com movimento, {} faixas, {} ms",
+                date, written.get(), tasks.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+        return written.get();
+    }
+
+    private int snapshotRange(LocalDate date, long from, long to, Timestamp dayStart, Timestamp dayEnd) {
+        try {
+            Integer rows = transactionTemplate.execute(status -> {
+                jdbcTemplate.update(DELETE_SQL, Date.valueOf(date), from, to);
+                return jdbcTemplate.update(SNAPSHOT_SQL, Date.valueOf(date), Timestamp.valueOf(LocalDateTime.now()),
+                        from, to, dayStart, dayEnd);
+            });
+            rowsCounter.increment(rows);
+            return rows;
+        } catch (DataIntegrityViolationException e) {
+            // Outra instância gravou a mesma faixa ao mesmo tempo; o resultado é o mesmo
+            log.warn("Snapshots de {} para as contas {}-{} já gravados por outra instância", date, from, to);
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,160 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.DailyLimitExceededException;
+
+/**
+ * Gasto do dia por conta, para aplicar o Account.dailyLimit sem consultar o
+ * histórico a cada débito.
+ *
+ * Cada conta tem uma linha por dia em daily_spend (centavos). Reservar é um
+ * único UPDATE condicional (spent_cents + valor <= limite) na transação do
+ * débito: a linha travada serializa as reservas da conta entre todas as
+ * instâncias, e o rollback do débito desfaz a reserva. O limite vale para o
+ * cluster inteiro e sobrevive a reinícios.
+ *
+ * Na subida, depois do replay do journal de auditoria
+ * ({@link TransactionAuditWriter#start()}), contas com débitos hoje em
+ * transactions/pix_transactions e sem linha do dia ganham a linha (primeira
+ * subida com a tabela).
+ */
+@Component
+public class DailySpendTracker implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(DailySpendTracker.class);
+
+    private static final String RESERVE_SQL =
+            "UPDATE daily_spend SET spent_cents = spent_cents + ?"
+            + " WHERE account_id = ? AND spend_date = ? AND spent_cents + ? <= ?";
+    private static final String CREATE_SQL =
+            "INSERT INTO daily_spend (account_id, spend_date, spent_cents) VALUES (?, ?, 0)";
+    private static final String SPENT_SQL =
+            "SELECT spent_cents FROM daily_spend WHERE account_id = ? AND spend_date = ?";
+    private static final String PURGE_SQL = "DELETE FROM daily_spend WHERE spend_date < ?";
+    private static final String BACKFILL_SQL =
+            "INSERT INTO daily_spend (account_id, spend_date, spent_cents)"
+            + " SELECT d.account_id, ?, CAST(CEILING(SUM(d.amount) * 100) AS BIGINT) FROM ("
+            + "   SELECT account_id, amount FROM transactions"
+            + "   WHERE type = 'WITHDRAW' AND status = 'COMPLETED' AND created_at >= ?"
+            + "   UNION ALL"
+            + "   SELECT from_account_id, amount FROM pix_transactions"
+            + "   WHERE status = 'COMPLETED' AND created_at >= ?) d"
+            + " WHERE NOT EXISTS (SELECT 1 FROM daily_spend s WHERE s.account_id = d.account_id AND s.spend_date = ?)"
+            + " GROUP BY d.account_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionAuditWriter auditWriter;
+    // Criação da linha do dia fora da transação do débito: a corrida entre instâncias não a desfaz
+    private final TransactionTemplate ownTransaction;
+
+    public DailySpendTracker(JdbcTemplate jdbcTemplate, TransactionAuditWriter auditWriter,
+                             PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.auditWriter = auditWriter;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Reserva {@code amount} no limite diário da conta ou lança
+     * {@link DailyLimitExceededException}. Deve rodar na transação do débito:
+     * a reserva é desfeita se ela não for confirmada.
+     */
+    public void reserve(Long accountId, BigDecimal dailyLimit, BigDecimal amount) {
+        if (dailyLimit == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        long cents = toCents(amount);
+        long limitCents = toCents(dailyLimit);
+
+        if (tryReserve(accountId, today, cents, limitCents)) {
+            return;
+        }
+        List<Long> spent = jdbcTemplate.queryForList(SPENT_SQL, Long.class, accountId, Date.valueOf(today));
+        if (spent.isEmpty()) {
+            // Primeiro débito do dia: cria a linha zerada e reserva nela
+            createRow(accountId, today);
+            if (tryReserve(accountId, today, cents, limitCents)) {
+                return;
+            }
+            spent = jdbcTemplate.queryForList(SPENT_SQL, Long.class, accountId, Date.valueOf(today));
+        }
+        long used = spent.isEmpty() ? 0 : spent.get(0);
+        throw new DailyLimitExceededException("Limite diário excedido. Disponível: R$ "
+                + fromCents(Math.max(0, limitCents - used)) + ", Valor solicitado: R$ " + amount);
+    }
+
+    public BigDecimal spent(Long accountId) {
+        List<Long> spent = jdbcTemplate.queryForList(SPENT_SQL, Long.class, accountId, Date.valueOf(LocalDate.now()));
+        return fromCents(spent.isEmpty() ? 0 : spent.get(0));
+    }
+
+    public BigDecimal remaining(Long accountId, BigDecimal dailyLimit) {
+        BigDecimal remaining = dailyLimit.subtract(spent(accountId));
+        return remaining.signum() < 0 ? fromCents(0) : remaining;
+    }
+
+    private boolean tryReserve(Long accountId, LocalDate day, long cents, long limitCents) {
+        return jdbcTemplate.update(RESERVE_SQL, cents, accountId, Date.valueOf(day), cents, limitCents) == 1;
+    }
+
+    private void createRow(Long accountId, LocalDate day) {
+        try {
+            ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(CREATE_SQL, accountId, Date.valueOf(day)));
+        } catch (DuplicateKeyException e) {
+            // Criada ao mesmo tempo por outro débito (ou outra instância)
+        }
+    }
+
+    // Linhas do dia para quem já debitou hoje antes da tabela existir
+    @Override
+    public void afterSingletonsInstantiated() {
+        // Os saques que só estavam no journal entram em transactions antes da leitura
+        auditWriter.start();
+
+        LocalDate today = LocalDate.now();
+        Date day = Date.valueOf(today);
+        Timestamp since = Timestamp.valueOf(today.atStartOfDay());
+        try {
+            int rows = ownTransaction.execute(status -> jdbcTemplate.update(BACKFILL_SQL, day, since, since, day));
+            log.info("Limite diário: {} contas com débitos de hoje carregadas", rows);
+        } catch (DuplicateKeyException e) {
+            log.info("Limite diário: linhas do dia já criadas por outra instância");
+        }
+    }
+
+    // Dias anteriores não contam mais
+    @Scheduled(fixedDelay = 3_600_000L)
+    public void purgePastDays() {
+        int removed = jdbcTemplate.update(PURGE_SQL, Date.valueOf(LocalDate.now()));
+        if (removed > 0) {
+            log.info("Limite diário: {} linhas de dias anteriores removidas", removed);
+        }
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.CEILING).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,279 @@
+package com.accountservice.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.PartitionStateException;
+import com.accountservice.model.HistoryPartition;
+import com.accountservice.model.HistoryPartition.PartitionStatus;
+import com.accountservice.repository.HistoryPartitionRepository;
+import com.accountservice.repository.HistoryPartitionRouter;
+
+/**
+ * Ciclo de vida das partições mensais de transactions e pix_transactions.
+ *
+ * No PostgreSQL (tabelas criadas com db/postgresql/history-partitioning.sql) as
+ * partições são nativas: os meses seguintes são criados com antecedência e
+ * destacar/descartar um mês é DETACH PARTITION / DROP TABLE, só metadados.
+ *
+ * Em outros bancos (H2 nos testes) não há destaque só de metadados: destacar um
+ * mês o copia para uma tabela própria (transactions_pAAAAMM) e o apaga da
+ * principal, com as duas tabelas travadas durante a cópia. Por isso esse modo
+ * só roda com bank.history.copy-detach=true; sem ele, a manutenção não destaca
+ * nada e {@link #detach(YearMonth)} recusa. Depois de destacado, descartar o
+ * mês também é DROP TABLE.
+ */
+@Service
+public class HistoryPartitionManager implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryPartitionManager.class);
+
+    private static final String MONTH_RANGE = " WHERE created_at >= ? AND created_at < ?";
+
+    static final List<String> BASE_TABLES = List.of("transactions", "pix_transactions");
+
+    // Índices de cada mês destacado no modo sem partição nativa (os nativos herdam os do pai)
+    private static final Map<String, List<String>> DETACHED_INDEXES = Map.of(
+            "transactions", List.of("account_id, created_at"),
+            "pix_transactions", List.of("from_account_id, created_at", "to_account_id, created_at", "created_at"));
+
+    private final HistoryPartitionRepository partitionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final boolean copyDetach;
+    private volatile boolean nativePartitioning;
+
+    public HistoryPartitionManager(HistoryPartitionRepository partitionRepository,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${bank.history.months-ahead:2}") int monthsAhead,
+                                   @Value("${bank.history.retention-months:0}") int retentionMonths,
+                                   @Value("${bank.history.copy-detach:false}") boolean copyDetach) {
+        this.partitionRepository = partitionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.copyDetach = copyDetach;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        nativePartitioning = "PostgreSQL".equals(product) && BASE_TABLES.stream().allMatch(this::isPartitioned);
+        log.info("Histórico: {}", nativePartitioning
+                ? "partições nativas do PostgreSQL" : "tabela principal + uma tabela por mês destacado (" + product + ")");
+        ensureUpcoming();
+    }
+
+    public boolean isNativePartitioning() {
+        return nativePartitioning;
+    }
+
+    // Todo dia 1º: cria os próximos meses e destaca os que passaram da retenção
+    @Scheduled(cron = "${bank.history.maintenance-cron:0 30 0 1 * *}")
+    public void maintain() {
+        ensureUpcoming();
+        if (retentionMonths <= 0) {
+            return;
+        }
+        if (!nativePartitioning && !copyDetach) {
+            log.info("Histórico sem partição nativa e bank.history.copy-detach desligado: nenhum mês destacado");
+            return;
+        }
+        YearMonth cutoff = YearMonth.now().minusMonths(retentionMonths);
+        for (YearMonth month = oldestAttachedMonth(); month != null && month.isBefore(cutoff); month = month.plusMonths(1)) {
+            detach(month);
+        }
+    }
+
+    /** Tira o mês da tabela principal: deixa de pesar nas consultas sem período. */
+    public synchronized void detach(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new PartitionStateException("Só meses encerrados podem ser destacados: " + month);
+        }
+        if (!nativePartitioning && !copyDetach) {
+            throw new PartitionStateException("Sem partição nativa, destacar copia e apaga o mês da tabela principal;"
+                    + " habilite bank.history.copy-detach para isso");
+        }
+        for (String baseTable : BASE_TABLES) {
+            detach(baseTable, month);
+        }
+    }
+
+    /** Descarta um mês já destacado: DROP TABLE, sem DELETE em massa. */
+    public synchronized void drop(YearMonth month) {
+        for (String baseTable : BASE_TABLES) {
+            HistoryPartition partition = partitionRepository.findByBaseTableAndMonth(baseTable, month.atDay(1))
+                    .orElse(null);
+            if (partition == null) {
+                continue;
+            }
+            if (partition.getStatus() != PartitionStatus.DETACHED) {
+                throw new PartitionStateException("Destaque o mês " + month + " antes de descartá-lo");
+            }
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getPartitionTable());
+            transactionTemplate.executeWithoutResult(status -> partitionRepository.delete(partition));
+            log.info("🗑️ Partição {} descartada", partition.getPartitionTable());
+        }
+    }
+
+    public List<HistoryPartition> partitions() {
+        return partitionRepository.findAll();
+    }
+
+    /** Tabela própria do mês, enquanto ele estiver destacado. */
+    public Optional<String> detachedTable(String baseTable, YearMonth month) {
+        return partitionRepository.findByBaseTableAndMonth(baseTable, month.atDay(1))
+                .filter(partition -> partition.getStatus() == PartitionStatus.DETACHED)
+                .map(HistoryPartition::getPartitionTable);
+    }
+
+    /** O mês já está no arquivo frio: descarta as tabelas destacadas e o registra como ARCHIVED. */
+    public synchronized void markArchived(YearMonth month) {
+        for (String baseTable : BASE_TABLES) {
+            HistoryPartition partition = partitionRepository.findByBaseTableAndMonth(baseTable, month.atDay(1))
+                    .orElse(null);
+            if (partition == null || partition.getStatus() == PartitionStatus.ARCHIVED) {
+                continue;
+            }
+            if (partition.getStatus() != PartitionStatus.DETACHED) {
+                throw new PartitionStateException("Destaque o mês " + month + " antes de arquivá-lo");
+            }
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getPartitionTable());
+            partition.setStatus(PartitionStatus.ARCHIVED);
+            transactionTemplate.executeWithoutResult(status -> partitionRepository.save(partition));
+            log.info("🧊 Partição {} arquivada", partition.getPartitionTable());
+        }
+    }
+
+    public List<YearMonth> archivedMonths() {
+        return partitionRepository.findByStatusOrderByMonth(PartitionStatus.ARCHIVED).stream()
+                .map(partition -> YearMonth.from(partition.getMonth()))
+                .distinct()
+                .toList();
+    }
+
+    /** Mês mais antigo ainda no banco, na tabela principal ou destacado; nulo se não há histórico. */
+    public YearMonth oldestOnlineMonth() {
+        YearMonth oldest = oldestAttachedMonth();
+        List<HistoryPartition> detached = partitionRepository.findByStatusOrderByMonth(PartitionStatus.DETACHED);
+        if (!detached.isEmpty()) {
+            YearMonth month = YearMonth.from(detached.get(0).getMonth());
+            oldest = oldest == null || month.isBefore(oldest) ? month : oldest;
+        }
+        return oldest;
+    }
+
+    private void detach(String baseTable, YearMonth month) {
+        String table = HistoryPartitionRouter.partitionTable(baseTable, month);
+        HistoryPartition partition = partitionRepository.findByBaseTableAndMonth(baseTable, month.atDay(1))
+                .orElseGet(() -> new HistoryPartition(baseTable, month.atDay(1), table));
+        if (partition.getStatus() != PartitionStatus.ATTACHED) {
+            return;
+        }
+
+        if (nativePartitioning) {
+            if (!isPartitionOf(table, baseTable)) {
+                return;   // mês sem partição própria: nada a destacar
+            }
+            jdbcTemplate.execute("ALTER TABLE " + baseTable + " DETACH PARTITION " + table);
+            markDetached(partition);
+            log.info("📦 Partição {} destacada de {}", table, baseTable);
+            return;
+        }
+
+        // Sem partição nativa (bank.history.copy-detach): copia o mês para a própria tabela e o
+        // remove da principal na mesma transação
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        jdbcTemplate.execute("CREATE TABLE " + table + " AS SELECT * FROM " + baseTable + " WHERE 1 = 0");
+        List<String> indexes = DETACHED_INDEXES.get(baseTable);
+        for (int i = 0; i < indexes.size(); i++) {
+            jdbcTemplate.execute("CREATE INDEX idx_" + table + "_" + i + " ON " + table + " (" + indexes.get(i) + ")");
+        }
+        int moved = transactionTemplate.execute(status -> {
+            jdbcTemplate.update("INSERT INTO " + table + " SELECT * FROM " + baseTable + MONTH_RANGE, from, to);
+            int rows = jdbcTemplate.update("DELETE FROM " + baseTable + MONTH_RANGE, from, to);
+            markDetached(partition);
+            return rows;
+        });
+        log.info("📦 {} linhas de {} movidas para {}", moved, baseTable, table);
+    }
+
+    private void markDetached(HistoryPartition partition) {
+        partition.setStatus(PartitionStatus.DETACHED);
+        partition.setDetachedAt(LocalDateTime.now());
+        transactionTemplate.executeWithoutResult(status -> partitionRepository.save(partition));
+    }
+
+    // PostgreSQL: partições do mês corrente e dos próximos, criadas antes de receberem linhas
+    private void ensureUpcoming() {
+        if (!nativePartitioning) {
+            return;
+        }
+        YearMonth current = YearMonth.now();
+        for (String baseTable : BASE_TABLES) {
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = current.plusMonths(i);
+                String table = HistoryPartitionRouter.partitionTable(baseTable, month);
+                jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " PARTITION OF " + baseTable
+                        + " FOR VALUES FROM (" + literal(month.atDay(1).atStartOfDay())
+                        + ") TO (" + literal(month.plusMonths(1).atDay(1).atStartOfDay()) + ")");
+                if (partitionRepository.findByBaseTableAndMonth(baseTable, month.atDay(1)).isEmpty()) {
+                    transactionTemplate.executeWithoutResult(status ->
+                            partitionRepository.save(new HistoryPartition(baseTable, month.atDay(1), table)));
+                }
+            }
+        }
+    }
+
+    private YearMonth oldestAttachedMonth() {
+        YearMonth oldest = null;
+        for (String baseTable : BASE_TABLES) {
+            Timestamp min = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM " + baseTable, Timestamp.class);
+            if (min != null) {
+                YearMonth month = YearMonth.from(min.toLocalDateTime());
+                oldest = oldest == null || month.isBefore(oldest) ? month : oldest;
+            }
+        }
+        return oldest;
+    }
+
+    private boolean isPartitioned(String table) {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM pg_class WHERE relname = ? AND relkind = 'p'", Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean isPartitionOf(String table, String baseTable) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM pg_inherits i"
+                + " JOIN pg_class c ON c.oid = i.inhrelid JOIN pg_class p ON p.oid = i.inhparent"
+                + " WHERE c.relname = ? AND p.relname = ?", Integer.class, table, baseTable);
+        return count != null && count > 0;
+    }
+
+    // Limites de mês gerados aqui mesmo: DDL não aceita parâmetros
+    private static String literal(LocalDateTime value) {
+        return "TIMESTAMP '" + Timestamp.valueOf(value) + "'";
+    }
+}
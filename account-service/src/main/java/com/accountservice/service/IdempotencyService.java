@@ -0,0 +1,378 @@
+package com.accountservice.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.IdempotencyConflictException;
+import com.accountservice.exception.IdempotencyKeyReuseException;
+import com.accountservice.model.IdempotencyRecord;
+import com.accountservice.model.IdempotencyRecord.IdempotencyStatus;
+import com.accountservice.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Header Idempotency-Key para depósito, saque e PIX.
+ *
+ * Ordem de consulta: cache LRU em memória → requisição em andamento no mesmo nó
+ * (single-flight) → tabela idempotency_records. Antes de executar, o nó grava
+ * uma linha IN_PROGRESS; a chave primária impede que outro nó execute o mesmo
+ * pedido em paralelo.
+ *
+ * A chave fica presa ao pedido: a linha guarda o SHA-256 do escopo e do corpo,
+ * e a mesma chave com outro corpo recebe 422 em vez da resposta anterior. A
+ * linha IN_PROGRESS tem um lease (bank.idempotency.lease-seconds, maior que a
+ * operação mais longa); se o nó que a gravou cair, a repetição do cliente a
+ * assume depois do lease, sem esperar o TTL de 24h.
+ *
+ * Cada reivindicação tem um owner_token. A transação que move o dinheiro marca
+ * a linha como EXECUTED (ver {@link #markExecuted()}, chamado pelo
+ * LedgerService); se outra execução assumiu a chave nesse meio-tempo, o UPDATE
+ * não encontra a linha e a movimentação é desfeita. Só linhas IN_PROGRESS
+ * podem ser assumidas: uma linha EXECUTED sem resposta (o nó caiu entre o
+ * commit e a gravação da resposta) nunca é executada de novo; a repetição
+ * recebe 409 e o cliente confere o extrato.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final long POLL_INTERVAL_MS = 50;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration ttl;
+    private final Duration lease;
+    private final long waitTimeoutMillis;
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, CachedResponse> cache;
+    private final ThreadLocal<Claim> currentClaim = new ThreadLocal<>();
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              ObjectMapper objectMapper,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${bank.idempotency.ttl-hours:24}") long ttlHours,
+                              @Value("${bank.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${bank.idempotency.wait-timeout-ms:30000}") long waitTimeoutMillis,
+                              @Value("${bank.idempotency.lease-seconds:60}") long leaseSeconds) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ttl = Duration.ofHours(ttlHours);
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    /**
+     * Executa {@code action} uma única vez por (escopo, chave). Repetições com o
+     * mesmo {@code request} recebem a resposta gravada; com outro, 422.
+     * Duplicatas concorrentes esperam a execução em andamento. Sem chave,
+     * apenas executa.
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request, Class<T> responseType,
+                         Supplier<T> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        String recordKey = scope + ":" + idempotencyKey;
+        String requestHash = fingerprint(scope, request);
+
+        CachedResponse cached = getCached(recordKey);
+        if (cached != null) {
+            checkSameRequest(cached.requestHash, requestHash);
+            log.info("Idempotency-Key repetida (cache): {}", recordKey);
+            return read(cached.body, responseType);
+        }
+
+        InFlight mine = new InFlight(requestHash);
+        InFlight running = inFlight.putIfAbsent(recordKey, mine);
+        if (running != null) {
+            checkSameRequest(running.requestHash, requestHash);
+            log.info("Idempotency-Key em andamento, aguardando resultado: {}", recordKey);
+            return read(await(running.result, recordKey), responseType);
+        }
+
+        try {
+            String body = executeOnce(recordKey, requestHash, action);
+            mine.result.complete(body);
+            return read(body, responseType);
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(recordKey, mine);
+        }
+    }
+
+    private <T> String executeOnce(String recordKey, String requestHash, Supplier<T> action) {
+        Optional<IdempotencyRecord> existing = repository.findById(recordKey);
+        if (existing.isPresent() && !existing.get().getExpiresAt().isAfter(LocalDateTime.now())) {
+            repository.deleteById(recordKey);
+            existing = Optional.empty();
+        }
+
+        Claim claim = new Claim(recordKey, UUID.randomUUID().toString());
+        if (existing.isPresent()) {
+            IdempotencyRecord record = existing.get();
+            checkSameRequest(record.getRequestHash(), requestHash);
+            if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                putCached(recordKey, record.getResponseBody(), record.getRequestHash());
+                return record.getResponseBody();
+            }
+            if (record.getStatus() == IdempotencyStatus.EXECUTED || !takeOver(claim)) {
+                return pollCompleted(recordKey, requestHash);
+            }
+            log.warn("Idempotency-Key {} abandonada com lease vencido: execução assumida", recordKey);
+        } else if (!claim(claim, requestHash)) {
+            // Outro nó ganhou a corrida pela chave
+            return pollCompleted(recordKey, requestHash);
+        }
+
+        T response;
+        currentClaim.set(claim);
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(claim);
+            throw e;
+        } finally {
+            currentClaim.remove();
+        }
+
+        String body = write(response);
+        transactionTemplate.executeWithoutResult(status -> {
+            IdempotencyRecord record = repository.findById(recordKey)
+                    .orElseGet(() -> new IdempotencyRecord(recordKey, IdempotencyStatus.COMPLETED, expiry()));
+            record.setStatus(IdempotencyStatus.COMPLETED);
+            record.setResponseBody(body);
+            record.setRequestHash(requestHash);
+            record.setLeaseExpiresAt(null);
+            repository.save(record);
+        });
+        putCached(recordKey, body, requestHash);
+        return body;
+    }
+
+    /**
+     * Marca a chave da execução corrente como EXECUTED. Chamado dentro da
+     * transação que move o dinheiro, que assim confirma junto com a marca ou
+     * é desfeita (IdempotencyConflictException) se a chave mudou de dono.
+     * Fora de {@link #execute} (sem Idempotency-Key) não faz nada.
+     */
+    public void markExecuted() {
+        Claim claim = currentClaim.get();
+        if (claim != null && repository.markExecuted(claim.recordKey, claim.ownerToken) == 0) {
+            throw new IdempotencyConflictException("Idempotency-Key assumida por outra execução. Consulte o extrato.");
+        }
+    }
+
+    private boolean claim(Claim claim, String requestHash) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            transactionTemplate.executeWithoutResult(status -> repository.insertInProgress(claim.recordKey, now,
+                    now.plus(ttl), requestHash, now.plus(lease), claim.ownerToken));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private boolean takeOver(Claim claim) {
+        LocalDateTime now = LocalDateTime.now();
+        Integer updated = transactionTemplate.execute(status -> repository.takeOverExpiredLease(claim.recordKey,
+                now, now.minus(lease), now.plus(lease), claim.ownerToken));
+        return updated != null && updated == 1;
+    }
+
+    // Falhou sem mover dinheiro: libera a chave. Já executada: repetições recebem 409 sem esperar o lease
+    private void release(Claim claim) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (repository.releaseUnexecuted(claim.recordKey, claim.ownerToken) == 0) {
+                repository.endLease(claim.recordKey, claim.ownerToken, LocalDateTime.now());
+            }
+        });
+    }
+
+    private String pollCompleted(String recordKey, String requestHash) {
+        long deadline = System.currentTimeMillis() + waitTimeoutMillis;
+        while (System.currentTimeMillis() < deadline) {
+            Optional<IdempotencyRecord> record = repository.findById(recordKey);
+            if (record.isEmpty()) {
+                throw new IdempotencyConflictException("A requisição original falhou. Tente novamente.");
+            }
+            checkSameRequest(record.get().getRequestHash(), requestHash);
+            if (record.get().getStatus() == IdempotencyStatus.COMPLETED) {
+                putCached(recordKey, record.get().getResponseBody(), requestHash);
+                return record.get().getResponseBody();
+            }
+            LocalDateTime leaseExpiresAt = record.get().getLeaseExpiresAt();
+            boolean abandoned = leaseExpiresAt == null
+                    ? record.get().getCreatedAt().isBefore(LocalDateTime.now().minus(lease))
+                    : !leaseExpiresAt.isAfter(LocalDateTime.now());
+            if (abandoned && record.get().getStatus() == IdempotencyStatus.EXECUTED) {
+                // O dinheiro já se moveu e a resposta se perdeu: nunca executa de novo
+                throw new IdempotencyConflictException(
+                        "A requisição original foi executada, mas a resposta não foi gravada. Consulte o extrato.");
+            }
+            if (abandoned) {
+                // Dono caiu: a próxima tentativa do cliente assume a chave
+                throw new IdempotencyConflictException("A requisição original não terminou. Tente novamente.");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        throw new IdempotencyConflictException("Requisição com a mesma Idempotency-Key ainda em processamento");
+    }
+
+    private String await(CompletableFuture<String> running, String recordKey) {
+        try {
+            return running.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IdempotencyConflictException("A requisição original falhou. Tente novamente.");
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("Requisição com a mesma Idempotency-Key ainda em processamento");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyConflictException("Interrompido aguardando " + recordKey);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bank.idempotency.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        Integer removed = transactionTemplate.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        synchronized (cache) {
+            long now = System.currentTimeMillis();
+            cache.values().removeIf(entry -> entry.expiresAtMillis < now);
+        }
+        if (removed != null && removed > 0) {
+            log.info("Registros de idempotência expirados removidos: {}", removed);
+        }
+    }
+
+    private CachedResponse getCached(String recordKey) {
+        synchronized (cache) {
+            CachedResponse entry = cache.get(recordKey);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis < System.currentTimeMillis()) {
+                cache.remove(recordKey);
+                return null;
+            }
+            return entry;
+        }
+    }
+
+    private void putCached(String recordKey, String body, String requestHash) {
+        synchronized (cache) {
+            cache.put(recordKey, new CachedResponse(body, requestHash, System.currentTimeMillis() + ttl.toMillis()));
+        }
+    }
+
+    // Linhas gravadas antes do hash existir não têm com o que comparar
+    private static void checkSameRequest(String storedHash, String requestHash) {
+        if (storedHash != null && !storedHash.equals(requestHash)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key já usada com outra requisição");
+        }
+    }
+
+    private String fingerprint(String scope, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao calcular o hash da requisição idempotente", e);
+        }
+    }
+
+    private LocalDateTime expiry() {
+        return LocalDateTime.now().plus(ttl);
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao serializar resposta idempotente", e);
+        }
+    }
+
+    private <T> T read(String body, Class<T> responseType) {
+        try {
+            return objectMapper.readValue(body, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Falha ao ler resposta idempotente", e);
+        }
+    }
+
+    private static class CachedResponse {
+        private final String body;
+        private final String requestHash;
+        private final long expiresAtMillis;
+
+        private CachedResponse(String body, String requestHash, long expiresAtMillis) {
+            this.body = body;
+            this.requestHash = requestHash;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static class Claim {
+        private final String recordKey;
+        private final String ownerToken;
+
+        private Claim(String recordKey, String ownerToken) {
+            this.recordKey = recordKey;
+            this.ownerToken = ownerToken;
+        }
+    }
+
+    private static class InFlight {
+        private final String requestHash;
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        private InFlight(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
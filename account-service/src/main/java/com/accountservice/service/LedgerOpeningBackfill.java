@@ -0,0 +1,101 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Dá um lançamento de abertura às contas anteriores ao razão. Para elas a soma
+ * de ledger_entries é só o que se movimentou depois dele; a abertura guarda a
+ * diferença para o saldo (accounts.balance menos o razão), datada da criação da
+ * conta.
+ *
+ * Roda na subida e só encontra contas sem abertura: as criadas depois já abrem
+ * com zero em {@link AccountService}. Cada conta é tratada com a linha travada
+ * (FOR UPDATE, o mesmo lock do UPDATE de saldo), então saldo e razão são lidos
+ * no mesmo ponto; outra instância subindo junto encontra a abertura já gravada
+ * e passa adiante.
+ */
+@Component
+public class LedgerOpeningBackfill implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerOpeningBackfill.class);
+
+    private static final int CHUNK_SIZE = 1000;
+
+    // Pelo índice de movement_id: uma busca por conta
+    private static final String PENDING_SQL =
+            "SELECT a.id FROM accounts a WHERE a.id > ? AND NOT EXISTS ("
+            + "SELECT 1 FROM ledger_entries l WHERE l.movement_id = CONCAT('" + LedgerService.OPENING_MOVEMENT_PREFIX + "', a.id))"
+            + " ORDER BY a.id LIMIT " + CHUNK_SIZE;
+    private static final String LOCK_SQL = "SELECT balance, created_at FROM accounts WHERE id = ? FOR UPDATE";
+    private static final String OPENED_SQL = "SELECT COUNT(*) FROM ledger_entries WHERE movement_id = ?";
+    private static final String LEDGER_SUM_SQL =
+            "SELECT COALESCE(SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END), 0)"
+            + " FROM ledger_entries WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerService ledgerService;
+    private final TransactionTemplate transactionTemplate;
+
+    public LedgerOpeningBackfill(JdbcTemplate jdbcTemplate, LedgerService ledgerService,
+                                 PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerService = ledgerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        backfill();
+    }
+
+    /** Devolve quantas contas ganharam abertura. */
+    public int backfill() {
+        int opened = 0;
+        long after = 0;
+        while (true) {
+            List<Long> pending = jdbcTemplate.queryForList(PENDING_SQL, Long.class, after);
+            for (Long accountId : pending) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> open(accountId)))) {
+                    opened++;
+                }
+            }
+            if (pending.size() < CHUNK_SIZE) {
+                break;
+            }
+            after = pending.get(pending.size() - 1);
+        }
+        if (opened > 0) {
+            log.info("📒 Razão: {} contas anteriores a ele receberam lançamento de abertura", opened);
+        }
+        return opened;
+    }
+
+    private boolean open(Long accountId) {
+        List<Map<String, Object>> account = jdbcTemplate.queryForList(LOCK_SQL, accountId);
+        if (account.isEmpty()) {
+            return false;
+        }
+        Long existing = jdbcTemplate.queryForObject(OPENED_SQL, Long.class,
+                LedgerService.OPENING_MOVEMENT_PREFIX + accountId);
+        if (existing != null && existing > 0) {
+            return false;   // outra instância chegou antes
+        }
+        BigDecimal balance = (BigDecimal) account.get(0).get("balance");
+        LocalDateTime createdAt = ((Timestamp) account.get(0).get("created_at")).toLocalDateTime();
+        BigDecimal ledger = jdbcTemplate.queryForObject(LEDGER_SUM_SQL, BigDecimal.class, accountId);
+        ledgerService.open(accountId, balance.subtract(ledger), createdAt);
+        return true;
+    }
+}
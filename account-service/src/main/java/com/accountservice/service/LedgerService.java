@@ -0,0 +1,151 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.accountservice.event.MoneyMovementEvent;
+import com.accountservice.model.LedgerEntry;
+import com.accountservice.model.TransactionType;
+
+/**
+ * Caminho único de escrita do razão para depósito, saque e PIX.
+ *
+ * Cada movimentação vira um DEBIT e um CREDIT, inseridos em batch JDBC na mesma
+ * transação que altera accounts.balance; o balance_after de cada lançamento é o
+ * saldo devolvido pelo UPDATE atômico, então o razão e o saldo nunca divergem.
+ * Na mesma transação, cada conta envolvida (exceto a externa) ganha um evento
+ * no outbox.
+ *
+ * Toda conta tem um lançamento de abertura (OPENING_BALANCE, movement_id
+ * OPENING-{id}): zero para as criadas com o razão, o saldo herdado para as
+ * anteriores a ele ({@link LedgerOpeningBackfill}). Assim a soma do razão de
+ * qualquer conta é o seu saldo, que é o que a reconciliação e os snapshots assumem.
+ *
+ * O razão é a fonte da verdade; accounts.balance é o total corrente dele,
+ * mantido na mesma transação pelo UPDATE condicional (que é o que impede saldo
+ * negativo sem travar a conta por leitura). Divergências são corrigidas a
+ * partir do razão ({@link BalanceReconciliationService}) e saldos passados vêm
+ * de snapshot + razão ({@link BalanceSnapshotService}). O saldo corrente não é
+ * recalculado pela soma do razão a cada leitura.
+ */
+@Service
+public class LedgerService {
+
+    /** Contrapartida de depósitos e saques: o dinheiro vem de / vai para fora do banco. */
+    public static final long EXTERNAL_ACCOUNT_ID = 0L;
+
+    public static final String OPENING_MOVEMENT_PREFIX = "OPENING-";
+
+    private static final String INSERT_ENTRY =
+            "INSERT INTO ledger_entries (movement_id, movement_type, account_id, entry_type, amount, balance_after, created_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final IdempotencyService idempotencyService;
+
+    public LedgerService(JdbcTemplate jdbcTemplate, OutboxService outboxService, IdempotencyService idempotencyService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+        this.idempotencyService = idempotencyService;
+    }
+
+    public void deposit(String movementId, Long accountId, BigDecimal amount, BigDecimal balanceAfter) {
+        record(List.of(new Movement(movementId, TransactionType.DEPOSIT, amount,
+                EXTERNAL_ACCOUNT_ID, null, accountId, balanceAfter)));
+    }
+
+    public void withdraw(String movementId, Long accountId, BigDecimal amount, BigDecimal balanceAfter) {
+        record(List.of(new Movement(movementId, TransactionType.WITHDRAW, amount,
+                accountId, balanceAfter, EXTERNAL_ACCOUNT_ID, null)));
+    }
+
+    public void transfer(String movementId, TransactionType type, BigDecimal amount,
+                         Long fromAccountId, BigDecimal fromBalanceAfter,
+                         Long toAccountId, BigDecimal toBalanceAfter) {
+        record(List.of(new Movement(movementId, type, amount, fromAccountId, fromBalanceAfter,
+                toAccountId, toBalanceAfter)));
+    }
+
+    /**
+     * Abertura da conta no razão, datada de {@code at} (a criação da conta): o
+     * saldo que ela tem antes de qualquer outro lançamento. Não gera evento.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void open(Long accountId, BigDecimal openingBalance, LocalDateTime at) {
+        String movementId = OPENING_MOVEMENT_PREFIX + accountId;
+        boolean credit = openingBalance.signum() >= 0;
+        BigDecimal amount = openingBalance.abs();
+        Timestamp createdAt = Timestamp.valueOf(at);
+        String type = TransactionType.OPENING_BALANCE.name();
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, List.of(
+                new Object[] { movementId, type, EXTERNAL_ACCOUNT_ID,
+                        (credit ? LedgerEntry.EntryType.DEBIT : LedgerEntry.EntryType.CREDIT).name(), amount, null, createdAt },
+                new Object[] { movementId, type, accountId,
+                        (credit ? LedgerEntry.EntryType.CREDIT : LedgerEntry.EntryType.DEBIT).name(), amount, openingBalance, createdAt }));
+    }
+
+    /**
+     * Grava as movimentações (2 lançamentos cada) em um único batch e marca a
+     * Idempotency-Key corrente como executada. Exige transação aberta.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Movement> movements) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(movements.size() * 2);
+        for (Movement m : movements) {
+            rows.add(new Object[] { m.movementId, m.type.name(), m.debitAccountId,
+                    LedgerEntry.EntryType.DEBIT.name(), m.amount, m.debitBalanceAfter, now });
+            rows.add(new Object[] { m.movementId, m.type.name(), m.creditAccountId,
+                    LedgerEntry.EntryType.CREDIT.name(), m.amount, m.creditBalanceAfter, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows);
+
+        LocalDateTime at = now.toLocalDateTime();
+        List<MoneyMovementEvent> events = new ArrayList<>(movements.size() * 2);
+        for (Movement m : movements) {
+            if (m.debitAccountId != EXTERNAL_ACCOUNT_ID) {
+                events.add(new MoneyMovementEvent(MoneyMovementEvent.ACCOUNT_DEBITED, m.movementId, m.type.name(),
+                        m.debitAccountId, m.creditAccountId, m.amount, m.debitBalanceAfter, at));
+            }
+            if (m.creditAccountId != EXTERNAL_ACCOUNT_ID) {
+                events.add(new MoneyMovementEvent(MoneyMovementEvent.ACCOUNT_CREDITED, m.movementId, m.type.name(),
+                        m.creditAccountId, m.debitAccountId, m.amount, m.creditBalanceAfter, at));
+            }
+        }
+        outboxService.append(events);
+        // Idempotency-Key da requisição corrente: marcada executada no mesmo commit do dinheiro
+        idempotencyService.markExecuted();
+    }
+
+    /** Uma movimentação: sai de {@code debitAccountId}, entra em {@code creditAccountId}. */
+    public static final class Movement {
+        private final String movementId;
+        private final TransactionType type;
+        private final BigDecimal amount;
+        private final Long debitAccountId;
+        private final BigDecimal debitBalanceAfter;
+        private final Long creditAccountId;
+        private final BigDecimal creditBalanceAfter;
+
+        public Movement(String movementId, TransactionType type, BigDecimal amount,
+                        Long debitAccountId, BigDecimal debitBalanceAfter,
+                        Long creditAccountId, BigDecimal creditBalanceAfter) {
+            this.movementId = movementId;
+            this.type = type;
+            this.amount = amount;
+            this.debitAccountId = debitAccountId;
+            this.debitBalanceAfter = debitBalanceAfter;
+            this.creditAccountId = creditAccountId;
+            this.creditBalanceAfter = creditBalanceAfter;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.accountservice.service;
+
+import java.lang.management.ManagementFactory;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Publica no Kafka os eventos gravados em outbox_events.
+ *
+ * O outbox é dividido em bank.outbox.partitions partições (por conta). Cada
+ * instância renova periodicamente o lease das suas partições e fica com no
+ * máximo partições / relays vivos; as que sobram são liberadas e as órfãs (lease
+ * vencido) são tomadas por quem tiver espaço. Dentro de uma partição os eventos
+ * saem em ordem de id, em lotes: o lote inteiro é enviado, confirmado pelo
+ * broker e só então apagado. Falha no meio = o lote é reenviado (pelo menos uma
+ * vez; o consumidor descarta eventId repetidos).
+ *
+ * Os leases usam o relógio de cada instância: os relógios precisam estar
+ * sincronizados com folga bem menor que bank.outbox.relay.lease-ms.
+ */
+@Service
+public class OutboxRelay implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private static final String SEED_LEASE_SQL = "INSERT INTO outbox_leases (partition_id) VALUES (?)";
+    private static final String CLAIM_SQL =
+            "UPDATE outbox_leases SET owner = ?, lease_until = ?"
+            + " WHERE partition_id = ? AND (owner = ? OR owner IS NULL OR lease_until < ?)";
+    private static final String RELEASE_SQL =
+            "UPDATE outbox_leases SET owner = NULL, lease_until = NULL WHERE partition_id = ? AND owner = ?";
+    private static final String FREE_PARTITIONS_SQL =
+            "SELECT partition_id FROM outbox_leases WHERE owner IS NULL OR lease_until < ?";
+    private static final String HEARTBEAT_SQL =
+            "UPDATE outbox_relay_instances SET heartbeat_at = ? WHERE instance_id = ?";
+    private static final String REGISTER_SQL =
+            "INSERT INTO outbox_relay_instances (instance_id, heartbeat_at) VALUES (?, ?)";
+    private static final String LIVE_INSTANCES_SQL =
+            "SELECT COUNT(*) FROM outbox_relay_instances WHERE heartbeat_at >= ?";
+    private static final String EXPIRE_INSTANCES_SQL =
+            "DELETE FROM outbox_relay_instances WHERE heartbeat_at < ?";
+    private static final String BATCH_SQL =
+            "SELECT id, aggregate_id, payload FROM outbox_events WHERE partition_id = ? ORDER BY id LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ?";
+    private static final String OLDEST_SQL = "SELECT MIN(created_at) FROM outbox_events";
+
+    // Lotes por partição a cada rodada: uma partição cheia não segura a renovação dos leases
+    private static final int MAX_BATCHES_PER_ROUND = 10;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final int partitions;
+    private final String topic;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final long leaseMs;
+    private final long sendTimeoutMs;
+    private final String instanceId;
+
+    private final Counter publishedCounter;
+    private final Counter failuresCounter;
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "outbox-relay");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Só acessados pela thread do relay
+    private TreeSet<Integer> owned = new TreeSet<>();
+    private long lastRebalance;
+    private long leaseValidUntil;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       KafkaTemplate<String, String> outboxKafkaTemplate,
+                       OutboxService outboxService,
+                       MeterRegistry meterRegistry,
+                       @Value("${bank.outbox.topic:bank.money-movements}") String topic,
+                       @Value("${bank.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${bank.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${bank.outbox.relay.poll-interval-ms:100}") long pollIntervalMs,
+                       @Value("${bank.outbox.relay.lease-ms:10000}") long leaseMs,
+                       @Value("${bank.outbox.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.kafkaTemplate = outboxKafkaTemplate;
+        this.partitions = outboxService.partitions();
+        this.topic = topic;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollIntervalMs = pollIntervalMs;
+        this.leaseMs = leaseMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.instanceId = ManagementFactory.getRuntimeMXBean().getName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        this.publishedCounter = Counter.builder("bank.outbox.published")
+                .description("Eventos do outbox confirmados pelo broker")
+                .register(meterRegistry);
+        this.failuresCounter = Counter.builder("bank.outbox.failures")
+                .description("Lotes do outbox que falharam e serão reenviados")
+                .register(meterRegistry);
+        Gauge.builder("bank.outbox.lag", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Idade do evento mais antigo ainda não publicado")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (!enabled) {
+            log.info("Relay do outbox desligado (bank.outbox.relay.enabled=false)");
+            return;
+        }
+        List<Integer> existing = jdbcTemplate.queryForList("SELECT partition_id FROM outbox_leases", Integer.class);
+        for (int partition = 0; partition < partitions; partition++) {
+            if (existing.contains(partition)) {
+                continue;
+            }
+            try {
+                jdbcTemplate.update(SEED_LEASE_SQL, partition);
+            } catch (DuplicateKeyException e) {
+                // outra instância criou a mesma partição ao mesmo tempo
+            }
+        }
+        executor.scheduleWithFixedDelay(this::relay, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("📤 Relay do outbox {} publicando em {} ({} partições)", instanceId, topic, partitions);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        if (!enabled) {
+            return;
+        }
+        // Libera as partições na hora, sem esperar o lease vencer
+        try {
+            for (int partition : owned) {
+                jdbcTemplate.update(RELEASE_SQL, partition, instanceId);
+            }
+            jdbcTemplate.update("DELETE FROM outbox_relay_instances WHERE instance_id = ?", instanceId);
+        } catch (DataAccessException e) {
+            log.warn("⚠️ Leases do outbox não liberados; vencem em {} ms", leaseMs, e);
+        }
+    }
+
+    private void relay() {
+        try {
+            long now = System.currentTimeMillis();
+            if (now - lastRebalance >= leaseMs / 3) {
+                rebalance(now);
+                lastRebalance = now;
+            }
+            for (int partition : owned) {
+                for (int i = 0; i < MAX_BATCHES_PER_ROUND && System.currentTimeMillis() < leaseValidUntil; i++) {
+                    if (publish(partition) < batchSize) {
+                        break;
+                    }
+                }
+            }
+            Timestamp oldest = jdbcTemplate.queryForObject(OLDEST_SQL, Timestamp.class);
+            lagMillis.set(oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTime()));
+        } catch (RuntimeException e) {
+            // Uma rodada com erro não pode matar o agendamento
+            log.error("❌ Rodada do relay do outbox falhou", e);
+        }
+    }
+
+    private void rebalance(long nowMillis) {
+        Timestamp now = new Timestamp(nowMillis);
+        Timestamp until = new Timestamp(nowMillis + leaseMs);
+        Timestamp liveSince = new Timestamp(nowMillis - leaseMs);
+
+        if (jdbcTemplate.update(HEARTBEAT_SQL, now, instanceId) == 0) {
+            jdbcTemplate.update(REGISTER_SQL, instanceId, now);
+        }
+        jdbcTemplate.update(EXPIRE_INSTANCES_SQL, new Timestamp(nowMillis - 10 * leaseMs));
+        Integer live = jdbcTemplate.queryForObject(LIVE_INSTANCES_SQL, Integer.class, liveSince);
+        int instances = Math.max(1, live == null ? 0 : live);
+        int share = (partitions + instances - 1) / instances;
+
+        // Renova as atuais; uma partição tomada por outra instância (lease vencido) simplesmente some
+        TreeSet<Integer> kept = new TreeSet<>();
+        for (int partition : owned) {
+            if (jdbcTemplate.update(CLAIM_SQL, instanceId, until, partition, instanceId, now) == 1) {
+                kept.add(partition);
+            }
+        }
+        // Mais que a parte justa: devolve as excedentes para as instâncias novas
+        while (kept.size() > share) {
+            int partition = kept.last();
+            jdbcTemplate.update(RELEASE_SQL, partition, instanceId);
+            kept.remove(partition);
+        }
+        if (kept.size() < share) {
+            List<Integer> free = new ArrayList<>(jdbcTemplate.queryForList(FREE_PARTITIONS_SQL, Integer.class, now));
+            Collections.shuffle(free);
+            for (int partition : free) {
+                if (kept.size() >= share) {
+                    break;
+                }
+                if (jdbcTemplate.update(CLAIM_SQL, instanceId, until, partition, instanceId, now) == 1) {
+                    kept.add(partition);
+                }
+            }
+        }
+
+        if (!kept.equals(owned)) {
+            log.info("📤 Relay {}: partições do outbox {} ({} relays vivos)", instanceId, kept, live);
+        }
+        owned = kept;
+        // Margem de um terço do lease: para de publicar antes que outra instância possa assumir
+        leaseValidUntil = nowMillis + leaseMs * 2 / 3;
+    }
+
+    // Devolve quantos eventos foram publicados; 0 se a partição está vazia ou o envio falhou
+    private int publish(int partition) {
+        List<PendingEvent> events = jdbcTemplate.query(BATCH_SQL,
+                (rs, row) -> new PendingEvent(rs.getLong("id"), rs.getLong("aggregate_id"), rs.getString("payload")),
+                partition, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(events.size());
+        for (PendingEvent event : events) {
+            sends.add(kafkaTemplate.send(topic, String.valueOf(event.accountId), event.payload));
+        }
+        try {
+            CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            failuresCounter.increment();
+            log.warn("⚠️ Lote de {} eventos da partição {} do outbox não confirmado; será reenviado",
+                    events.size(), partition, e);
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+
+        List<Object[]> ids = new ArrayList<>(events.size());
+        for (PendingEvent event : events) {
+            ids.add(new Object[] { event.id });
+        }
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+        publishedCounter.increment(events.size());
+        return events.size();
+    }
+
+    private static final class PendingEvent {
+        private final long id;
+        private final long accountId;
+        private final String payload;
+
+        private PendingEvent(long id, long accountId, String payload) {
+            this.id = id;
+            this.accountId = accountId;
+            this.payload = payload;
+        }
+    }
+}
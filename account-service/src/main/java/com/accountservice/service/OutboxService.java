@@ -0,0 +1,71 @@
+package com.accountservice.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.accountservice.event.MoneyMovementEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * Lado de escrita do outbox: os eventos entram em outbox_events na mesma
+ * transação da movimentação, então só existem se ela confirmar. Quem publica
+ * é o {@link OutboxRelay}.
+ */
+@Service
+public class OutboxService {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_events (partition_id, aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int partitions;
+
+    public OutboxService(JdbcTemplate jdbcTemplate,
+                         ObjectMapper objectMapper,
+                         @Value("${bank.outbox.partitions:16}") int partitions) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Datas em ISO-8601 no payload, como nos demais eventos JSON
+        this.objectMapper = objectMapper.copy().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.partitions = partitions;
+    }
+
+    /** Grava os eventos em um único batch. Exige transação aberta. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(List<MoneyMovementEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (MoneyMovementEvent event : events) {
+            try {
+                rows.add(new Object[] { partitionOf(event.getAccountId()), event.getAccountId(), event.getEventType(),
+                        objectMapper.writeValueAsString(event), now });
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Evento " + event.getEventType() + " não serializável", e);
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    // Mesma conta, mesma partição: um único relay publica os eventos dela, em ordem de id.
+    // Mudar bank.outbox.partitions com eventos pendentes pode reordenar esses eventos.
+    int partitionOf(Long accountId) {
+        return Math.floorMod(Long.hashCode(accountId), partitions);
+    }
+
+    int partitions() {
+        return partitions;
+    }
+}
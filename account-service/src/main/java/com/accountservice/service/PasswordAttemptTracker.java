@@ -0,0 +1,152 @@
+package com.accountservice.service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.InvalidTransactionalPasswordException;
+import com.accountservice.exception.PasswordBlockedException;
+import com.accountservice.model.Account;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Tentativas erradas de senha transacional, por conta, na tabela
+ * password_attempts: o contador é compartilhado por todas as instâncias e
+ * sobrevive a reinícios, então o limite vale para o cluster inteiro. Cada erro
+ * é um UPDATE atômico (failures = failures + 1) em transação própria; a linha
+ * de accounts só é escrita nas transições: quando a conta é bloqueada e quando
+ * um acerto limpa um estado gravado (bloqueio vencido ou contador vindo de
+ * antes). O acerto de uma conta sem erros só lê a chave primária de
+ * password_attempts e não escreve nada.
+ */
+@Component
+public class PasswordAttemptTracker {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordAttemptTracker.class);
+
+    private static final String BLOCK_SQL =
+            "UPDATE accounts SET failed_attempts = ?, password_blocked_until = ? WHERE id = ?";
+    private static final String CLEAR_SQL =
+            "UPDATE accounts SET failed_attempts = 0, password_blocked_until = NULL WHERE id = ?";
+    private static final String INCREMENT_SQL =
+            "UPDATE password_attempts SET failures = failures + 1 WHERE account_id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO password_attempts (account_id, failures) VALUES (?, ?)";
+    private static final String SELECT_SQL = "SELECT failures FROM password_attempts WHERE account_id = ?";
+    private static final String DELETE_SQL = "DELETE FROM password_attempts WHERE account_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    // Transação própria: o erro de senha desfaz a transação de quem chamou, não o bloqueio
+    private final TransactionTemplate ownTransaction;
+    private final int maxAttempts;
+    private final long blockMinutes;
+
+    private final Counter blocks;
+    private final Counter writes;
+
+    public PasswordAttemptTracker(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${bank.password-attempts.max:3}") int maxAttempts,
+                                  @Value("${bank.password-attempts.block-minutes:30}") long blockMinutes) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.blockMinutes = blockMinutes;
+        this.blocks = Counter.builder("bank.password.blocks")
+                .description("Senhas transacionais bloqueadas por tentativas erradas")
+                .register(meterRegistry);
+        this.writes = Counter.builder("bank.password.attempt.writes")
+                .description("Escritas em accounts por bloqueio ou desbloqueio de senha")
+                .register(meterRegistry);
+    }
+
+    /** Lança {@link PasswordBlockedException} se a conta estiver bloqueada. */
+    public void checkNotBlocked(Account account) {
+        LocalDateTime blockedUntil = account.getPasswordBlockedUntil();
+        LocalDateTime now = LocalDateTime.now();
+        if (blockedUntil != null && now.isBefore(blockedUntil)) {
+            throw new PasswordBlockedException("Senha bloqueada. Tente novamente em " +
+                ChronoUnit.MINUTES.between(now, blockedUntil) + " minutos");
+        }
+    }
+
+    /** Conta o erro e devolve a exceção que quem chamou deve lançar (senha incorreta ou bloqueio). */
+    public RuntimeException recordFailure(Account account) {
+        Long accountId = account.getId();
+        // Bloqueio vencido recomeça do zero; contador gravado por versões anteriores é respeitado
+        int persisted = account.getPasswordBlockedUntil() != null ? 0 : account.getFailedAttempts();
+        int attempts = increment(accountId, persisted + 1);
+        if (attempts < maxAttempts) {
+            return new InvalidTransactionalPasswordException(
+                "Senha incorreta. Tentativas restantes: " + (maxAttempts - attempts));
+        }
+
+        LocalDateTime blockedUntil = LocalDateTime.now().plusMinutes(blockMinutes);
+        ownTransaction.executeWithoutResult(status -> {
+            jdbcTemplate.update(BLOCK_SQL, attempts, Timestamp.valueOf(blockedUntil), accountId);
+            jdbcTemplate.update(DELETE_SQL, accountId);
+        });
+        account.setFailedAttempts(attempts);
+        account.setPasswordBlockedUntil(blockedUntil);
+        writes.increment();
+        blocks.increment();
+        log.warn("Senha transacional da conta {} bloqueada até {}", accountId, blockedUntil);
+        return new PasswordBlockedException(
+            "Senha bloqueada por " + blockMinutes + " minutos devido a múltiplas tentativas falhas");
+    }
+
+    /** Acerto: zera o contador. Só escreve se havia bloqueio ou contador gravado. */
+    public void recordSuccess(Account account) {
+        List<Integer> pending = jdbcTemplate.queryForList(SELECT_SQL, Integer.class, account.getId());
+        if (!pending.isEmpty()) {
+            ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(DELETE_SQL, account.getId()));
+        }
+        if (account.getFailedAttempts() == 0 && account.getPasswordBlockedUntil() == null) {
+            return;
+        }
+        ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(CLEAR_SQL, account.getId()));
+        account.setFailedAttempts(0);
+        account.setPasswordBlockedUntil(null);
+        writes.increment();
+    }
+
+    /** Senha definida ou trocada: o estado gravado em accounts já foi zerado junto com a conta. */
+    public void reset(Long accountId) {
+        ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(DELETE_SQL, accountId));
+    }
+
+    // Erros seguidos depois deste; a linha fica travada pelo UPDATE até a leitura
+    private int increment(Long accountId, int first) {
+        Integer attempts = ownTransaction.execute(status -> jdbcTemplate.update(INCREMENT_SQL, accountId) == 0
+                ? null
+                : jdbcTemplate.queryForObject(SELECT_SQL, Integer.class, accountId));
+        if (attempts != null) {
+            return attempts;
+        }
+        try {
+            ownTransaction.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, accountId, first));
+            return first;
+        } catch (DuplicateKeyException e) {
+            // Primeiro erro registrado ao mesmo tempo por outra instância
+            return ownTransaction.execute(status -> {
+                jdbcTemplate.update(INCREMENT_SQL, accountId);
+                return jdbcTemplate.queryForObject(SELECT_SQL, Integer.class, accountId);
+            });
+        }
+    }
+}
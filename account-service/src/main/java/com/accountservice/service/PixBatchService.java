@@ -0,0 +1,381 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.accountservice.dto.PixBatchItemResult;
+import com.accountservice.dto.PixBatchProgress;
+import com.accountservice.dto.PixBatchTransferItem;
+import com.accountservice.dto.PixBatchTransferRequest;
+import com.accountservice.dto.PixBatchTransferResponse;
+import com.accountservice.exception.DailyLimitExceededException;
+import com.accountservice.exception.InsufficientBalanceException;
+import com.accountservice.exception.InvalidTransactionalPasswordException;
+import com.accountservice.model.Account;
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixTransaction;
+import com.accountservice.model.TransactionType;
+import com.accountservice.repository.AccountRepository;
+import com.accountservice.repository.PixKeyRepository;
+
+/**
+ * PIX em lote (folha de pagamento, repasses de marketplace): uma autorização,
+ * uma consulta para as chaves, uma para as contas de destino e, por bloco,
+ * um único débito na origem + INSERTs em batch JDBC.
+ *
+ * Um bloco fecha em bank.pix.batch.chunk-size itens ou ao atingir
+ * bank.pix.batch.max-locked-accounts contas distintas, o que vier primeiro:
+ * os stripes de {@link AccountLockManager} ficam presos só por esse tanto, e
+ * o bloco passa pelo {@link TransferExecutor} (nova tentativa em deadlock).
+ */
+@Service
+public class PixBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(PixBatchService.class);
+
+    private static final String INSERT_PIX_TRANSACTION =
+            "INSERT INTO pix_transactions (transaction_id, from_user_id, from_account_id, to_user_id, to_account_id, "
+            + "amount, key_type, pix_key, description, status, created_at, processed_at) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final TransactionalPasswordService passwordService;
+    private final AccountService accountService;
+    private final AccountRepository accountRepository;
+    private final PixKeyRepository pixKeyRepository;
+    private final TransferExecutor transferExecutor;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionIdGenerator idGenerator;
+    private final DailySpendTracker dailySpendTracker;
+    private final LedgerService ledgerService;
+    private final int chunkSize;
+    private final int maxLockedAccounts;
+    private final int maxItems;
+
+    public PixBatchService(TransactionalPasswordService passwordService,
+                           AccountService accountService,
+                           AccountRepository accountRepository,
+                           PixKeyRepository pixKeyRepository,
+                           TransferExecutor transferExecutor,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionIdGenerator idGenerator,
+                           DailySpendTracker dailySpendTracker,
+                           LedgerService ledgerService,
+                           @Value("${bank.pix.batch.chunk-size:500}") int chunkSize,
+                           @Value("${bank.pix.batch.max-locked-accounts:32}") int maxLockedAccounts,
+                           @Value("${bank.pix.batch.max-items:10000}") int maxItems) {
+        this.passwordService = passwordService;
+        this.accountService = accountService;
+        this.accountRepository = accountRepository;
+        this.pixKeyRepository = pixKeyRepository;
+        this.transferExecutor = transferExecutor;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+        this.dailySpendTracker = dailySpendTracker;
+        this.ledgerService = ledgerService;
+        this.chunkSize = Math.max(1, chunkSize);
+        // A origem ocupa um: cabe ao menos um destino por bloco
+        this.maxLockedAccounts = Math.max(2, maxLockedAccounts);
+        this.maxItems = maxItems;
+    }
+
+    public PixBatchTransferResponse transfer(Long fromUserId, PixBatchTransferRequest request,
+                                             String stepUpToken, String deviceId) {
+        return execute(prepare(fromUserId, request, stepUpToken, deviceId), progress -> { });
+    }
+
+    /**
+     * Autoriza o lote e resolve chaves e contas de destino. Roda antes de a
+     * resposta começar a ser enviada, então erros aqui viram respostas HTTP normais.
+     * Um token de step-up dispensa a senha se cobrir o valor total do lote.
+     */
+    public PreparedBatch prepare(Long fromUserId, PixBatchTransferRequest request,
+                                 String stepUpToken, String deviceId) {
+        List<PixBatchTransferItem> items = request.getItems();
+        if (items.size() > maxItems) {
+            throw new IllegalArgumentException("Lote excede o máximo de " + maxItems + " transferências");
+        }
+
+        // 1️⃣ Uma única autorização para o lote inteiro, pelo valor total
+        BigDecimal batchTotal = BigDecimal.ZERO;
+        for (PixBatchTransferItem item : items) {
+            batchTotal = batchTotal.add(item.getAmount());
+        }
+        if (!passwordService.authorizeTransaction(fromUserId, request.getPassword(), stepUpToken, deviceId, batchTotal)) {
+            throw new InvalidTransactionalPasswordException("Senha transacional inválida");
+        }
+
+        // Mesma conta de origem do PIX avulso
+        Account fromAccount = accountService.getActivePrimaryAccount(fromUserId);
+
+        // 2️⃣ Todas as chaves de destino em uma consulta
+        Set<String> keyValues = new HashSet<>();
+        for (PixBatchTransferItem item : items) {
+            keyValues.add(item.getKeyValue());
+        }
+        Map<String, PixKey> keysByValue = new HashMap<>();
+        for (PixKey key : pixKeyRepository.findByKeyValueIn(keyValues)) {
+            keysByValue.putIfAbsent(key.getKeyValue(), key);
+        }
+
+        // 3️⃣ Todas as contas de destino em outra
+        Set<Long> userIds = new HashSet<>();
+        for (PixKey key : keysByValue.values()) {
+            userIds.add(key.getUserId());
+        }
+        Map<Long, Account> accountsByUser = new HashMap<>();
+        if (!userIds.isEmpty()) {
+            for (Account account : accountRepository.findActiveAccountsByUserIdIn(userIds)) {
+                accountsByUser.putIfAbsent(account.getUserId(), account);
+            }
+        }
+
+        PreparedBatch batch = new PreparedBatch(fromUserId, fromAccount, items.size());
+        for (int i = 0; i < items.size(); i++) {
+            PixBatchTransferItem item = items.get(i);
+            PixBatchItemResult result = new PixBatchItemResult(i, item.getKeyValue(), item.getAmount());
+            batch.results.add(result);
+
+            PixKey key = keysByValue.get(item.getKeyValue());
+            if (key == null) {
+                fail(result, "Chave PIX não encontrada: " + item.getKeyValue());
+            } else if (key.getStatus() != PixKey.PixKeyStatus.ACTIVE) {
+                fail(result, "Chave PIX está inativa");
+            } else if (!accountsByUser.containsKey(key.getUserId())) {
+                fail(result, "Destinatário não possui conta ativa");
+            } else {
+                batch.planned.add(new PlannedTransfer(item, key, accountsByUser.get(key.getUserId()), result));
+            }
+        }
+
+        log.info("Lote PIX do usuário {}: {} itens, {} válidos", fromUserId, items.size(), batch.planned.size());
+        return batch;
+    }
+
+    /**
+     * Processa o lote em blocos. Cada bloco é uma transação: um débito na origem
+     * pelo total do bloco, créditos agregados por conta de destino e INSERTs em batch.
+     * Se o {@code progressListener} falhar (cliente desconectado), o lote segue até
+     * o fim sem notificar: parar no meio deixaria parte dos blocos paga.
+     */
+    public PixBatchTransferResponse execute(PreparedBatch batch, Consumer<PixBatchProgress> progressListener) {
+        int processed = batch.total - batch.planned.size();   // itens já rejeitados na preparação
+        boolean listening = true;
+        for (int from = 0; from < batch.planned.size(); ) {
+            int to = chunkEnd(batch, from);
+            List<PlannedTransfer> chunk = batch.planned.subList(from, to);
+            from = to;
+            executeChunk(batch, chunk);
+            processed += chunk.size();
+
+            List<PixBatchItemResult> chunkResults = new ArrayList<>(chunk.size());
+            for (PlannedTransfer transfer : chunk) {
+                chunkResults.add(transfer.result);
+            }
+            if (listening) {
+                try {
+                    progressListener.accept(new PixBatchProgress(processed, batch.total, count(batch, "COMPLETED"),
+                            count(batch, "FAILED"), chunkResults));
+                } catch (RuntimeException e) {
+                    listening = false;
+                    log.warn("Progresso do lote PIX do usuário {} não entregue ({}); o lote continua até o fim",
+                            batch.fromUserId, e.getMessage());
+                }
+            }
+        }
+
+        BigDecimal transferred = BigDecimal.ZERO;
+        for (PixBatchItemResult result : batch.results) {
+            if ("COMPLETED".equals(result.getStatus())) {
+                transferred = transferred.add(result.getAmount());
+            }
+        }
+        return new PixBatchTransferResponse(batch.total, count(batch, "COMPLETED"), count(batch, "FAILED"),
+                transferred, batch.results);
+    }
+
+    // Fim (exclusivo) do bloco que começa em from: até chunkSize itens e maxLockedAccounts contas
+    private int chunkEnd(PreparedBatch batch, int from) {
+        Set<Long> accounts = new HashSet<>();
+        accounts.add(batch.fromAccount.getId());
+        int to = from;
+        while (to < batch.planned.size() && to - from < chunkSize) {
+            Long toAccountId = batch.planned.get(to).toAccount.getId();
+            if (!accounts.contains(toAccountId) && accounts.size() >= maxLockedAccounts) {
+                break;
+            }
+            accounts.add(toAccountId);
+            to++;
+        }
+        return to;
+    }
+
+    private void executeChunk(PreparedBatch batch, List<PlannedTransfer> chunk) {
+        Long fromAccountId = batch.fromAccount.getId();
+
+        // Variação líquida por conta, em ordem crescente de id (mesma ordem dos row locks)
+        BigDecimal chunkTotal = BigDecimal.ZERO;
+        TreeMap<Long, BigDecimal> deltas = new TreeMap<>();
+        for (PlannedTransfer transfer : chunk) {
+            chunkTotal = chunkTotal.add(transfer.item.getAmount());
+            deltas.merge(transfer.toAccount.getId(), transfer.item.getAmount(), BigDecimal::add);
+        }
+        deltas.merge(fromAccountId, chunkTotal.negate(), BigDecimal::add);
+        BigDecimal debitTotal = chunkTotal;
+
+        List<String> transactionIds = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            transactionIds.add(generateTransactionId());
+        }
+
+        try {
+            transferExecutor.execute(deltas.keySet(), () -> {
+                dailySpendTracker.reserve(fromAccountId, batch.fromAccount.getDailyLimit(), debitTotal);
+
+                // Saldo de cada conta antes do bloco = saldo final - variação líquida
+                Map<Long, BigDecimal> running = new HashMap<>();
+                for (Map.Entry<Long, BigDecimal> delta : deltas.entrySet()) {
+                    int sign = delta.getValue().signum();
+                    BigDecimal balance;
+                    if (sign < 0) {
+                        balance = accountService.debit(delta.getKey(), delta.getValue().negate());
+                    } else if (sign > 0) {
+                        balance = accountService.credit(delta.getKey(), delta.getValue());
+                    } else {
+                        balance = accountRepository.findBalanceById(delta.getKey()).orElseThrow();
+                    }
+                    running.put(delta.getKey(), balance.subtract(delta.getValue()));
+                }
+                insertTransactions(batch, chunk, transactionIds);
+                recordLedger(batch, chunk, transactionIds, running);
+                return null;
+            });
+
+            for (int i = 0; i < chunk.size(); i++) {
+                PixBatchItemResult result = chunk.get(i).result;
+                result.setStatus("COMPLETED");
+                result.setTransactionId(transactionIds.get(i));
+                result.setMessage("Transferência realizada com sucesso");
+            }
+        } catch (InsufficientBalanceException e) {
+            for (PlannedTransfer transfer : chunk) {
+                fail(transfer.result, "Saldo insuficiente para o bloco de transferências");
+            }
+        } catch (DailyLimitExceededException e) {
+            for (PlannedTransfer transfer : chunk) {
+                fail(transfer.result, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            log.error("❌ Falha no bloco do lote PIX do usuário {}: {}", batch.fromUserId, e.getMessage());
+            for (PlannedTransfer transfer : chunk) {
+                fail(transfer.result, "Falha na transferência: " + e.getMessage());
+            }
+        }
+    }
+
+    private void insertTransactions(PreparedBatch batch, List<PlannedTransfer> chunk, List<String> transactionIds) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PlannedTransfer transfer = chunk.get(i);
+            rows.add(new Object[] {
+                    transactionIds.get(i),
+                    batch.fromUserId,
+                    batch.fromAccount.getId(),
+                    transfer.key.getUserId(),
+                    transfer.toAccount.getId(),
+                    transfer.item.getAmount(),
+                    transfer.key.getKeyType().name(),
+                    transfer.key.getKeyValue(),
+                    transfer.item.getDescription(),
+                    PixTransaction.TransactionStatus.COMPLETED.name(),
+                    now,
+                    now
+            });
+        }
+        jdbcTemplate.batchUpdate(INSERT_PIX_TRANSACTION, rows);
+    }
+
+    // Reaplica os itens na ordem do lote para ter o balance_after de cada lançamento
+    private void recordLedger(PreparedBatch batch, List<PlannedTransfer> chunk, List<String> transactionIds,
+                              Map<Long, BigDecimal> running) {
+        Long fromAccountId = batch.fromAccount.getId();
+        List<LedgerService.Movement> movements = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            PlannedTransfer transfer = chunk.get(i);
+            BigDecimal amount = transfer.item.getAmount();
+            Long toAccountId = transfer.toAccount.getId();
+            BigDecimal fromBalance = running.merge(fromAccountId, amount.negate(), BigDecimal::add);
+            BigDecimal toBalance = running.merge(toAccountId, amount, BigDecimal::add);
+            movements.add(new LedgerService.Movement(transactionIds.get(i), TransactionType.PIX, amount,
+                    fromAccountId, fromBalance, toAccountId, toBalance));
+        }
+        ledgerService.record(movements);
+    }
+
+    private static void fail(PixBatchItemResult result, String message) {
+        result.setStatus("FAILED");
+        result.setMessage(message);
+    }
+
+    private static int count(PreparedBatch batch, String status) {
+        int n = 0;
+        for (PixBatchItemResult result : batch.results) {
+            if (status.equals(result.getStatus())) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private String generateTransactionId() {
+        return idGenerator.nextTransactionId("PIX");
+    }
+
+    public static class PreparedBatch {
+        private final Long fromUserId;
+        private final Account fromAccount;
+        private final int total;
+        private final List<PixBatchItemResult> results;
+        private final List<PlannedTransfer> planned = new ArrayList<>();
+
+        private PreparedBatch(Long fromUserId, Account fromAccount, int total) {
+            this.fromUserId = fromUserId;
+            this.fromAccount = fromAccount;
+            this.total = total;
+            this.results = new ArrayList<>(total);
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+
+    private static class PlannedTransfer {
+        private final PixBatchTransferItem item;
+        private final PixKey key;
+        private final Account toAccount;
+        private final PixBatchItemResult result;
+
+        private PlannedTransfer(PixBatchTransferItem item, PixKey key, Account toAccount, PixBatchItemResult result) {
+            this.item = item;
+            this.key = key;
+            this.toAccount = toAccount;
+            this.result = result;
+        }
+    }
+}
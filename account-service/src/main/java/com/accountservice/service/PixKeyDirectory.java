@@ -0,0 +1,326 @@
+package com.accountservice.service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixKey.PixKeyStatus;
+import com.accountservice.model.PixKey.PixKeyType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Diretório local das chaves PIX (valor -> dono), carregado na subida e
+ * mantido pelas operações de chave deste nó. Um {@link PixKeyBloomFilter} na
+ * frente descarta chaves inexistentes (erros de digitação, sondagem) sem
+ * consultar o mapa nem o banco. Só a negativa do filtro é definitiva: se o
+ * filtro aceita e o mapa não tem a chave, {@link #find(String, Function)}
+ * pergunta ao banco. A negativa só vale para consultas ({@code /keys/check});
+ * quem move dinheiro usa {@link #resolve(String, Function)}, que vai ao banco
+ * também quando o filtro recusa.
+ *
+ * Chaves criadas em outras instâncias chegam pelo {@link #refresh()} (por
+ * created_at, com sobreposição); exclusões feitas em outras instâncias saem no
+ * {@link #rebuild()}, que também redimensiona o filtro. Quem move dinheiro
+ * confirma a chave no banco pela chave primária.
+ */
+@Component
+public class PixKeyDirectory implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PixKeyDirectory.class);
+
+    private static final String SELECT_SQL =
+            "SELECT id, user_id, key_type, key_value, owner_name, status FROM pix_keys";
+    private static final String DELTA_SQL = SELECT_SQL + " WHERE created_at > ?";
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM pix_keys";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final long overlapSeconds;
+
+    private volatile Snapshot snapshot;
+    // Exclusões deste nó ainda não vistas por uma leitura do banco iniciada depois delas
+    private final Map<String, Tombstone> tombstones = new ConcurrentHashMap<>();
+    // refresh e rebuild nunca rodam juntos
+    private final Object maintenance = new Object();
+    private LocalDateTime watermark;
+
+    private final Counter filtered;
+    private final Counter misses;
+    private final Counter hits;
+
+    public PixKeyDirectory(JdbcTemplate jdbcTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${bank.pix.directory.expected-keys:1000000}") long expectedKeys,
+                           @Value("${bank.pix.directory.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${bank.pix.directory.overlap-seconds:10}") long overlapSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.overlapSeconds = overlapSeconds;
+        this.snapshot = new Snapshot(new PixKeyBloomFilter(expectedKeys, falsePositiveRate), new ConcurrentHashMap<>());
+
+        this.filtered = lookupCounter("filtered", meterRegistry);
+        this.misses = lookupCounter("miss", meterRegistry);
+        this.hits = lookupCounter("hit", meterRegistry);
+        Gauge.builder("bank.pix.directory.size", this, PixKeyDirectory::size)
+                .description("Chaves PIX no diretório local")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    /** Dono da chave, sem ir ao banco. Vazio = a chave não está no diretório. */
+    public Optional<Entry> find(String keyValue) {
+        return find(keyValue, value -> Optional.empty());
+    }
+
+    /**
+     * Dono da chave. Recusada pelo filtro = não existe (até o próximo refresh);
+     * aceita pelo filtro mas fora do mapa (falso positivo, ou chave excluída e
+     * recriada em outra instância) = consulta o banco pelo {@code database}.
+     */
+    public Optional<Entry> find(String keyValue, Function<String, Optional<Entry>> database) {
+        Snapshot current = snapshot;
+        if (!current.bloom.mightContain(keyValue)) {
+            filtered.increment();
+            return Optional.empty();
+        }
+        Entry entry = current.entries.get(keyValue);
+        if (entry == null) {
+            misses.increment();
+            Optional<Entry> loaded = database.apply(keyValue);
+            loaded.ifPresent(found -> admit(current, found));
+            return loaded;
+        }
+        hits.increment();
+        return Optional.of(entry);
+    }
+
+    /**
+     * Dono da chave para uma transferência: o mapa responde se tiver a chave;
+     * senão, o banco, mesmo com o filtro recusando (chave criada em outra
+     * instância ainda sem refresh). Um filtro desatualizado não recusa PIX.
+     */
+    public Optional<Entry> resolve(String keyValue, Function<String, Optional<Entry>> database) {
+        Snapshot current = snapshot;
+        Entry entry = current.entries.get(keyValue);
+        if (entry != null) {
+            hits.increment();
+            return Optional.of(entry);
+        }
+        misses.increment();
+        Optional<Entry> loaded = database.apply(keyValue);
+        loaded.ifPresent(found -> admit(current, found));
+        return loaded;
+    }
+
+    public void put(Entry entry) {
+        Snapshot current = snapshot;
+        current.bloom.add(entry.keyValue);
+        current.entries.put(entry.keyValue, entry);
+    }
+
+    /** Chave criada na transação corrente: entra no diretório se ela confirmar. */
+    public void addAfterCommit(PixKey key) {
+        Entry entry = Entry.of(key);
+        afterCommit(() -> put(entry));
+    }
+
+    /** Chave excluída na transação corrente: sai do diretório se ela confirmar. */
+    public void removeAfterCommit(PixKey key) {
+        String keyValue = key.getKeyValue();
+        Long keyId = key.getId();
+        afterCommit(() -> remove(keyId, keyValue));
+    }
+
+    /** Tira a chave já excluída do banco; só sai se ainda for a mesma (mesmo id). */
+    public void remove(Long keyId, String keyValue) {
+        tombstones.put(keyValue, new Tombstone(keyId, System.nanoTime()));
+        snapshot.entries.computeIfPresent(keyValue, (value, entry) -> entry.keyId.equals(keyId) ? null : entry);
+    }
+
+    /** Traz as chaves criadas por outras instâncias desde a última leitura. */
+    @Scheduled(fixedDelayString = "${bank.pix.directory.refresh-ms:1000}",
+               initialDelayString = "${bank.pix.directory.refresh-ms:1000}")
+    public void refresh() {
+        synchronized (maintenance) {
+            if (watermark == null) {
+                return;
+            }
+            LocalDateTime started = LocalDateTime.now();
+            long queryStarted = System.nanoTime();
+            Snapshot current = snapshot;
+            try {
+                jdbcTemplate.query(DELTA_SQL, rs -> {
+                    apply(current, rs);
+                }, Timestamp.valueOf(watermark));
+            } catch (DataAccessException e) {
+                // Banco fora do ar: fica com o que tem e tenta de novo no próximo ciclo
+                log.warn("Falha ao atualizar o diretório PIX: {}", e.getMessage());
+                return;
+            }
+            watermark = started.minusSeconds(overlapSeconds);
+            purgeTombstones(queryStarted);
+        }
+    }
+
+    /** Recarrega tudo em um filtro novo do tamanho atual; descarta chaves excluídas em outras instâncias. */
+    @Scheduled(fixedDelayString = "${bank.pix.directory.rebuild-ms:600000}",
+               initialDelayString = "${bank.pix.directory.rebuild-ms:600000}")
+    public void rebuild() {
+        synchronized (maintenance) {
+            LocalDateTime started = LocalDateTime.now();
+            long queryStarted = System.nanoTime();
+            Long counted = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+            long count = counted == null ? 0 : counted;
+            // Folga de 2x para as chaves criadas até o próximo rebuild
+            Snapshot next = new Snapshot(new PixKeyBloomFilter(Math.max(expectedKeys, 2 * count), falsePositiveRate),
+                    new ConcurrentHashMap<>((int) Math.min(1 << 30, count + count / 3 + 16)));
+            jdbcTemplate.query(SELECT_SQL, rs -> {
+                apply(next, rs);
+            });
+            snapshot = next;
+            watermark = started.minusSeconds(overlapSeconds);
+            purgeTombstones(queryStarted);
+            log.info("Diretório PIX carregado: {} chaves, filtro de {} bits ({} hashes)",
+                    next.entries.size(), next.bloom.bitCount(), next.bloom.hashCount());
+        }
+        // Chaves criadas neste nó durante a carga foram para o snapshot anterior
+        refresh();
+    }
+
+    public int size() {
+        return snapshot.entries.size();
+    }
+
+    private void apply(Snapshot target, ResultSet rs) throws SQLException {
+        admit(target, new Entry(rs.getLong("id"), rs.getLong("user_id"), PixKeyType.valueOf(rs.getString("key_type")),
+                rs.getString("key_value"), rs.getString("owner_name"), PixKeyStatus.valueOf(rs.getString("status"))));
+    }
+
+    // Linha lida do banco: não traz de volta uma chave que este nó acabou de excluir
+    private void admit(Snapshot target, Entry entry) {
+        Tombstone tombstone = tombstones.get(entry.keyValue);
+        if (tombstone != null && tombstone.keyId.equals(entry.keyId)) {
+            return;
+        }
+        target.bloom.add(entry.keyValue);
+        target.entries.put(entry.keyValue, entry);
+    }
+
+    // Uma leitura que começou depois da exclusão já não vê a linha
+    private void purgeTombstones(long queryStarted) {
+        tombstones.values().removeIf(tombstone -> tombstone.deletedAt - queryStarted < 0);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Counter lookupCounter(String result, MeterRegistry meterRegistry) {
+        return Counter.builder("bank.pix.directory.lookups")
+                .tag("result", result)
+                .description("Consultas ao diretório PIX (filtered = descartada pelo filtro de Bloom)")
+                .register(meterRegistry);
+    }
+
+    private static final class Snapshot {
+        private final PixKeyBloomFilter bloom;
+        private final Map<String, Entry> entries;
+
+        private Snapshot(PixKeyBloomFilter bloom, Map<String, Entry> entries) {
+            this.bloom = bloom;
+            this.entries = entries;
+        }
+    }
+
+    private static final class Tombstone {
+        private final Long keyId;
+        private final long deletedAt;
+
+        private Tombstone(Long keyId, long deletedAt) {
+            this.keyId = keyId;
+            this.deletedAt = deletedAt;
+        }
+    }
+
+    public static final class Entry {
+        private final Long keyId;
+        private final Long userId;
+        private final PixKeyType keyType;
+        private final String keyValue;
+        private final String ownerName;
+        private final PixKeyStatus status;
+
+        public Entry(Long keyId, Long userId, PixKeyType keyType, String keyValue, String ownerName, PixKeyStatus status) {
+            this.keyId = keyId;
+            this.userId = userId;
+            this.keyType = keyType;
+            this.keyValue = keyValue;
+            this.ownerName = ownerName;
+            this.status = status;
+        }
+
+        static Entry of(PixKey key) {
+            return new Entry(key.getId(), key.getUserId(), key.getKeyType(), key.getKeyValue(), key.getOwnerName(),
+                    key.getStatus());
+        }
+
+        public Long getKeyId() {
+            return keyId;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public PixKeyType getKeyType() {
+            return keyType;
+        }
+
+        public String getKeyValue() {
+            return keyValue;
+        }
+
+        public String getOwnerName() {
+            return ownerName;
+        }
+
+        public PixKeyStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.accountservice.service;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,6 +15,8 @@ import com.accountservice.dto.PixKeyRequestInfo;
 import com.accountservice.dto.PixKeyResponseInfo;
 import com.accountservice.dto.PixTransferRequest;
 import com.accountservice.dto.PixTransferResponse;
+import com.accountservice.exception.AccountLockTimeoutException;
+import com.accountservice.exception.DailyLimitExceededException;
 import com.accountservice.exception.InsufficientBalanceException;
 import com.accountservice.exception.InvalidPixKeyException;
 import com.accountservice.exception.InvalidTransactionalPasswordException;
@@ -22,6 +24,7 @@ import com.accountservice.model.Account;
 import com.accountservice.model.PixKey;
 import com.accountservice.model.PixKey.PixKeyType;
 import com.accountservice.model.PixTransaction;
+import com.accountservice.model.TransactionType;
 import com.accountservice.repository.AccountRepository;
 import com.accountservice.repository.PixKeyRepository;
 import com.accountservice.repository.PixTransactionRepository;
@@ -41,16 +44,29 @@ public class PixService {
     private final PixKeyRepository pixKeyRepository;
     private final PixTransactionRepository pixTransactionRepository;
     private final AccountService accountService;
+    private final TransferExecutor transferExecutor;
+    private final TransactionIdGenerator idGenerator;
+    private final DailySpendTracker dailySpendTracker;
+    private final LedgerService ledgerService;
+    private final PixKeyDirectory pixKeyDirectory;
     
     
     public PixService(PixKeyRepository pixKeyRepository, 
                      PixTransactionRepository pixTransactionRepository,
-                     AccountService accountService, TransactionalPasswordService passwordService, AccountRepository accountRepository) {
+                     AccountService accountService, TransactionalPasswordService passwordService, AccountRepository accountRepository,
+                     TransferExecutor transferExecutor, TransactionIdGenerator idGenerator,
+                     DailySpendTracker dailySpendTracker, LedgerService ledgerService,
+                     PixKeyDirectory pixKeyDirectory) {
         this.pixKeyRepository = pixKeyRepository;
         this.pixTransactionRepository = pixTransactionRepository;
         this.accountService = accountService;
         this.passwordService = passwordService;
         this.accountRepository = accountRepository;
+        this.transferExecutor = transferExecutor;
+        this.idGenerator = idGenerator;
+        this.dailySpendTracker = dailySpendTracker;
+        this.ledgerService = ledgerService;
+        this.pixKeyDirectory = pixKeyDirectory;
     }
     
     // CADASTRAR CHAVE PIX
@@ -80,6 +96,7 @@ public class PixService {
         pixKey.setStatus(PixKey.PixKeyStatus.ACTIVE);
         
         PixKey savedKey = pixKeyRepository.save(pixKey);
+        pixKeyDirectory.addAfterCommit(savedKey);
         log.info("Chave PIX criada com sucesso: ID {}", savedKey.getId());
         
         return savedKey;
@@ -109,7 +126,9 @@ public class PixService {
         pixKey.setKeyValue(keyValue);
         pixKey.setOwnerName(account.getUserName());
 
-        return pixKeyRepository.save(pixKey);
+        PixKey savedKey = pixKeyRepository.save(pixKey);
+        pixKeyDirectory.addAfterCommit(savedKey);
+        return savedKey;
     }
     
     // LISTAR CHAVES PIX DO USUÁRIO
@@ -129,42 +148,59 @@ public class PixService {
         }
 
         pixKeyRepository.delete(pixKey);
+        pixKeyDirectory.removeAfterCommit(pixKey);
         log.info("Chave PIX excluída com sucesso: {}", keyId);
     }
 
 
-    @Transactional
-     public PixKeyResponseInfo findPixKey(PixKeyRequestInfo request) {
+    // Consulta pelo diretório em memória: chave inexistente não chega ao banco
+    public PixKeyResponseInfo findPixKey(PixKeyRequestInfo request) {
         PixKeyType type = request.getKeyType();
         String value = request.getKeyValue();
 
-        PixKey pixKey = pixKeyRepository
-                .findByKeyValueAndKeyType(value, type)
+        PixKeyDirectory.Entry entry = findInDirectory(type, value)
                 .orElseThrow(() -> new EntityNotFoundException("Chave Pix não encontrada"));
 
         return new PixKeyResponseInfo(
-                pixKey.getOwnerName(),
-                pixKey.getKeyType(),
-                pixKey.getKeyValue(),
+                entry.getOwnerName(),
+                entry.getKeyType(),
+                entry.getKeyValue(),
                 bankInfo
         );
     }
 
-    @Transactional
+    // CONSULTAR CHAVE PIX
+    public boolean checkPixKey(PixKeyType type, String value) {
+        return findInDirectory(type, value).isPresent();
+    }
+
+    private Optional<PixKeyDirectory.Entry> findInDirectory(PixKeyType type, String value) {
+        Optional<PixKeyDirectory.Entry> entry = pixKeyDirectory.find(value,
+                v -> pixKeyRepository.findByKeyValueAndKeyType(v, type).map(PixKeyDirectory.Entry::of));
+        if (entry.isEmpty() || entry.get().getKeyType() == type) {
+            return entry;
+        }
+        // Mesmo valor cadastrado com outro tipo (raro): o diretório guarda um por valor
+        return pixKeyRepository.findByKeyValueAndKeyType(value, type).map(PixKeyDirectory.Entry::of);
+    }
+
     public PixTransferResponse transferPix(
             Long fromUserId,
             PixTransferRequest request,
             String keyValue,
-            String transactionalPassword) {
+            String transactionalPassword,
+            String stepUpToken,
+            String deviceId) {
 
-        System.out.println("🔐 Validando senha transacional para transferência PIX...");
+        log.debug("🔐 Validando senha transacional para transferência PIX...");
 
         // 1️⃣ Valida senha transacional
-        if (!passwordService.authorizeTransaction(fromUserId, transactionalPassword)) {
+        if (!passwordService.authorizeTransaction(fromUserId, transactionalPassword,
+                stepUpToken, deviceId, request.getAmount())) {
             throw new InvalidTransactionalPasswordException("Senha transacional inválida");
         }
 
-        System.out.println("✅ Senha validada. Processando transferência PIX...");
+        log.debug("✅ Senha validada. Processando transferência PIX...");
 
         // 2️⃣ Valida valor
         if (request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
@@ -174,14 +210,22 @@ public class PixService {
         // 3️⃣ Conta de origem
         Account fromAccount = getPrimaryAccount(fromUserId);
 
-        // 4️⃣ Verifica saldo suficiente
+        // 4️⃣ Verifica saldo suficiente (checagem rápida; a garantia vem do UPDATE condicional)
         if (!fromAccount.hasSufficientBalance(request.getAmount())) {
             throw new InsufficientBalanceException("Saldo insuficiente para a transferência");
         }
 
-        // 5️⃣ Busca chave PIX de destino (somente pelo valor da chave)
-        PixKey destinationKey = pixKeyRepository.findByKeyValue(keyValue)
+        // 5️⃣ Busca chave PIX de destino (somente pelo valor da chave): o que o diretório
+        //    não tem vai ao banco, mesmo se o filtro recusar, e a encontrada é confirmada
+        //    no banco pela chave primária
+        PixKeyDirectory.Entry destinationEntry = pixKeyDirectory.resolve(keyValue,
+                        v -> pixKeyRepository.findByKeyValue(v).map(PixKeyDirectory.Entry::of))
                 .orElseThrow(() -> new InvalidPixKeyException("Chave PIX não encontrada: " + keyValue));
+        PixKey destinationKey = pixKeyRepository.findById(destinationEntry.getKeyId())
+                .orElseThrow(() -> {
+                    pixKeyDirectory.remove(destinationEntry.getKeyId(), keyValue);
+                    return new InvalidPixKeyException("Chave PIX não encontrada: " + keyValue);
+                });
 
         if (destinationKey.getStatus() != PixKey.PixKeyStatus.ACTIVE) {
             throw new InvalidPixKeyException("Chave PIX está inativa");
@@ -190,28 +234,29 @@ public class PixService {
         // 6️⃣ Conta de destino
         Account toAccount = getPrimaryAccount(destinationKey.getUserId());
 
-        // 7️⃣ Cria transação PIX
-        PixTransaction transaction = createPixTransaction(
-                fromUserId,
-                fromAccount.getId(),
-                destinationKey.getUserId(),
-                toAccount.getId(),
-                request,
-                destinationKey
-        );
-
         try {
-            // 8️⃣ Executa transferência
-            executeTransfer(fromAccount, toAccount, request.getAmount());
-
-            // 9️⃣ Atualiza status
-            transaction.setStatus(PixTransaction.TransactionStatus.COMPLETED);
-            transaction.setProcessedAt(LocalDateTime.now());
-            pixTransactionRepository.save(transaction);
-     
-            System.out.println("✅ Transferência PIX concluída: " + transaction.getTransactionId());
-
-            // 🔟 Monta resposta
+            // 7️⃣ Executa transferência e grava a transação PIX na mesma transação,
+            //    com as duas contas travadas em ordem canônica
+            PixTransaction transaction = transferExecutor.execute(fromAccount.getId(), toAccount.getId(), () -> {
+                dailySpendTracker.reserve(fromAccount.getId(), fromAccount.getDailyLimit(), request.getAmount());
+                TransferExecutor.MovedFunds moved =
+                        transferExecutor.moveFunds(fromAccount.getId(), toAccount.getId(), request.getAmount());
+                PixTransaction pix = createPixTransaction(
+                        fromUserId,
+                        fromAccount.getId(),
+                        destinationKey.getUserId(),
+                        toAccount.getId(),
+                        request,
+                        destinationKey
+                );
+                ledgerService.transfer(pix.getTransactionId(), TransactionType.PIX, request.getAmount(),
+                        fromAccount.getId(), moved.getFromBalance(), toAccount.getId(), moved.getToBalance());
+                return pix;
+            });
+
+            log.debug("✅ Transferência PIX concluída: {}", transaction.getTransactionId());
+
+            // 8️⃣ Monta resposta
             String fromTo = "DE " + fromAccount.getUserName() + " PARA " + toAccount.getUserName();
 
             PixTransferResponse response = new PixTransferResponse();
@@ -224,11 +269,13 @@ public class PixService {
 
             return response;
 
-        } catch (Exception e) {
-            transaction.setStatus(PixTransaction.TransactionStatus.FAILED);
-            pixTransactionRepository.save(transaction);
-            System.err.println("❌ Erro na transferência PIX: " + e.getMessage());
-            throw new RuntimeException("Falha na transferência: " + e.getMessage());
+        } catch (DailyLimitExceededException | InsufficientBalanceException | AccountLockTimeoutException e) {
+            // Erros de negócio e contenção seguem com o próprio tipo (e o próprio status HTTP)
+            throw e;
+        } catch (RuntimeException e) {
+            // Rollback: nem a movimentação nem a transação PIX ficam gravadas
+            log.error("❌ Erro na transferência PIX: {}", e.getMessage(), e);
+            throw new RuntimeException("Falha na transferência: " + e.getMessage(), e);
         }
     }
 
@@ -261,17 +308,13 @@ public class PixService {
     }
     
     private Account getPrimaryAccount(Long userId) {
-        List<Account> accounts = accountService.getUserAccounts(userId);
-        return accounts.stream()
-            .filter(acc -> acc.getStatus() == Account.AccountStatus.ACTIVE)
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("Usuário não possui conta ativa"));
+        return accountService.getActivePrimaryAccount(userId);
     }
     
     private PixTransaction createPixTransaction(Long fromUserId, Long fromAccountId, 
                                             Long toUserId, Long toAccountId,
                                             PixTransferRequest request,
-                                            PixKey destinationKey) { // ✅ adicionado
+                                            PixKey destinationKey) {
 
         PixTransaction transaction = new PixTransaction();
         transaction.setTransactionId(generateTransactionId());
@@ -281,8 +324,9 @@ public class PixService {
         transaction.setToAccountId(toAccountId);
         transaction.setAmount(request.getAmount());
         transaction.setDescription(request.getDescription());
-        transaction.setStatus(PixTransaction.TransactionStatus.PROCESSING);
+        transaction.setStatus(PixTransaction.TransactionStatus.COMPLETED);
         transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setProcessedAt(transaction.getCreatedAt());
         transaction.setKeyType(destinationKey.getKeyType());
         transaction.setPixKey(destinationKey.getKeyValue());
 
@@ -290,18 +334,8 @@ public class PixService {
     }
 
     
-    private void executeTransfer(Account fromAccount, Account toAccount, BigDecimal amount) {
-        // Debita da conta origem
-        fromAccount.withdraw(amount);
-        accountService.updateAccount(fromAccount);
-        
-        // Credita na conta destino
-        toAccount.deposit(amount);
-        accountService.updateAccount(toAccount);
-    }
-    
     private String generateTransactionId() {
-        return "PIX" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.nextTransactionId("PIX");
     }
     
     // Atualize o AccountService para incluir este método:
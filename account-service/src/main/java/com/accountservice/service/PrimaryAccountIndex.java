@@ -0,0 +1,148 @@
+package com.accountservice.service;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Índice local usuário -> id da conta principal (a conta ACTIVE de menor id).
+ * Com o índice quente, achar a conta do usuário é um único SELECT por chave
+ * primária em vez de listar e filtrar todas as contas dele.
+ *
+ * Quem lê confere o status da conta devolvida: uma entrada que ficou velha por
+ * alteração em outra instância é descartada na primeira leitura.
+ *
+ * Usuário sem conta ativa também fica guardado, até a próxima conta criada ou
+ * status alterado neste nó, ou por bank.primary-account-index.negative-ttl-seconds
+ * para alterações feitas em outras instâncias.
+ */
+@Component
+public class PrimaryAccountIndex {
+
+    private final Map<Long, Long> accountIdsByUser = new ConcurrentHashMap<>();
+    // userId -> nanoTime até o qual vale "sem conta ativa"
+    private final Map<Long, Long> withoutActiveAccount = new ConcurrentHashMap<>();
+    // Avança a cada invalidação: uma carga que começou antes não entra no índice
+    private final AtomicLong version = new AtomicLong();
+    private final int maxSize;
+    private final long negativeTtlNanos;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public PrimaryAccountIndex(MeterRegistry meterRegistry,
+                               @Value("${bank.primary-account-index.max-size:1000000}") int maxSize,
+                               @Value("${bank.primary-account-index.negative-ttl-seconds:60}") long negativeTtlSeconds) {
+        this.maxSize = maxSize;
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+        this.hits = Counter.builder("bank.primary-account.index").tag("result", "hit")
+                .description("Contas principais resolvidas pelo índice")
+                .register(meterRegistry);
+        this.misses = Counter.builder("bank.primary-account.index").tag("result", "miss")
+                .description("Contas principais buscadas no banco")
+                .register(meterRegistry);
+        Gauge.builder("bank.primary-account.index.size", accountIdsByUser, Map::size)
+                .description("Usuários no índice de conta principal")
+                .register(meterRegistry);
+    }
+
+    /** Id da conta principal, do índice ou de {@code loader}. Vazio = usuário sem conta ativa. */
+    public Optional<Long> get(Long userId, Function<Long, Optional<Long>> loader) {
+        Long accountId = accountIdsByUser.get(userId);
+        if (accountId != null) {
+            hits.increment();
+            return Optional.of(accountId);
+        }
+        Long until = withoutActiveAccount.get(userId);
+        if (until != null) {
+            if (until - System.nanoTime() > 0) {
+                hits.increment();
+                return Optional.empty();
+            }
+            withoutActiveAccount.remove(userId, until);
+        }
+        misses.increment();
+        long before = version.get();
+        Optional<Long> loaded = loader.apply(userId);
+        if (loaded.isPresent()) {
+            put(userId, loaded.get(), before);
+        } else {
+            putWithoutActiveAccount(userId, before);
+        }
+        return loaded;
+    }
+
+    /** Primeira conta do usuário: entra no índice quando a transação confirmar. */
+    public void registerAfterCommit(Long userId, Long accountId) {
+        long before = version.get();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(userId, accountId, before);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(userId, accountId, before);
+            }
+        });
+    }
+
+    /**
+     * Conta criada ou salva com status possivelmente alterado. Só invalida quando a
+     * conta principal pode ter mudado; salvar a própria conta principal ativa não custa nada.
+     */
+    public void onAccountSaved(Long userId, Long accountId, boolean active) {
+        if (active && withoutActiveAccount.containsKey(userId)) {
+            invalidate(userId);
+            return;
+        }
+        Long indexed = accountIdsByUser.get(userId);
+        if (indexed == null) {
+            return;
+        }
+        if (active ? accountId < indexed : accountId.equals(indexed)) {
+            invalidate(userId);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        version.incrementAndGet();
+        accountIdsByUser.remove(userId);
+        withoutActiveAccount.remove(userId);
+    }
+
+    private void put(Long userId, Long accountId, long expectedVersion) {
+        // Cheio: os usuários excedentes continuam sendo resolvidos pelo banco
+        if (accountIdsByUser.size() >= maxSize) {
+            return;
+        }
+        accountIdsByUser.put(userId, accountId);
+        withoutActiveAccount.remove(userId);
+        if (version.get() != expectedVersion) {
+            accountIdsByUser.remove(userId, accountId);
+        }
+    }
+
+    private void putWithoutActiveAccount(Long userId, long expectedVersion) {
+        if (withoutActiveAccount.size() >= maxSize) {
+            return;
+        }
+        Long until = System.nanoTime() + negativeTtlNanos;
+        withoutActiveAccount.put(userId, until);
+        if (version.get() != expectedVersion) {
+            withoutActiveAccount.remove(userId, until);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.accountservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import com.accountservice.dto.ReconciliationReport;
+
+/**
+ * Reconciliação pela linha de comando, ao subir o serviço:
+ * {@code --reconcile} (ou {@code --reconcile=<runId>} para retomar) e
+ * {@code --repair} para corrigir os saldos divergentes.
+ */
+@Component
+public class ReconciliationRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationRunner.class);
+
+    private final BalanceReconciliationService reconciliationService;
+
+    public ReconciliationRunner(BalanceReconciliationService reconciliationService) {
+        this.reconciliationService = reconciliationService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption("reconcile")) {
+            return;
+        }
+        String runId = args.getOptionValues("reconcile").stream().findFirst().orElse(null);
+        boolean repair = args.containsOption("repair");
+
+        ReconciliationReport report = reconciliationService.run(runId, repair);
+        log.info("Reconciliação {} terminou com status {}: {} divergências, {} corrigidas",
+                report.getRunId(), report.getStatus(), report.getDriftCount(), report.getRepairedCount());
+    }
+}
@@ -0,0 +1,126 @@
+package com.accountservice.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.PartitionStateException;
+import com.accountservice.repository.ArchivedStatementRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Camada fria do extrato. Meses com mais de bank.archive.age-days são destacados
+ * (ver {@link HistoryPartitionManager}), gravados em segmentos comprimidos no
+ * disco local e então descartados do banco. O extrato e a exportação continuam
+ * enxergando esses meses pelos segmentos.
+ *
+ * Os meses são arquivados do mais antigo para o mais novo, sem buracos: tudo que
+ * está no arquivo é anterior a tudo que está no banco, e é isso que permite ao
+ * extrato emendar as duas fontes só pelo cursor.
+ */
+@Service
+public class StatementArchiver implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementArchiver.class);
+
+    // Mês sem tabela própria (partição nativa nunca criada): nenhuma linha
+    private static final String NO_TRANSACTIONS = "(SELECT * FROM transactions WHERE 1 = 0)";
+    private static final String NO_PIX = "(SELECT * FROM pix_transactions WHERE 1 = 0)";
+
+    private final HistoryPartitionManager partitionManager;
+    private final ArchivedStatementRepository archive;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final int ageDays;
+    private final Counter rowsCounter;
+
+    public StatementArchiver(HistoryPartitionManager partitionManager,
+                             ArchivedStatementRepository archive,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${bank.archive.enabled:false}") boolean enabled,
+                             @Value("${bank.archive.age-days:90}") int ageDays) {
+        this.partitionManager = partitionManager;
+        this.archive = archive;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.ageDays = ageDays;
+        this.rowsCounter = Counter.builder("bank.archive.rows")
+                .description("Linhas de extrato gravadas no arquivo frio")
+                .register(meterRegistry);
+    }
+
+    // Só os meses que o banco registra como arquivados: arquivos soltos no diretório são ignorados
+    @Override
+    public void afterSingletonsInstantiated() {
+        for (YearMonth month : partitionManager.archivedMonths()) {
+            try {
+                archive.open(month);
+            } catch (IOException e) {
+                log.error("❌ Segmentos de {} não puderam ser abertos; o mês fica fora do extrato", month, e);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${bank.archive.cron:0 0 2 * * *}")
+    public void archiveExpired() {
+        if (!enabled) {
+            return;
+        }
+        // Só meses inteiros: o mês que contém o limite ainda tem linhas recentes
+        YearMonth cutoff = YearMonth.from(LocalDate.now().minusDays(ageDays));
+        for (YearMonth month = partitionManager.oldestOnlineMonth();
+             month != null && month.isBefore(cutoff);
+             month = month.plusMonths(1)) {
+            archive(month);
+        }
+    }
+
+    /** Leva um mês encerrado para o arquivo frio. Devolve as linhas de extrato gravadas. */
+    public synchronized long archive(YearMonth month) {
+        if (partitionManager.archivedMonths().contains(month)) {
+            return 0;
+        }
+        YearMonth oldest = partitionManager.oldestOnlineMonth();
+        if (oldest != null && oldest.isBefore(month)) {
+            throw new PartitionStateException("Arquive antes o mês " + oldest + ": o arquivo não pode ter buracos");
+        }
+
+        partitionManager.detach(month);
+        String transactions = partitionManager.detachedTable("transactions", month).orElse(NO_TRANSACTIONS);
+        String pix = partitionManager.detachedTable("pix_transactions", month).orElse(NO_PIX);
+
+        // Transação só de leitura: mantém o cursor aberto enquanto os segmentos são gravados
+        long rows = readOnlyTransaction.execute(status -> {
+            try {
+                return archive.writeMonth(month, transactions, pix);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar os segmentos de " + month, e);
+            }
+        });
+
+        // As tabelas só são descartadas com os segmentos já no disco
+        partitionManager.markArchived(month);
+        try {
+            archive.open(month);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Segmentos de " + month + " gravados mas não abertos", e);
+        }
+        rowsCounter.increment(rows);
+        log.info("🧊 Mês {} arquivado: {} linhas de extrato", month, rows);
+        return rows;
+    }
+}
@@ -0,0 +1,140 @@
+package com.accountservice.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.repository.AccountStatementRepository;
+import com.accountservice.repository.ArchivedStatementRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exportação do extrato completo em CSV ou NDJSON. As linhas vão do cursor do
+ * banco direto para a resposta, uma a uma: o heap não cresce com o histórico.
+ * Os meses arquivados, mais antigos que tudo no banco, saem primeiro.
+ */
+@Service
+public class StatementExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementExportService.class);
+
+    private static final String CSV_HEADER =
+            "transactionId,type,direction,amount,description,pixKey,createdAt,fromUserName,toUserName";
+    private static final DateTimeFormatter CREATED_AT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum ExportFormat {
+        CSV, NDJSON
+    }
+
+    private final AccountStatementRepository statementRepository;
+    private final ArchivedStatementRepository archivedStatements;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public StatementExportService(AccountStatementRepository statementRepository,
+                                  ArchivedStatementRepository archivedStatements,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager) {
+        this.statementRepository = statementRepository;
+        this.archivedStatements = archivedStatements;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public void export(Long accountId, ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long[] rows = new long[1];
+
+        if (format == ExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        Consumer<AccountTransactionDTO> sink = row -> {
+            try {
+                if (format == ExportFormat.CSV) {
+                    writeCsv(writer, row);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(row));
+                    writer.write('\n');
+                }
+                rows[0]++;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+
+        archivedStatements.streamAll(accountId, sink);
+        // Transação só de leitura: mantém o cursor aberto enquanto as linhas são escritas
+        readOnlyTransaction.executeWithoutResult(status -> statementRepository.streamAll(accountId, sink));
+
+        writer.flush();
+        if (gzip) {
+            ((GZIPOutputStream) target).finish();
+        }
+        log.info("Extrato da conta {} exportado em {}: {} linhas", accountId, format, rows[0]);
+    }
+
+    private static void writeCsv(Writer writer, AccountTransactionDTO row) throws IOException {
+        writeField(writer, row.getTransactionId());
+        writer.write(',');
+        writeField(writer, row.getType());
+        writer.write(',');
+        writeField(writer, row.getDirection());
+        writer.write(',');
+        writeField(writer, row.getAmount() == null ? null : row.getAmount().toPlainString());
+        writer.write(',');
+        writeField(writer, row.getDescription());
+        writer.write(',');
+        writeField(writer, row.getPixKey());
+        writer.write(',');
+        writeField(writer, row.getCreatedAt() == null ? null : CREATED_AT.format(row.getCreatedAt()));
+        writer.write(',');
+        writeField(writer, row.getFromUserName());
+        writer.write(',');
+        writeField(writer, row.getToUserName());
+        writer.write('\n');
+    }
+
+    // RFC 4180: aspas só quando o campo tem vírgula, aspas ou quebra de linha
+    private static void writeField(Writer writer, String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                writer.write('"');
+            }
+            writer.write(c);
+        }
+        writer.write('"');
+    }
+}
@@ -0,0 +1,127 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.accountservice.dto.StepUpTokenResponse;
+
+/**
+ * Tokens de step-up: depois de uma verificação BCrypt da senha transacional, o
+ * usuário recebe um token HMAC-SHA256 válido por {@code ttl-seconds} para o
+ * mesmo dispositivo e para operações de até {@code maxAmount} cada.
+ *
+ * O token não é guardado no servidor. O HMAC cobre também o hash BCrypt
+ * armazenado da senha (que não vai no token): trocar ou redefinir a senha
+ * invalida todos os tokens emitidos antes. O limite diário continua valendo
+ * para cada operação.
+ */
+@Service
+public class StepUpTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(StepUpTokenService.class);
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+    private final SecureRandom random = new SecureRandom();
+    private final long ttlSeconds;
+    private final BigDecimal maxCeiling;
+
+    public StepUpTokenService(@Value("${bank.step-up.secret:}") String secret,
+                              @Value("${bank.step-up.ttl-seconds:300}") long ttlSeconds,
+                              @Value("${bank.step-up.max-ceiling:5000.00}") BigDecimal maxCeiling) {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            keyBytes = new byte[32];
+            random.nextBytes(keyBytes);
+            log.warn("bank.step-up.secret não configurado: tokens de step-up valem só nesta instância");
+        } else {
+            keyBytes = Base64.getDecoder().decode(secret);
+        }
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+        this.ttlSeconds = ttlSeconds;
+        this.maxCeiling = maxCeiling;
+    }
+
+    /** Emite o token. Chamar somente depois de validar a senha. */
+    public StepUpTokenResponse issue(Long userId, String deviceId, BigDecimal maxAmount, String passwordHash) {
+        BigDecimal ceiling = maxAmount.min(maxCeiling);
+        Instant expiresAt = Instant.now().plusSeconds(ttlSeconds);
+        byte[] nonce = new byte[12];
+        random.nextBytes(nonce);
+
+        String payload = userId + "|" + ceiling.toPlainString() + "|" + expiresAt.getEpochSecond() + "|"
+                + ENCODER.encodeToString(nonce);
+        String token = ENCODER.encodeToString(payload.getBytes(StandardCharsets.UTF_8)) + "."
+                + ENCODER.encodeToString(sign(payload, deviceId, passwordHash));
+        return new StepUpTokenResponse(token, ceiling, expiresAt);
+    }
+
+    /**
+     * Confere assinatura, usuário, validade e teto do token para uma operação
+     * de {@code amount}. Qualquer divergência devolve false.
+     */
+    public boolean verify(String token, Long userId, String deviceId, BigDecimal amount, String passwordHash) {
+        if (token == null || deviceId == null || passwordHash == null) {
+            return false;
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0) {
+            return false;
+        }
+        try {
+            String payload = new String(DECODER.decode(token.substring(0, dot)), StandardCharsets.UTF_8);
+            byte[] signature = DECODER.decode(token.substring(dot + 1));
+            if (!MessageDigest.isEqual(signature, sign(payload, deviceId, passwordHash))) {
+                return false;
+            }
+            String[] parts = payload.split("\\|");
+            if (parts.length != 4 || !parts[0].equals(String.valueOf(userId))) {
+                return false;
+            }
+            if (Instant.now().getEpochSecond() >= Long.parseLong(parts[2])) {
+                return false;
+            }
+            return amount != null && amount.compareTo(new BigDecimal(parts[1])) <= 0;
+        } catch (IllegalArgumentException e) {
+            // Base64 ou número malformado
+            return false;
+        }
+    }
+
+    private byte[] sign(String payload, String deviceId, String passwordHash) {
+        Mac mac = macs.get();
+        mac.update(payload.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        mac.update(deviceId.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) 0);
+        return mac.doFinal(passwordHash.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 indisponível", e);
+        }
+    }
+}
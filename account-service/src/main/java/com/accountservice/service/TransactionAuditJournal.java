@@ -0,0 +1,233 @@
+package com.accountservice.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.accountservice.model.Transaction;
+import com.accountservice.model.TransactionType;
+
+/**
+ * Journal local das linhas de transactions ainda não gravadas no banco.
+ *
+ * Registros: tamanho (int) | CRC32 (int) | campos. Os arquivos são segmentos
+ * numerados (audit-000000000001.wal); um segmento fechado é apagado assim que
+ * todas as suas linhas foram gravadas ou descartadas. Um registro cortado no fim
+ * do arquivo (queda no meio da escrita) é ignorado na recuperação.
+ */
+final class TransactionAuditJournal implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionAuditJournal.class);
+
+    private static final String PREFIX = "audit-";
+    private static final String SUFFIX = ".wal";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final long segmentBytes;
+    private final boolean fsync;
+    private final Map<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final List<Path> recovered = new ArrayList<>();
+    private FileChannel channel;
+    private volatile long currentSegment;
+
+    TransactionAuditJournal(Path directory, long segmentBytes, boolean fsync) {
+        this.directory = directory;
+        this.segmentBytes = segmentBytes;
+        this.fsync = fsync;
+    }
+
+    /** Linhas dos segmentos deixados pela execução anterior, na ordem em que foram escritas. */
+    List<Transaction> recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+
+        List<Transaction> rows = new ArrayList<>();
+        for (Path file : files) {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            while (in.remaining() >= HEADER_BYTES) {
+                int length = in.getInt();
+                int crc = in.getInt();
+                if (length < 0 || length > in.remaining()) {
+                    log.warn("⚠️ Registro incompleto no fim de {}: descartado", file.getFileName());
+                    break;
+                }
+                byte[] payload = new byte[length];
+                in.get(payload);
+                if (crc(payload) != crc) {
+                    log.warn("⚠️ Registro com CRC inválido em {}: restante do segmento descartado", file.getFileName());
+                    break;
+                }
+                rows.add(decode(payload));
+            }
+            recovered.add(file);
+            currentSegment = Math.max(currentSegment, sequence(file));
+        }
+        return rows;
+    }
+
+    /** Chamado depois que as linhas de {@link #recover()} estão no banco. */
+    void deleteRecovered() throws IOException {
+        for (Path file : recovered) {
+            Files.deleteIfExists(file);
+        }
+        recovered.clear();
+    }
+
+    /** Grava o registro e devolve o segmento em que ele ficou, para {@link #release(long)}. */
+    synchronized long append(Transaction row) throws IOException {
+        byte[] payload = encode(row);
+        if (channel == null || (channel.position() > 0 && channel.position() + HEADER_BYTES + payload.length > segmentBytes)) {
+            rotate();
+        }
+        ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + payload.length)
+                .putInt(payload.length).putInt(crc(payload)).put(payload);
+        record.flip();
+        while (record.hasRemaining()) {
+            channel.write(record);
+        }
+        if (fsync) {
+            channel.force(false);
+        }
+        long segment = currentSegment;
+        pending.computeIfAbsent(segment, s -> new AtomicInteger()).incrementAndGet();
+        return segment;
+    }
+
+    /** A linha saiu do journal (gravada no banco ou transação desfeita). */
+    void release(long segment) {
+        AtomicInteger count = pending.get(segment);
+        if (count != null && count.decrementAndGet() == 0 && segment != currentSegment) {
+            delete(segment);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+            AtomicInteger count = pending.get(currentSegment);
+            if (count == null || count.get() == 0) {
+                delete(currentSegment);
+            }
+        }
+    }
+
+    private void rotate() throws IOException {
+        long previous = currentSegment;
+        if (channel != null) {
+            channel.close();
+        }
+        currentSegment = previous + 1;
+        channel = FileChannel.open(file(currentSegment), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        AtomicInteger count = pending.get(previous);
+        if (count != null && count.get() == 0) {
+            delete(previous);
+        }
+    }
+
+    private void delete(long segment) {
+        pending.remove(segment);
+        try {
+            Files.deleteIfExists(file(segment));
+        } catch (IOException e) {
+            log.warn("⚠️ Não foi possível apagar o segmento {} do journal", segment, e);
+        }
+    }
+
+    private Path file(long segment) {
+        return directory.resolve(String.format("%s%012d%s", PREFIX, segment, SUFFIX));
+    }
+
+    private static long sequence(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private static byte[] encode(Transaction row) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(160);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(row.getTransactionId());
+        out.writeLong(row.getAccountId());
+        out.writeUTF(row.getType().name());
+        writeNullable(out, row.getAmount());
+        writeNullable(out, row.getPreviousBalance());
+        writeNullable(out, row.getNewBalance());
+        writeNullable(out, row.getDescription());
+        out.writeUTF(row.getStatus().name());
+        out.writeLong(row.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(row.getCreatedAt().getNano());
+        // Por último: registros gravados antes do id ser atribuído no record() terminam aqui
+        out.writeLong(row.getId());
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static Transaction decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        Transaction row = new Transaction();
+        row.setTransactionId(in.readUTF());
+        row.setAccountId(in.readLong());
+        row.setType(TransactionType.valueOf(in.readUTF()));
+        row.setAmount(readDecimal(in));
+        row.setPreviousBalance(readDecimal(in));
+        row.setNewBalance(readDecimal(in));
+        row.setDescription(readNullable(in));
+        row.setStatus(Transaction.TransactionStatus.valueOf(in.readUTF()));
+        long seconds = in.readLong();
+        row.setCreatedAt(LocalDateTime.ofEpochSecond(seconds, in.readInt(), ZoneOffset.UTC));
+        if (in.available() >= Long.BYTES) {
+            row.setId(in.readLong());
+        }
+        return row;
+    }
+
+    private static void writeNullable(DataOutputStream out, Object value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString());
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static BigDecimal readDecimal(DataInputStream in) throws IOException {
+        String value = readNullable(in);
+        return value == null ? null : new BigDecimal(value);
+    }
+}
@@ -0,0 +1,401 @@
+package com.accountservice.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.model.Transaction;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gravação em lote (write-behind) das linhas de auditoria de depósitos e saques.
+ *
+ * Dentro da transação da operação a linha só é anexada ao journal local; depois
+ * do commit ela entra num buffer circular limitado e uma thread a grava junto
+ * com as demais em um batch JDBC, a cada bank.audit.flush-interval-ms ou
+ * bank.audit.batch-size linhas. O saldo e o ledger continuam síncronos: só a
+ * linha de transactions aparece no extrato com esse atraso.
+ *
+ * O id (Snowflake, ver {@link TransactionIdGenerator}) e o created_at são
+ * atribuídos em {@link #record}, dentro da transação que travou a conta: a ordem
+ * (created_at, id) do extrato é a ordem de commit, não a de gravação do lote. As
+ * leituras de extrato chamam {@link #awaitAccount} antes da consulta, então quem
+ * acabou de movimentar a conta sempre vê a própria linha e nenhuma página é
+ * servida com uma linha confirmada ainda fora do banco.
+ *
+ * Se o processo cair, as linhas ainda no journal são regravadas na subida, mas só
+ * as que têm lançamento no ledger (a operação confirmou) e ainda não estão em
+ * transactions. Com o buffer cheio, quem confirmou espera até
+ * bank.audit.offer-timeout-ms e então grava a própria linha.
+ */
+@Service
+public class TransactionAuditWriter implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionAuditWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO transactions (id, transaction_id, account_id, type, amount, previous_balance, new_balance,"
+            + " description, status, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Idempotente: só operações confirmadas no ledger e ainda sem linha em transactions
+    private static final String REPLAY_SQL =
+            "INSERT INTO transactions (id, transaction_id, account_id, type, amount, previous_balance, new_balance,"
+            + " description, status, created_at)"
+            + " SELECT CAST(? AS BIGINT), CAST(? AS VARCHAR(50)), CAST(? AS BIGINT), CAST(? AS VARCHAR(20)), CAST(? AS DECIMAL(15,2)),"
+            + " CAST(? AS DECIMAL(15,2)), CAST(? AS DECIMAL(15,2)), CAST(? AS VARCHAR(500)), CAST(? AS VARCHAR(20)),"
+            + " CAST(? AS TIMESTAMP)"
+            + " FROM ledger_entries WHERE movement_id = ?"
+            + " AND NOT EXISTS (SELECT 1 FROM transactions WHERE transaction_id = ?) LIMIT 1";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionIdGenerator idGenerator;
+    private final TransactionTemplate newTransaction;
+    private final TransactionAuditJournal journal;
+    private final BlockingQueue<Pending> buffer;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final long offerTimeoutMs;
+    private final long retryBackoffMs;
+
+    private final Timer flushTimer;
+    private final Counter rowsCounter;
+    private final Counter overflowCounter;
+
+    // Linhas entregues ao buffer e linhas já resolvidas (gravadas, ou deixadas no journal após falha)
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong settled = new AtomicLong();
+    private final Object settledMonitor = new Object();
+    // accountId -> linhas confirmadas ainda não resolvidas; sem entrada, a leitura não espera
+    // Conta -> linhas entregues e ainda não resolvidas; a entrada sai ao chegar a zero
+    private final Map<Long, Integer> pendingByAccount = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private boolean started;
+    private Thread flusher;
+
+    public TransactionAuditWriter(JdbcTemplate jdbcTemplate,
+                                  TransactionIdGenerator idGenerator,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${bank.audit.buffer-size:65536}") int bufferSize,
+                                  @Value("${bank.audit.batch-size:500}") int batchSize,
+                                  @Value("${bank.audit.flush-interval-ms:20}") long flushIntervalMs,
+                                  @Value("${bank.audit.offer-timeout-ms:100}") long offerTimeoutMs,
+                                  @Value("${bank.audit.retry-backoff-ms:1000}") long retryBackoffMs,
+                                  @Value("${bank.audit.journal-dir:data/audit-journal}") String journalDir,
+                                  @Value("${bank.audit.journal-segment-bytes:67108864}") long journalSegmentBytes,
+                                  @Value("${bank.audit.journal-fsync:true}") boolean journalFsync) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+        // Fora da transação da operação: no afterCompletion ela ainda está associada à thread
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.journal = new TransactionAuditJournal(Paths.get(journalDir), journalSegmentBytes, journalFsync);
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+
+        this.flushTimer = Timer.builder("bank.audit.flush")
+                .description("Tempo de gravação de um lote de linhas de auditoria")
+                .register(meterRegistry);
+        this.rowsCounter = Counter.builder("bank.audit.rows")
+                .description("Linhas de auditoria gravadas")
+                .register(meterRegistry);
+        this.overflowCounter = Counter.builder("bank.audit.overflow")
+                .description("Linhas gravadas pela própria requisição com o buffer cheio")
+                .register(meterRegistry);
+        Gauge.builder("bank.audit.queue.depth", buffer, BlockingQueue::size)
+                .description("Linhas de auditoria aguardando gravação")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        start();
+    }
+
+    /**
+     * Regrava o que ficou no journal da execução anterior e só então inicia a
+     * gravação de linhas novas. Roda uma vez; quem lê transactions na subida
+     * (ver {@link DailySpendTracker}) chama antes para ver as linhas regravadas,
+     * qualquer que seja a ordem dos callbacks de inicialização.
+     */
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+        started = true;
+        try {
+            List<Transaction> leftovers = journal.recover();
+            for (Transaction row : leftovers) {
+                if (row.getId() == null) {
+                    row.setId(idGenerator.nextId());   // registro de journal anterior ao id no record()
+                }
+            }
+            if (!leftovers.isEmpty()) {
+                int restored = 0;
+                for (int from = 0; from < leftovers.size(); from += batchSize) {
+                    List<Transaction> chunk = leftovers.subList(from, Math.min(from + batchSize, leftovers.size()));
+                    restored += replay(chunk);
+                }
+                log.info("♻️ Journal de auditoria: {} linhas lidas, {} regravadas", leftovers.size(), restored);
+            }
+            journal.deleteRecovered();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao recuperar o journal de auditoria", e);
+        }
+
+        running = true;
+        flusher = new Thread(this::flushLoop, "transaction-audit-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * Registra a linha de auditoria e lhe atribui id e created_at. Dentro de uma
+     * transação ela só é gravada depois do commit; se a transação for desfeita,
+     * é descartada.
+     */
+    public void record(Transaction transaction) {
+        transaction.setId(idGenerator.nextId());
+        // Precisão da coluna: o objeto devolvido ao cliente é igual à linha gravada
+        transaction.setCreatedAt(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        long segment;
+        try {
+            segment = journal.append(transaction);
+        } catch (IOException e) {
+            // Sem journal não há garantia de durabilidade: a operação inteira é desfeita
+            throw new UncheckedIOException("Falha ao gravar o journal de auditoria", e);
+        }
+        Pending pending = new Pending(transaction, segment);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(pending);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    enqueue(pending);
+                } else {
+                    journal.release(segment);
+                }
+            }
+        });
+    }
+
+    /**
+     * Antes de ler o extrato da conta: espera as linhas já confirmadas dela
+     * chegarem ao banco. Sem linhas pendentes da conta, retorna na hora.
+     */
+    public void awaitAccount(Long accountId) {
+        if (pendingByAccount.containsKey(accountId)) {
+            flush();
+        }
+    }
+
+    /** Espera até que as linhas registradas até agora tenham sido gravadas. */
+    public void flush() {
+        long target = enqueued.get();
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        synchronized (settledMonitor) {
+            while (settled.get() < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new IllegalStateException("Linhas de auditoria ainda pendentes após 30s");
+                }
+                try {
+                    settledMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws IOException, InterruptedException {
+        running = false;
+        if (flusher != null) {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        }
+        journal.close();
+    }
+
+    private void enqueue(Pending pending) {
+        pendingByAccount.merge(pending.row.getAccountId(), 1, Integer::sum);
+        enqueued.incrementAndGet();
+        boolean accepted = false;
+        if (running) {
+            try {
+                accepted = buffer.offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (accepted) {
+            return;
+        }
+        // Buffer cheio (ou gravador parado): a própria requisição grava a linha
+        overflowCounter.increment();
+        try {
+            write(List.of(pending));
+        } catch (DataAccessException e) {
+            log.error("❌ Linha de auditoria {} não gravada; fica no journal até a próxima subida",
+                    pending.row.getTransactionId(), e);
+            settle(List.of(pending));
+        }
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (running || !buffer.isEmpty() || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    collect(batch);
+                }
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (DataAccessException e) {
+                // O lote continua no journal e é tentado de novo; parando, fica para a próxima subida
+                log.error("❌ Falha ao gravar {} linhas de auditoria; nova tentativa em {} ms",
+                        batch.size(), retryBackoffMs, e);
+                if (!running) {
+                    settle(batch);
+                    return;
+                }
+                try {
+                    Thread.sleep(retryBackoffMs);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // Fecha o lote com batch-size linhas ou flush-interval-ms depois da primeira
+    private void collect(List<Pending> batch) throws InterruptedException {
+        Pending first = buffer.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        while (batch.size() < batchSize) {
+            buffer.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            Pending next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<Transaction> rows = new ArrayList<>(batch.size());
+        batch.forEach(pending -> rows.add(pending.row));
+        flushTimer.record(() -> {
+            try {
+                newTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, insertArgs(rows)));
+            } catch (DataAccessException e) {
+                // Ex.: linha já regravada na subida; linha a linha, sem duplicar
+                replay(rows);
+            }
+        });
+        for (Pending pending : batch) {
+            journal.release(pending.segment);
+        }
+        rowsCounter.increment(batch.size());
+        settle(batch);
+    }
+
+    private int replay(List<Transaction> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            args.add(new Object[] { row.getId(), row.getTransactionId(), row.getAccountId(), row.getType().name(),
+                    row.getAmount(), row.getPreviousBalance(), row.getNewBalance(), row.getDescription(),
+                    row.getStatus().name(), Timestamp.valueOf(row.getCreatedAt()), row.getTransactionId(),
+                    row.getTransactionId() });
+        }
+        int[] counts = newTransaction.execute(status -> jdbcTemplate.batchUpdate(REPLAY_SQL, args));
+        int inserted = 0;
+        for (int count : counts) {
+            inserted += Math.max(count, 0);
+        }
+        return inserted;
+    }
+
+    private static List<Object[]> insertArgs(List<Transaction> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        for (Transaction row : rows) {
+            args.add(new Object[] { row.getId(), row.getTransactionId(), row.getAccountId(), row.getType().name(),
+                    row.getAmount(), row.getPreviousBalance(), row.getNewBalance(), row.getDescription(),
+                    row.getStatus().name(), Timestamp.valueOf(row.getCreatedAt()) });
+        }
+        return args;
+    }
+
+    private void settle(List<Pending> rows) {
+        for (Pending pending : rows) {
+            pendingByAccount.computeIfPresent(pending.row.getAccountId(), (id, count) -> count == 1 ? null : count - 1);
+        }
+        settled.addAndGet(rows.size());
+        synchronized (settledMonitor) {
+            settledMonitor.notifyAll();
+        }
+    }
+
+    private static final class Pending {
+        private final Transaction row;
+        private final long segment;
+
+        private Pending(Transaction row, long segment) {
+            this.row = row;
+            this.segment = segment;
+        }
+    }
+}
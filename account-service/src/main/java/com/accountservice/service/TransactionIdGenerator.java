@@ -0,0 +1,293 @@
+package com.accountservice.service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Gerador de ids no estilo Snowflake: 41 bits de milissegundos desde 2024-01-01,
+ * 10 bits de nó e 12 bits de sequência por milissegundo.
+ *
+ * Não usa lock nem SecureRandom: o estado (timestamp + sequência) fica em um
+ * único AtomicLong atualizado por CAS, e {@link #nextId()} não aloca. Se a
+ * sequência estoura no mesmo milissegundo, o gerador avança para o próximo
+ * milissegundo lógico em vez de esperar; se o relógio volta, continua do último
+ * timestamp emitido. Os ids são sempre crescentes no nó.
+ *
+ * O nó é reservado na tabela id_nodes antes do primeiro id (na subida, ou no
+ * primeiro {@link #nextId()} se ele vier antes): bank.id.node-id fixo, que
+ * espera o lease de um dono anterior vencer e senão falha, ou o primeiro nó
+ * livre a partir do hash de host:porta. A linha guarda também até que
+ * milissegundo o dono pode emitir (bank.id.reserve-ms à frente); quem assume o
+ * nó, inclusive esta instância depois de reiniciar com o relógio atrasado,
+ * começa depois dessa marca, então nenhum id se repete.
+ */
+@Component
+public class TransactionIdGenerator implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionIdGenerator.class);
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Zero à esquerda até 19 dígitos: a ordem textual acompanha a ordem numérica
+    private static final int ID_DIGITS = 19;
+
+    private static final String TAKE_SQL =
+            "UPDATE id_nodes SET owner = ?, lease_until = ? WHERE node_id = ? AND (lease_until < ? OR owner = ?)";
+    private static final String INSERT_SQL =
+            "INSERT INTO id_nodes (node_id, owner, lease_until, reserved_millis) VALUES (?, ?, ?, 0)";
+    private static final String RESERVED_SQL = "SELECT reserved_millis FROM id_nodes WHERE node_id = ?";
+    private static final String RENEW_SQL =
+            "UPDATE id_nodes SET lease_until = ?, reserved_millis = ? WHERE node_id = ? AND owner = ?";
+    private static final String RELEASE_SQL = "UPDATE id_nodes SET lease_until = ? WHERE node_id = ? AND owner = ?";
+
+    private final AtomicLong state = new AtomicLong();
+    // Nó e marca de reserva trocados juntos: um id nunca mistura o nó de uma reserva com a marca de outra
+    private volatile Lease lease;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate ownTransaction;
+    private String owner;
+    private long configuredNodeId = -1;
+    private long derivedNodeId;
+    private long leaseMillis;
+    private long reserveMillis;
+
+    /** Nó fixo, sem reserva no banco (benchmarks). */
+    public TransactionIdGenerator(long nodeId) {
+        this.lease = new Lease(checkNodeId(nodeId), Long.MAX_VALUE);
+    }
+
+    @Autowired
+    public TransactionIdGenerator(JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${bank.id.node-id:-1}") long configuredNodeId,
+                                  @Value("${server.port:8080}") int port,
+                                  @Value("${bank.id.lease-seconds:30}") long leaseSeconds,
+                                  @Value("${bank.id.reserve-ms:10000}") long reserveMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ownTransaction = new TransactionTemplate(transactionManager);
+        this.ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.configuredNodeId = configuredNodeId >= 0 ? checkNodeId(configuredNodeId) : -1;
+        String host = hostName();
+        this.derivedNodeId = deriveNodeId(host, port);
+        this.owner = host + ":" + port + "/" + UUID.randomUUID();
+        this.leaseMillis = leaseSeconds * 1000;
+        this.reserveMillis = reserveMillis;
+        // Nenhum id antes de reservar o nó
+        this.lease = new Lease(-1, -1);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        reserve(currentMillis(), false);
+    }
+
+    public long nextId() {
+        while (true) {
+            Lease current = lease;
+            long now = currentMillis();
+            long last = state.get();
+            long lastMillis = last >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > lastMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((last & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = last + 1;
+            } else {
+                next = (lastMillis + 1) << SEQUENCE_BITS;
+            }
+
+            if ((next >>> SEQUENCE_BITS) > current.reservedUntil) {
+                reserve(next >>> SEQUENCE_BITS, false);
+                continue;
+            }
+            if (state.compareAndSet(last, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (current.nodeId << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** Ex.: TXN0001234567890123456 — prefixo + 19 dígitos, ordenável por tempo. */
+    public String nextTransactionId(String prefix) {
+        String digits = Long.toString(nextId());
+        StringBuilder sb = new StringBuilder(prefix.length() + ID_DIGITS).append(prefix);
+        for (int i = digits.length(); i < ID_DIGITS; i++) {
+            sb.append('0');
+        }
+        return sb.append(digits).toString();
+    }
+
+    public long getNodeId() {
+        return lease.nodeId;
+    }
+
+    /** Renova o lease e empurra a reserva, para o caminho quente quase nunca ir ao banco. */
+    @Scheduled(fixedDelayString = "${bank.id.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (jdbcTemplate == null || lease.nodeId < 0) {
+            return;
+        }
+        try {
+            reserve(Math.max(currentMillis(), state.get() >>> SEQUENCE_BITS), true);
+        } catch (DataAccessException e) {
+            log.warn("Falha ao renovar o nó de ids {}: {}", lease.nodeId, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        Lease current = lease;
+        if (jdbcTemplate == null || current.nodeId < 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update(RELEASE_SQL, Timestamp.valueOf(LocalDateTime.now()), current.nodeId, owner);
+        } catch (DataAccessException e) {
+            log.warn("Nó de ids {} não liberado; fica livre quando o lease vencer", current.nodeId);
+        }
+    }
+
+    // Garante reserva até needed (+ bank.id.reserve-ms): renova o nó atual ou reserva outro
+    private synchronized void reserve(long needed, boolean renewLease) {
+        if (jdbcTemplate == null) {
+            return;
+        }
+        Lease current = lease;
+        if (!renewLease && needed < current.reservedUntil) {
+            return;
+        }
+        long until = Math.max(needed, currentMillis()) + reserveMillis;
+        if (current.nodeId >= 0) {
+            Integer renewed = ownTransaction.execute(status -> jdbcTemplate.update(RENEW_SQL,
+                    leaseUntil(), until, current.nodeId, owner));
+            if (renewed != null && renewed == 1) {
+                lease = new Lease(current.nodeId, until);
+                return;
+            }
+            log.warn("Nó de ids {} assumido por outra instância; reservando outro", current.nodeId);
+        }
+        claim(needed);
+    }
+
+    private void claim(long needed) {
+        if (configuredNodeId >= 0) {
+            long deadline = System.currentTimeMillis() + 2 * leaseMillis;
+            while (!tryClaim(configuredNodeId, needed)) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IllegalStateException("bank.id.node-id " + configuredNodeId
+                            + " em uso por outra instância");
+                }
+                pause();
+            }
+            return;
+        }
+        for (long i = 0; i <= MAX_NODE_ID; i++) {
+            if (tryClaim((derivedNodeId + i) & MAX_NODE_ID, needed)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Nenhum nó de ids livre entre 0 e " + MAX_NODE_ID);
+    }
+
+    private boolean tryClaim(long nodeId, long needed) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Integer taken = ownTransaction.execute(status ->
+                jdbcTemplate.update(TAKE_SQL, owner, leaseUntil(), nodeId, now, owner));
+        if (taken == null || taken == 0) {
+            try {
+                ownTransaction.executeWithoutResult(status ->
+                        jdbcTemplate.update(INSERT_SQL, nodeId, owner, leaseUntil()));
+            } catch (DuplicateKeyException e) {
+                return false;   // nó com dono vivo
+            }
+        }
+
+        Long reserved = ownTransaction.execute(status -> {
+            long previous = jdbcTemplate.queryForObject(RESERVED_SQL, Long.class, nodeId);
+            long until = Math.max(previous + 1, Math.max(needed, currentMillis())) + reserveMillis;
+            jdbcTemplate.update(RENEW_SQL, leaseUntil(), until, nodeId, owner);
+            // O estado passa da marca do dono anterior antes de o novo nó ser publicado
+            long floor = (previous << SEQUENCE_BITS) | SEQUENCE_MASK;
+            state.accumulateAndGet(floor, Math::max);
+            return until;
+        });
+        lease = new Lease(nodeId, reserved);
+        log.info("Gerador de ids de transação no nó {}", nodeId);
+        return true;
+    }
+
+    private Timestamp leaseUntil() {
+        return Timestamp.valueOf(LocalDateTime.now().plusNanos(leaseMillis * 1_000_000));
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(500);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido reservando o nó de ids");
+        }
+    }
+
+    private static long currentMillis() {
+        return System.currentTimeMillis() - EPOCH_MILLIS;
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+
+    private static long deriveNodeId(String host, int port) {
+        long h = (host + ":" + port).hashCode() * 0x9E3779B97F4A7C15L;
+        return (h >>> (64 - NODE_BITS)) & MAX_NODE_ID;
+    }
+
+    private static long checkNodeId(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("bank.id.node-id deve estar entre 0 e " + MAX_NODE_ID);
+        }
+        return nodeId;
+    }
+
+    private static final class Lease {
+        private final long nodeId;
+        private final long reservedUntil;
+
+        private Lease(long nodeId, long reservedUntil) {
+            this.nodeId = nodeId;
+            this.reservedUntil = reservedUntil;
+        }
+    }
+}
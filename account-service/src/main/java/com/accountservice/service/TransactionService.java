@@ -4,24 +4,26 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.CursorPage;
+import com.accountservice.dto.StatementCursor;
 import com.accountservice.dto.TransactionRequest;
 import com.accountservice.dto.TransactionResponse;
 import com.accountservice.exception.AccountNotFoundException;
-import com.accountservice.exception.InsufficientBalanceException;
+import com.accountservice.exception.InvalidCursorException;
 import com.accountservice.exception.InvalidTransactionalPasswordException;
 import com.accountservice.model.Account;
-import com.accountservice.model.PixTransaction;
 import com.accountservice.model.Transaction;
 import com.accountservice.model.TransactionType;
-import com.accountservice.repository.PixTransactionRepository;
+import com.accountservice.repository.AccountStatementRepository;
+import com.accountservice.repository.ArchivedStatementRepository;
 import com.accountservice.repository.TransactionRepository;
 
 @Service
@@ -32,194 +34,215 @@ public class TransactionService {
     private final TransactionalPasswordService passwordService;
     private final AccountService accountService;
     private final TransactionRepository transactionRepository;
-    private final PixTransactionRepository pixTransactionRepository;
+    private final BalanceEngine balanceEngine;
+    private final TransactionIdGenerator idGenerator;
+    private final AccountStatementRepository statementRepository;
+    private final ArchivedStatementRepository archivedStatements;
+    private final DailySpendTracker dailySpendTracker;
+    private final LedgerService ledgerService;
+    private final TransactionAuditWriter auditWriter;
+    private final int maxPageSize;
     
-    public TransactionService(AccountService accountService, TransactionRepository transactionRepository, TransactionalPasswordService passwordService, PixTransactionRepository pixTransactionRepository) {
+    public TransactionService(AccountService accountService, TransactionRepository transactionRepository, TransactionalPasswordService passwordService, BalanceEngine balanceEngine, TransactionIdGenerator idGenerator, AccountStatementRepository statementRepository,
+                              ArchivedStatementRepository archivedStatements,
+                              DailySpendTracker dailySpendTracker,
+                              LedgerService ledgerService,
+                              TransactionAuditWriter auditWriter,
+                              @Value("${bank.statement.max-page-size:100}") int maxPageSize) {
         this.accountService = accountService;
         this.transactionRepository = transactionRepository;
         this.passwordService = passwordService;
-        this.pixTransactionRepository = pixTransactionRepository;
+        this.balanceEngine = balanceEngine;
+        this.idGenerator = idGenerator;
+        this.statementRepository = statementRepository;
+        this.archivedStatements = archivedStatements;
+        this.dailySpendTracker = dailySpendTracker;
+        this.ledgerService = ledgerService;
+        this.auditWriter = auditWriter;
+        this.maxPageSize = maxPageSize;
     }
     
-    @Transactional
     public TransactionResponse deposit(String accountNumber, TransactionRequest request) {
         // Logging inicial
-        System.out.println("Processando depósito de R$ " + request.getAmount() + " na conta: " + accountNumber);
+        log.debug("Processando depósito de R$ {} na conta: {}", request.getAmount(), accountNumber);
 
-        // Busca a conta, lançando exception customizada se não existir
-        Account account = accountService.getAccountByNumber(accountNumber)
+        // Resolve só o id: o saldo é alterado por UPDATE atômico dentro do motor de saldo
+        Long accountId = accountService.getAccountIdByNumber(accountNumber)
                 .orElseThrow(() -> new AccountNotFoundException("Conta não encontrada: " + accountNumber));
 
-        BigDecimal previousBalance = account.getBalance();
-
-        // Executa o depósito
-        account.deposit(request.getAmount());
-        Account updatedAccount = accountService.updateAccount(account);
-
-        // Registra a transação
-        Transaction transaction = createTransaction(
-                updatedAccount,
-                TransactionType.DEPOSIT,
-                request.getAmount(),
-                request.getDescription(),
-                Transaction.TransactionStatus.COMPLETED
-        );
-
-        System.out.println("Depósito realizado com sucesso. Novo saldo: R$ " + updatedAccount.getBalance());
-
-        return new TransactionResponse(
-                "DEPOSIT",
-                accountNumber,
-                request.getAmount(),
-                previousBalance,
-                updatedAccount.getBalance(),
-                "Depósito realizado com sucesso"
-        );
+        return balanceEngine.execute(accountId, () -> {
+            // Executa o depósito (UPDATE atômico, sem carregar a conta)
+            BigDecimal newBalance = accountService.credit(accountId, request.getAmount());
+            BigDecimal previousBalance = newBalance.subtract(request.getAmount());
+
+            // Registra a transação
+            Transaction transaction = createTransaction(
+                    accountId,
+                    TransactionType.DEPOSIT,
+                    request.getAmount(),
+                    request.getDescription(),
+                    previousBalance,
+                    newBalance,
+                    Transaction.TransactionStatus.COMPLETED
+            );
+            ledgerService.deposit(transaction.getTransactionId(), accountId, request.getAmount(), newBalance);
+
+            log.debug("Depósito realizado com sucesso. Novo saldo: R$ {}", newBalance);
+
+            return new TransactionResponse(
+                    "DEPOSIT",
+                    accountNumber,
+                    request.getAmount(),
+                    previousBalance,
+                    newBalance,
+                    "Depósito realizado com sucesso"
+            );
+        });
     }
     
-    @Transactional
-    public TransactionResponse withdraw(String accountNumber, TransactionRequest request, String transactionalPassword) {
-        System.out.println("🔐 Validando senha transacional para saque...");
+    public TransactionResponse withdraw(String accountNumber, TransactionRequest request, String transactionalPassword,
+                                        String stepUpToken, String deviceId) {
+        log.debug("🔐 Validando senha transacional para saque...");
 
         // Busca conta ou lança exception customizada
         Account account = accountService.getAccountByNumber(accountNumber)
                 .orElseThrow(() -> new AccountNotFoundException("Conta não encontrada: " + accountNumber));
 
-        System.out.println("Processando saque de R$ " + request.getAmount() + " da conta: " + accountNumber);
+        log.debug("Processando saque de R$ {} da conta: {}", request.getAmount(), accountNumber);
 
-        // Valida senha transacional
-        if (!passwordService.authorizeTransaction(account.getUserId(), transactionalPassword)) {
+        // Valida senha transacional (fora do lock: BCrypt é lento)
+        if (!passwordService.authorizeTransaction(account.getUserId(), transactionalPassword,
+                stepUpToken, deviceId, request.getAmount())) {
             throw new InvalidTransactionalPasswordException("Senha transacional inválida");
         }
 
-        // Verifica saldo suficiente
-        if (!account.hasSufficientBalance(request.getAmount())) {
-            throw new InsufficientBalanceException(
-                    "Saldo insuficiente. Saldo atual: R$ " + account.getBalance() + ", Valor solicitado: R$ " + request.getAmount()
+        return balanceEngine.execute(account.getId(), () -> {
+            // Limite diário (linha do dia no banco, desfeita se a transação não confirmar)
+            dailySpendTracker.reserve(account.getId(), account.getDailyLimit(), request.getAmount());
+
+            // Executa o saque: o UPDATE só acontece se balance >= valor
+            BigDecimal newBalance = accountService.debit(account.getId(), request.getAmount());
+            BigDecimal previousBalance = newBalance.add(request.getAmount());
+
+            // Registra a transação
+            Transaction transaction = createTransaction(
+                    account.getId(),
+                    TransactionType.WITHDRAW,
+                    request.getAmount(),
+                    request.getDescription(),
+                    previousBalance,
+                    newBalance,
+                    Transaction.TransactionStatus.COMPLETED
             );
-        }
+            ledgerService.withdraw(transaction.getTransactionId(), account.getId(), request.getAmount(), newBalance);
 
-        BigDecimal previousBalance = account.getBalance();
-
-        // Executa o saque
-        account.withdraw(request.getAmount());
-        Account updatedAccount = accountService.updateAccount(account);
-
-        // Registra a transação
-        Transaction transaction = createTransaction(
-                updatedAccount,
-                TransactionType.WITHDRAW,
-                request.getAmount(),
-                request.getDescription(),
-                Transaction.TransactionStatus.COMPLETED
-        );
-
-        System.out.println("Saque realizado com sucesso. Novo saldo: R$ " + updatedAccount.getBalance());
-
-        return new TransactionResponse(
-                "WITHDRAW",
-                accountNumber,
-                request.getAmount(),
-                previousBalance,
-                updatedAccount.getBalance(),
-                "Saque realizado com sucesso"
-        );
+            log.debug("Saque realizado com sucesso. Novo saldo: R$ {}", newBalance);
+
+            return new TransactionResponse(
+                    "WITHDRAW",
+                    accountNumber,
+                    request.getAmount(),
+                    previousBalance,
+                    newBalance,
+                    "Saque realizado com sucesso"
+            );
+        });
     }
     
-    private Transaction createTransaction(Account account, 
+    private Transaction createTransaction(Long accountId, 
                                         TransactionType type, 
                                         BigDecimal amount, 
                                         String description, 
+                                        BigDecimal previousBalance,
+                                        BigDecimal newBalance,
                                         Transaction.TransactionStatus status) {
         
         Transaction transaction = new Transaction();
         transaction.setTransactionId(generateTransactionId());
-        transaction.setAccountId(account.getId());
+        transaction.setAccountId(accountId);
         transaction.setType(type);
         transaction.setAmount(amount);
         transaction.setDescription(description);
-        
-        // Calcula saldo anterior corretamente
-        BigDecimal previousBalance = type == TransactionType.DEPOSIT 
-            ? account.getBalance().subtract(amount) 
-            : account.getBalance().add(amount);
-            
         transaction.setPreviousBalance(previousBalance);
-        transaction.setNewBalance(account.getBalance());
+        transaction.setNewBalance(newBalance);
         transaction.setStatus(status);
-        transaction.setCreatedAt(LocalDateTime.now());
-        
-        return transactionRepository.save(transaction);
+
+        // Id e created_at vêm do record(); gravada em lote depois do commit (ver TransactionAuditWriter)
+        auditWriter.record(transaction);
+        return transaction;
     }
     
     private String generateTransactionId() {
-        return "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+        return idGenerator.nextTransactionId("TXN");
     }
     
-    public List<Transaction> getAccountTransactions(Long accountId) {
-        return transactionRepository.findByAccountId(accountId);
+    /** Espera as linhas de depósito e saque já confirmadas da conta chegarem ao banco. */
+    public void awaitRecorded(Long accountId) {
+        auditWriter.awaitAccount(accountId);
     }
 
-    // Método para listar transações recentes (depósitos + PIX)
-   public List<AccountTransactionDTO> getTransactionsForAccount(Long accountId) {
-        List<AccountTransactionDTO> list = new ArrayList<>();
-
-        // 1️⃣ Depósitos (entrada)
-        List<Transaction> deposits = transactionRepository.findByAccountId(accountId);
-        for (Transaction t : deposits) {
-            Account account = accountService.getAccountById(t.getAccountId())
-                    .orElseThrow(() -> new RuntimeException("Conta não encontrada para o depósito"));
-
-            AccountTransactionDTO dto = new AccountTransactionDTO();
-            dto.setType("DEPOSIT");
-            dto.setDirection("IN");
-            dto.setAmount(t.getAmount());
-            dto.setCreatedAt(t.getCreatedAt());
-            dto.setDescription(t.getDescription());
-            dto.setTransactionId(t.getTransactionId());
-            dto.setPixKey(null);
-
-            // Para depósitos, remetente = destinatário
-            dto.setFromUserName(account.getUserName());
-            dto.setToUserName(account.getUserName());
-
-            list.add(dto);
+    /** Movimentações da conta (depósitos e saques), paginadas por cursor. */
+    public CursorPage<Transaction> getAccountTransactions(Long accountId, String cursor, int limit) {
+        int size = pageSize(limit);
+        StatementCursor after = StatementCursor.decode(cursor);
+        auditWriter.awaitAccount(accountId);
+        if (after != null && after.getSource() != StatementCursor.TRANSACTION) {
+            throw new InvalidCursorException("Cursor de paginação inválido");
         }
 
-        // 2️⃣ PIX (entrada e saída)
-        List<PixTransaction> pixList = pixTransactionRepository.findByFromAccountIdOrToAccountId(accountId, accountId);
-        for (PixTransaction p : pixList) {
-            Account fromAccount = accountService.getAccountById(p.getFromAccountId())
-                    .orElseThrow(() -> new RuntimeException("Conta de origem não encontrada"));
-
-            Account toAccount = accountService.getAccountById(p.getToAccountId())
-                    .orElseThrow(() -> new RuntimeException("Conta de destino não encontrada"));
-
-            AccountTransactionDTO dto = new AccountTransactionDTO();
-            dto.setType("PIX");
-            dto.setAmount(p.getAmount());
-            dto.setCreatedAt(p.getCreatedAt());
-            dto.setDescription(p.getDescription());
-            dto.setTransactionId(p.getTransactionId());
-            dto.setPixKey(p.getPixKey());
-            dto.setFromUserName(fromAccount.getUserName());
-            dto.setToUserName(toAccount.getUserName());
-
-            // Determina direção da transação para a conta que estamos consultando
-            if (p.getFromAccountId().equals(accountId)) {
-                dto.setDirection("OUT"); // saiu da conta
-            } else {
-                dto.setDirection("IN");  // entrou na conta
-            }
+        // Uma linha a mais só para saber se existe próxima página
+        PageRequest page = PageRequest.of(0, size + 1);
+        List<Transaction> rows = after == null
+                ? transactionRepository.findFirstPageByAccountId(accountId, page)
+                : transactionRepository.findPageByAccountIdAfter(accountId, after.getCreatedAt(), after.getId(), page);
 
-            list.add(dto);
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
         }
+        List<Transaction> items = new ArrayList<>(rows.subList(0, size));
+        Transaction last = items.get(size - 1);
+        String next = new StatementCursor(last.getCreatedAt(), StatementCursor.TRANSACTION, last.getId()).encode();
+        return new CursorPage<>(items, next);
+    }
 
-        // Ordena por data decrescente (mais recentes primeiro)
-        list.sort((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()));
+    /** Extrato (depósitos, saques e PIX), mais recentes primeiro, paginado por cursor. */
+    public CursorPage<AccountTransactionDTO> getTransactionsForAccount(Long accountId, String cursor, int limit) {
+        int size = pageSize(limit);
+        StatementCursor after = StatementCursor.decode(cursor);
+        auditWriter.awaitAccount(accountId);
+        LocalDateTime boundary = archivedStatements.boundary();
+        if (boundary == null) {
+            return statementRepository.findPage(accountId, after, size);
+        }
 
-        return list;
-    }
+        // Tudo que está arquivado é anterior a tudo que está no banco: o banco primeiro, depois o arquivo
+        List<AccountTransactionDTO> items = new ArrayList<>(size);
+        if (after == null || !after.getCreatedAt().isBefore(boundary)) {
+            CursorPage<AccountTransactionDTO> online = statementRepository.findPage(accountId, after, size);
+            if (online.hasNext()) {
+                return online;
+            }
+            items.addAll(online.getItems());
+            after = null;
+        }
 
+        int remaining = size - items.size();
+        List<ArchivedStatementRepository.Entry> archived =
+                archivedStatements.findAfter(accountId, after, Math.max(remaining, 0) + 1);
+        if (archived.size() <= remaining) {
+            archived.forEach(entry -> items.add(entry.getTransaction()));
+            return new CursorPage<>(items, null);
+        }
+        if (remaining == 0) {
+            // Página cheia exatamente no fim do banco: a próxima começa no arquivo
+            StatementCursor start = new StatementCursor(boundary.minusNanos(1), StatementCursor.TRANSACTION, Long.MAX_VALUE);
+            return new CursorPage<>(items, start.encode());
+        }
+        archived.subList(0, remaining).forEach(entry -> items.add(entry.getTransaction()));
+        return new CursorPage<>(items, archived.get(remaining - 1).getPosition().encode());
+    }
 
-}
\ No newline at end of file
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+}
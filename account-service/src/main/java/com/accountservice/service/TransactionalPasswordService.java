@@ -1,5 +1,6 @@
 package com.accountservice.service;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
@@ -10,27 +11,56 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.accountservice.dto.ResetTransactionalPasswordRequest;
+import com.accountservice.dto.StepUpRequest;
+import com.accountservice.dto.StepUpTokenResponse;
 import com.accountservice.dto.TransactionalPasswordRequest;
 import com.accountservice.dto.UpdateTransactionalPasswordRequest;
 import com.accountservice.exception.AccountNotFoundException;
 import com.accountservice.exception.InvalidTransactionalPasswordException;
 import com.accountservice.exception.PasswordAlreadySetException;
 import com.accountservice.exception.PasswordMismatchException;
+import com.accountservice.exception.PasswordNotSetException;
 import com.accountservice.exception.TokenExpiredException;
 import com.accountservice.model.Account;
 import com.accountservice.repository.AccountRepository;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class TransactionalPasswordService {
     private static final Logger log = LoggerFactory.getLogger(TransactionalPasswordService.class);
     private final AccountRepository accountRepository;
     private final AccountService accountService;
     private final PasswordEncoder passwordEncoder;
+    private final StepUpTokenService stepUpTokenService;
+    private final PasswordAttemptTracker attemptTracker;
+    private final Timer bcryptTimer;
+    private final Counter bcryptAvoided;
+    private final Counter stepUpIssued;
+    private final Counter stepUpRejected;
     
-    public TransactionalPasswordService(AccountService accountService, PasswordEncoder passwordEncoder, AccountRepository accountRepository) {
+    public TransactionalPasswordService(AccountService accountService, PasswordEncoder passwordEncoder, AccountRepository accountRepository,
+                                        StepUpTokenService stepUpTokenService, PasswordAttemptTracker attemptTracker,
+                                        MeterRegistry meterRegistry) {
         this.accountService = accountService;
         this.passwordEncoder = passwordEncoder;
         this.accountRepository = accountRepository;
+        this.stepUpTokenService = stepUpTokenService;
+        this.attemptTracker = attemptTracker;
+        this.bcryptTimer = Timer.builder("bank.password.bcrypt")
+                .description("Verificações BCrypt da senha transacional")
+                .register(meterRegistry);
+        this.bcryptAvoided = Counter.builder("bank.password.bcrypt.avoided")
+                .description("Operações autorizadas por token de step-up, sem BCrypt")
+                .register(meterRegistry);
+        this.stepUpIssued = Counter.builder("bank.step-up.issued")
+                .description("Tokens de step-up emitidos")
+                .register(meterRegistry);
+        this.stepUpRejected = Counter.builder("bank.step-up.rejected")
+                .description("Tokens de step-up recusados (assinatura, validade, dispositivo ou valor)")
+                .register(meterRegistry);
     }
     
     // ================================
@@ -55,8 +85,9 @@ public class TransactionalPasswordService {
         
         
         accountService.updateAccount(account);
+        attemptTracker.reset(account.getId());
         
-        System.out.println("✅ Senha transacional configurada para conta: " + account.getAccountNumber());
+        log.debug("✅ Senha transacional configurada para conta: {}", account.getAccountNumber());
     }
     
     // ================================
@@ -67,7 +98,7 @@ public class TransactionalPasswordService {
         Account account = getPrimaryAccount(userId);
 
         // Valida senha atual
-        account.validateTransactionalPassword(request.getCurrentPassword(), passwordEncoder);
+        verifyPassword(account, request.getCurrentPassword());
 
         // Verifica se nova senha e confirmação são iguais
         if (!request.getNewPassword().equals(request.getConfirmPassword())) {
@@ -82,8 +113,9 @@ public class TransactionalPasswordService {
         // Define nova senha
         account.setTransactionalPassword(request.getNewPassword(), passwordEncoder);
         accountService.updateAccount(account);
+        attemptTracker.reset(account.getId());
 
-        System.out.println("✅ Senha transacional alterada para conta: " + account.getAccountNumber());
+        log.debug("✅ Senha transacional alterada para conta: {}", account.getAccountNumber());
     }
 
 
@@ -93,16 +125,60 @@ public class TransactionalPasswordService {
     // ================================
     
     public boolean authorizeTransaction(Long userId, String transactionalPassword) {
-    Account account = getPrimaryAccount(userId);
+        Account account = getPrimaryAccount(userId);
+        // Acerto sem erros anteriores não escreve nada; erros ficam no PasswordAttemptTracker
+        verifyPassword(account, transactionalPassword);
+        return true;
+    }
 
-    if (!account.validateTransactionalPassword(transactionalPassword, passwordEncoder)) {
-        throw new InvalidTransactionalPasswordException("Senha transacional inválida");
+    /**
+     * Autoriza pelo token de step-up quando ele vale para este usuário, dispositivo
+     * e valor; senão, cai na senha transacional (se informada).
+     */
+    public boolean authorizeTransaction(Long userId, String transactionalPassword,
+                                        String stepUpToken, String deviceId, BigDecimal amount) {
+        if (stepUpToken == null) {
+            return authorizeTransaction(userId, transactionalPassword);
+        }
+        Account account = getPrimaryAccount(userId);
+        // Bloqueio por tentativas erradas vale também para quem já tem token
+        if (account.getPasswordBlockedUntil() == null || LocalDateTime.now().isAfter(account.getPasswordBlockedUntil())) {
+            if (stepUpTokenService.verify(stepUpToken, userId, deviceId, amount, account.getTransactionalPassword())) {
+                bcryptAvoided.increment();
+                return true;
+            }
+        }
+        stepUpRejected.increment();
+        if (transactionalPassword == null) {
+            throw new InvalidTransactionalPasswordException("Token de autorização inválido ou expirado. Informe a senha transacional");
+        }
+        return authorizeTransaction(userId, transactionalPassword);
     }
 
-    accountService.updateAccount(account); // Salva tentativas falhas
-    return true;
-}
+    // ================================
+    // STEP-UP: UMA SENHA, VÁRIAS OPERAÇÕES
+    // ================================
+    public StepUpTokenResponse issueStepUpToken(Long userId, String deviceId, StepUpRequest request) {
+        Account account = getPrimaryAccount(userId);
+        verifyPassword(account, request.getPassword());
+
+        stepUpIssued.increment();
+        log.info("Token de step-up emitido para o usuário {} (até R$ {})", userId, request.getMaxAmount());
+        return stepUpTokenService.issue(userId, deviceId, request.getMaxAmount(), account.getTransactionalPassword());
+    }
 
+    private void verifyPassword(Account account, String transactionalPassword) {
+        attemptTracker.checkNotBlocked(account);
+        if (account.getTransactionalPassword() == null || !account.isTransactionalPasswordSet()) {
+            throw new PasswordNotSetException("Senha transacional não configurada");
+        }
+        boolean valid = transactionalPassword != null
+                && bcryptTimer.record(() -> passwordEncoder.matches(transactionalPassword, account.getTransactionalPassword()));
+        if (!valid) {
+            throw attemptTracker.recordFailure(account);
+        }
+        attemptTracker.recordSuccess(account);
+    }
     
     // ================================
     // STATUS DA SENHA
@@ -126,10 +202,7 @@ public class TransactionalPasswordService {
     // UTILITÁRIO
     // ================================
     private Account getPrimaryAccount(Long userId) {
-        return accountService.getUserAccounts(userId).stream()
-            .filter(acc -> acc.getStatus() == Account.AccountStatus.ACTIVE)
-            .findFirst()
-            .orElseThrow(() -> new RuntimeException("Usuário não possui conta ativa"));
+        return accountService.getActivePrimaryAccount(userId);
     }
     
 
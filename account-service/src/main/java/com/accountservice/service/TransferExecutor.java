@@ -0,0 +1,133 @@
+package com.accountservice.service;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.exception.AccountLockTimeoutException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Executa movimentações entre duas contas sem deadlock:
+ * locks em memória na ordem canônica dos stripes, UPDATEs no banco em ordem
+ * crescente de id, e nova tentativa quando o banco escolhe a transação como
+ * vítima de deadlock / timeout de lock.
+ */
+@Service
+public class TransferExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferExecutor.class);
+
+    private final AccountLockManager lockManager;
+    private final AccountService accountService;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+    private final Counter retries;
+
+    public TransferExecutor(AccountLockManager lockManager,
+                            AccountService accountService,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${bank.transfer.max-attempts:3}") int maxAttempts,
+                            @Value("${bank.transfer.retry-backoff-ms:20}") long retryBackoffMillis) {
+        this.lockManager = lockManager;
+        this.accountService = accountService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.retries = Counter.builder("bank.transfer.retries")
+                .description("Transferências repetidas após deadlock ou timeout de lock no banco")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Roda {@code work} em uma transação nova com as duas contas travadas.
+     * O trabalho pode ser repetido, então não deve ter efeitos fora do banco.
+     */
+    public <T> T execute(Long fromAccountId, Long toAccountId, Supplier<T> work) {
+        return execute(List.of(fromAccountId, toAccountId), work);
+    }
+
+    /** Como {@link #execute(Long, Long, Supplier)}, para N contas (bloco do PIX em lote). */
+    public <T> T execute(Collection<Long> accountIds, Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return lockManager.withLocks(accountIds, () -> transactionTemplate.execute(status -> work.get()));
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= maxAttempts) {
+                    throw new AccountLockTimeoutException("Transferência não concluída após " + attempt + " tentativas");
+                }
+                retries.increment();
+                log.warn("Conflito de lock na movimentação das contas {} (tentativa {}): {}",
+                        accountIds, attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Debita e credita dentro da transação corrente, emitindo os UPDATEs em
+     * ordem crescente de id para que os row locks do banco também sigam a ordem canônica.
+     * Devolve os saldos resultantes das duas contas.
+     */
+    public MovedFunds moveFunds(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        BigDecimal fromBalance;
+        BigDecimal toBalance;
+        if (fromAccountId <= toAccountId) {
+            fromBalance = accountService.debit(fromAccountId, amount);
+            toBalance = accountService.credit(toAccountId, amount);
+        } else {
+            toBalance = accountService.credit(toAccountId, amount);
+            fromBalance = accountService.debit(fromAccountId, amount);
+        }
+        return new MovedFunds(fromBalance, toBalance);
+    }
+
+    public void transfer(Long fromAccountId, Long toAccountId, BigDecimal amount) {
+        execute(fromAccountId, toAccountId, () -> {
+            moveFunds(fromAccountId, toAccountId, amount);
+            return null;
+        });
+    }
+
+    public static final class MovedFunds {
+        private final BigDecimal fromBalance;
+        private final BigDecimal toBalance;
+
+        private MovedFunds(BigDecimal fromBalance, BigDecimal toBalance) {
+            this.fromBalance = fromBalance;
+            this.toBalance = toBalance;
+        }
+
+        public BigDecimal getFromBalance() {
+            return fromBalance;
+        }
+
+        public BigDecimal getToBalance() {
+            return toBalance;
+        }
+    }
+
+    private void backoff(int attempt) {
+        long jitter = ThreadLocalRandom.current().nextLong(retryBackoffMillis + 1);
+        try {
+            Thread.sleep(retryBackoffMillis * attempt + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AccountLockTimeoutException("Transferência interrompida");
+        }
+    }
+}
@@ -0,0 +1,54 @@
+-- Histórico particionado por mês no PostgreSQL.
+--
+-- Rodar antes da primeira subida, com spring.jpa.hibernate.ddl-auto=validate (ou none).
+-- O HistoryPartitionManager detecta as tabelas particionadas e cria, na subida e
+-- todo dia 1º, as partições do mês corrente e dos próximos (bank.history.months-ahead).
+-- Chaves únicas precisam conter a chave de partição: por isso (id, created_at) e
+-- (transaction_id, created_at).
+
+CREATE TABLE transactions (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    transaction_id   VARCHAR(50)    NOT NULL,
+    account_id       BIGINT         NOT NULL,
+    type             VARCHAR(20)    NOT NULL,
+    amount           NUMERIC(15, 2) NOT NULL,
+    previous_balance NUMERIC(15, 2),
+    new_balance      NUMERIC(15, 2),
+    description      VARCHAR(500),
+    status           VARCHAR(20)    NOT NULL,
+    created_at       TIMESTAMP      NOT NULL,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (transaction_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_transactions_account_created ON transactions (account_id, created_at);
+CREATE INDEX idx_transactions_created ON transactions (created_at);
+
+CREATE TABLE pix_transactions (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    transaction_id  VARCHAR(50)    NOT NULL,
+    from_user_id    BIGINT         NOT NULL,
+    from_account_id BIGINT         NOT NULL,
+    to_user_id      BIGINT         NOT NULL,
+    to_account_id   BIGINT         NOT NULL,
+    amount          NUMERIC(15, 2) NOT NULL,
+    key_type        VARCHAR(20)    NOT NULL,
+    pix_key         VARCHAR(100)   NOT NULL,
+    description     VARCHAR(500),
+    status          VARCHAR(20)    NOT NULL,
+    created_at      TIMESTAMP      NOT NULL,
+    processed_at    TIMESTAMP,
+    PRIMARY KEY (id, created_at),
+    UNIQUE (transaction_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_pix_tx_from_account_created ON pix_transactions (from_account_id, created_at);
+CREATE INDEX idx_pix_tx_to_account_created ON pix_transactions (to_account_id, created_at);
+CREATE INDEX idx_pix_tx_from_user ON pix_transactions (from_user_id);
+CREATE INDEX idx_pix_tx_to_user ON pix_transactions (to_user_id);
+CREATE INDEX idx_pix_tx_status_created ON pix_transactions (status, created_at);
+CREATE INDEX idx_pix_tx_created ON pix_transactions (created_at);
+
+-- Rede de segurança para linhas fora das partições mensais já criadas
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+CREATE TABLE pix_transactions_default PARTITION OF pix_transactions DEFAULT;
@@ -0,0 +1,121 @@
+package com.accountservice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import com.accountservice.service.PixKeyDirectory;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Resolução de chave PIX pelo banco (consulta por key_value, como era na
+ * transferência) vs. pelo PixKeyDirectory, para chaves existentes e para
+ * chaves inexistentes (descartadas pelo filtro de Bloom). O diretório é
+ * carregado da mesma tabela pelo rebuild de produção.
+ *
+ * Rodar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.accountservice.benchmark.PixKeyDirectoryBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(value = 1, jvmArgs = { "-Xmx4g" })
+@Warmup(iterations = 2, time = 3)
+@Measurement(iterations = 5, time = 3)
+public class PixKeyDirectoryBenchmark {
+
+	private static final String FIND_SQL =
+			"SELECT id, user_id, key_type, key_value, owner_name, status FROM pix_keys WHERE key_value = ?";
+
+	@Param({ "1000000", "5000000" })
+	public int keys;
+
+	private File dbFile;
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbc;
+	private PixKeyDirectory directory;
+
+	@Setup(Level.Trial)
+	public void seed() throws IOException {
+		dbFile = File.createTempFile("pix-directory-bench", "");
+		dataSource = new SingleConnectionDataSource(
+				"jdbc:h2:file:" + dbFile.getAbsolutePath() + ";CACHE_SIZE=262144", "sa", "", true);
+		jdbc = new JdbcTemplate(dataSource);
+
+		// Mesmo esquema e índices de PixKey
+		jdbc.execute("CREATE TABLE pix_keys (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, key_type VARCHAR(20) NOT NULL,"
+				+ " key_value VARCHAR(100) NOT NULL, owner_name VARCHAR(100) NOT NULL, status VARCHAR(20) NOT NULL,"
+				+ " created_at TIMESTAMP NOT NULL, UNIQUE (key_value, key_type))");
+		jdbc.update("INSERT INTO pix_keys SELECT x, x, 'EMAIL', 'cliente' || x || '@nexo.com', 'Cliente ' || x, 'ACTIVE',"
+				+ " TIMESTAMP '2024-01-01 00:00:00' FROM SYSTEM_RANGE(1, " + keys + ")");
+		jdbc.execute("CREATE INDEX idx_pix_keys_created_at ON pix_keys (created_at)");
+		jdbc.execute("ANALYZE");
+
+		directory = new PixKeyDirectory(jdbc, new SimpleMeterRegistry(), keys, 0.01, 10);
+		directory.afterSingletonsInstantiated();
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() {
+		dataSource.destroy();
+		new File(dbFile.getAbsolutePath() + ".mv.db").delete();
+		dbFile.delete();
+	}
+
+	@Benchmark
+	public Object databaseHit() {
+		return jdbc.queryForList(FIND_SQL, existingKey());
+	}
+
+	@Benchmark
+	public Object databaseUnknown() {
+		return jdbc.queryForList(FIND_SQL, unknownKey());
+	}
+
+	@Benchmark
+	public Optional<PixKeyDirectory.Entry> directoryHit() {
+		return directory.find(existingKey());
+	}
+
+	// Chave digitada errado ou sondagem: o filtro responde sem tocar no mapa
+	@Benchmark
+	public Optional<PixKeyDirectory.Entry> directoryUnknown() {
+		return directory.find(unknownKey());
+	}
+
+	private String existingKey() {
+		return "cliente" + (ThreadLocalRandom.current().nextInt(keys) + 1) + "@nexo.com";
+	}
+
+	private String unknownKey() {
+		return "cliente" + (ThreadLocalRandom.current().nextInt(keys) + 1) + "@nexo.com.br";
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PixKeyDirectoryBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,167 @@
+package com.accountservice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Latência das consultas dos repositórios com e sem os índices secundários, com
+ * 10M de linhas em transactions e em pix_transactions. Os índices e as consultas
+ * são os das entidades e repositórios; {@code indexed=false} reproduz o esquema e
+ * o OR anteriores. Para uma rodada rápida: {@code -p rows=1000000}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 3, time = 5)
+public class RepositoryIndexBenchmark {
+
+	private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+	@Param({ "10000000" })
+	public int rows;
+
+	@Param({ "false", "true" })
+	public boolean indexed;
+
+	private int accounts;
+	private File dbFile;
+	private SingleConnectionDataSource dataSource;
+	private JdbcTemplate jdbc;
+
+	@Setup(Level.Trial)
+	public void seed() throws IOException {
+		accounts = Math.max(1, rows / 10);
+		dbFile = File.createTempFile("index-bench", "");
+		dataSource = new SingleConnectionDataSource(
+				"jdbc:h2:file:" + dbFile.getAbsolutePath() + ";CACHE_SIZE=262144", "sa", "", true);
+		jdbc = new JdbcTemplate(dataSource);
+
+		jdbc.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, user_id BIGINT NOT NULL, status VARCHAR(20) NOT NULL,"
+				+ " activation_token VARCHAR(100), balance DECIMAL(15,2))");
+		jdbc.execute("CREATE TABLE transactions (id BIGINT PRIMARY KEY, transaction_id VARCHAR(50), account_id BIGINT NOT NULL,"
+				+ " type VARCHAR(20), amount DECIMAL(15,2), status VARCHAR(20), created_at TIMESTAMP NOT NULL)");
+		jdbc.execute("CREATE TABLE pix_transactions (id BIGINT PRIMARY KEY, transaction_id VARCHAR(50),"
+				+ " from_user_id BIGINT NOT NULL, from_account_id BIGINT NOT NULL, to_user_id BIGINT NOT NULL,"
+				+ " to_account_id BIGINT NOT NULL, amount DECIMAL(15,2), status VARCHAR(20), created_at TIMESTAMP NOT NULL)");
+
+		// Titular = id da conta; 1 em 10 contas ainda com token de ativação
+		jdbc.update("INSERT INTO accounts SELECT x, x, 'ACTIVE', CASE WHEN MOD(x, 10) = 0 THEN 'tok-' || x END, 0"
+				+ " FROM SYSTEM_RANGE(1, " + accounts + ")");
+		jdbc.update("INSERT INTO transactions SELECT x, 'TXN' || x, MOD(x * 7919, " + accounts + ") + 1,"
+				+ " CASE WHEN MOD(x, 3) = 0 THEN 'WITHDRAW' ELSE 'DEPOSIT' END, MOD(x, 1000) + 0.50, 'COMPLETED',"
+				+ " DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, " + rows + ")");
+		// 0,1% FAILED: findByStatus(FAILED) é a consulta seletiva típica
+		jdbc.update("INSERT INTO pix_transactions SELECT x, 'PIX' || x,"
+				+ " MOD(x * 31, " + accounts + ") + 1, MOD(x * 31, " + accounts + ") + 1,"
+				+ " MOD(x * 17, " + accounts + ") + 1, MOD(x * 17, " + accounts + ") + 1,"
+				+ " MOD(x, 500) + 0.25, CASE WHEN MOD(x, 1000) = 0 THEN 'FAILED' ELSE 'COMPLETED' END,"
+				+ " DATEADD('SECOND', x, TIMESTAMP '2024-01-01 00:00:00') FROM SYSTEM_RANGE(1, " + rows + ")");
+
+		if (indexed) {
+			// Mesmos índices declarados em Account, Transaction e PixTransaction
+			jdbc.execute("CREATE INDEX idx_accounts_user_status ON accounts (user_id, status)");
+			jdbc.execute("CREATE INDEX idx_accounts_activation_token ON accounts (activation_token)");
+			jdbc.execute("CREATE INDEX idx_transactions_account_created ON transactions (account_id, created_at)");
+			jdbc.execute("CREATE INDEX idx_transactions_created ON transactions (created_at)");
+			jdbc.execute("CREATE INDEX idx_pix_tx_from_account_created ON pix_transactions (from_account_id, created_at)");
+			jdbc.execute("CREATE INDEX idx_pix_tx_to_account_created ON pix_transactions (to_account_id, created_at)");
+			jdbc.execute("CREATE INDEX idx_pix_tx_status_created ON pix_transactions (status, created_at)");
+			jdbc.execute("CREATE INDEX idx_pix_tx_created ON pix_transactions (created_at)");
+		}
+		jdbc.execute("ANALYZE");
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() {
+		dataSource.destroy();
+		new File(dbFile.getAbsolutePath() + ".mv.db").delete();
+		dbFile.delete();
+	}
+
+	// TransactionRepository.findByAccountId
+	@Benchmark
+	public int transactionsByAccount() {
+		return count("SELECT * FROM transactions WHERE account_id = ?", randomAccount());
+	}
+
+	// PixTransactionRepository.findByFromAccountIdOrToAccountId: OR antes, UNION agora
+	@Benchmark
+	public int pixByAccount() {
+		long account = randomAccount();
+		if (indexed) {
+			return count("SELECT * FROM pix_transactions WHERE from_account_id = ?"
+					+ " UNION SELECT * FROM pix_transactions WHERE to_account_id = ?"
+					+ " ORDER BY created_at DESC, id DESC", account, account);
+		}
+		return count("SELECT * FROM pix_transactions WHERE from_account_id = ? OR to_account_id = ?", account, account);
+	}
+
+	// PixTransactionRepository.findByStatus
+	@Benchmark
+	public int pixByStatus() {
+		return count("SELECT * FROM pix_transactions WHERE status = ?", "FAILED");
+	}
+
+	// PixTransactionRepository.findTransactionsByDateRange: janela de uma hora
+	@Benchmark
+	public int pixByDateRange() {
+		LocalDateTime from = START.plusSeconds(ThreadLocalRandom.current().nextLong(rows - 3600L));
+		return count("SELECT * FROM pix_transactions WHERE created_at BETWEEN ? AND ?",
+				Timestamp.valueOf(from), Timestamp.valueOf(from.plusHours(1)));
+	}
+
+	// AccountRepository.findByUserId
+	@Benchmark
+	public int accountsByUserId() {
+		return count("SELECT * FROM accounts WHERE user_id = ?", randomAccount());
+	}
+
+	// AccountRepository.findByActivationToken
+	@Benchmark
+	public int accountByActivationToken() {
+		return count("SELECT * FROM accounts WHERE activation_token = ?", "tok-" + randomAccount() / 10 * 10);
+	}
+
+	private long randomAccount() {
+		return ThreadLocalRandom.current().nextLong(accounts) + 1;
+	}
+
+	private int count(String sql, Object... args) {
+		int[] n = new int[1];
+		jdbc.query(sql, rs -> {
+			n[0]++;
+		}, args);
+		return n[0];
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(RepositoryIndexBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
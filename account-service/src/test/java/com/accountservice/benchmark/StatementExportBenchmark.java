@@ -0,0 +1,129 @@
+package com.accountservice.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.accountservice.repository.AccountStatementRepository;
+import com.accountservice.repository.ArchivedStatementRepository;
+import com.accountservice.service.StatementExportService;
+import com.accountservice.service.StatementExportService.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+/**
+ * Exportação de 1M de transações sintéticas de uma única conta. O fork roda com
+ * -Xmx256m: se a exportação acumulasse as linhas em memória, terminaria em OOM.
+ * Use o GCProfiler (já ligado no main) para ver a alocação por operação.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx256m")
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class StatementExportBenchmark {
+
+	private static final int ROWS = 1_000_000;
+	private static final long ACCOUNT_ID = 1L;
+
+	@Param({ "CSV", "NDJSON" })
+	public ExportFormat format;
+
+	@Param({ "false", "true" })
+	public boolean gzip;
+
+	private File dbFile;
+	private StatementExportService exportService;
+
+	@Setup(Level.Trial)
+	public void seed() throws IOException {
+		// Banco em arquivo: os dados não disputam o heap limitado com a exportação
+		dbFile = File.createTempFile("statement-bench", "");
+		DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:file:" + dbFile.getAbsolutePath() + ";CACHE_SIZE=16384", "sa", "");
+		JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+		jdbc.execute("CREATE TABLE accounts (id BIGINT PRIMARY KEY, user_name VARCHAR(100))");
+		jdbc.execute("CREATE TABLE transactions (id BIGINT PRIMARY KEY, transaction_id VARCHAR(50), account_id BIGINT,"
+				+ " type VARCHAR(20), amount DECIMAL(15,2), description VARCHAR(500), created_at TIMESTAMP)");
+		jdbc.execute("CREATE TABLE pix_transactions (id BIGINT PRIMARY KEY, transaction_id VARCHAR(50),"
+				+ " from_account_id BIGINT, to_account_id BIGINT, amount DECIMAL(15,2), pix_key VARCHAR(100),"
+				+ " description VARCHAR(500), created_at TIMESTAMP)");
+		jdbc.update("INSERT INTO accounts VALUES (1, 'Titular Benchmark'), (2, 'Contraparte, Ltda')");
+
+		// 80% depósitos/saques, 20% PIX alternando entrada e saída
+		jdbc.update("INSERT INTO transactions SELECT x, 'TXN' || x, 1, CASE WHEN MOD(x, 3) = 0 THEN 'WITHDRAW' ELSE 'DEPOSIT' END,"
+				+ " MOD(x, 1000) + 0.50, 'lançamento ' || x, DATEADD('SECOND', x, TIMESTAMP '2020-01-01 00:00:00')"
+				+ " FROM SYSTEM_RANGE(1, " + (ROWS * 4 / 5) + ")");
+		jdbc.update("INSERT INTO pix_transactions SELECT x, 'PIX' || x, CASE WHEN MOD(x, 2) = 0 THEN 1 ELSE 2 END,"
+				+ " CASE WHEN MOD(x, 2) = 0 THEN 2 ELSE 1 END, MOD(x, 500) + 0.25, 'chave@pix.com', 'pix \"' || x || '\"',"
+				+ " DATEADD('SECOND', x * 4, TIMESTAMP '2020-01-01 00:00:00') FROM SYSTEM_RANGE(1, " + (ROWS / 5) + ")");
+
+		ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+		AccountStatementRepository repository =
+				new AccountStatementRepository(new NamedParameterJdbcTemplate(dataSource), dataSource, 1000);
+		// Nenhum mês arquivado: mede só o caminho do banco
+		ArchivedStatementRepository archive = new ArchivedStatementRepository(dataSource, "target/archive", 1L << 30, 1000);
+		exportService = new StatementExportService(repository, archive, objectMapper,
+				new DataSourceTransactionManager(dataSource));
+	}
+
+	@TearDown(Level.Trial)
+	public void cleanup() {
+		new File(dbFile.getAbsolutePath() + ".mv.db").delete();
+		dbFile.delete();
+	}
+
+	@Benchmark
+	public long export() throws IOException {
+		CountingOutputStream out = new CountingOutputStream();
+		exportService.export(ACCOUNT_ID, format, gzip, out);
+		return out.bytes;
+	}
+
+	// Descarta os bytes, contando só o tamanho: mede o caminho banco → serialização
+	private static final class CountingOutputStream extends OutputStream {
+		private long bytes;
+
+		@Override
+		public void write(int b) {
+			bytes++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+			bytes += len;
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(StatementExportBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,59 @@
+package com.accountservice.benchmark;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import com.accountservice.service.TransactionIdGenerator;
+
+/**
+ * Esquema antigo (currentTimeMillis + UUID) vs. gerador Snowflake, com 32 threads.
+ *
+ * Rodar com: mvn test-compile exec:java -Dexec.classpathScope=test
+ *   -Dexec.mainClass=com.accountservice.benchmark.TransactionIdBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(32)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionIdBenchmark {
+
+	private final TransactionIdGenerator generator = new TransactionIdGenerator(1);
+
+	@Benchmark
+	public String legacyUuid() {
+		return "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+	}
+
+	@Benchmark
+	public String snowflakeTransactionId() {
+		return generator.nextTransactionId("TXN");
+	}
+
+	@Benchmark
+	public long snowflakeId() {
+		return generator.nextId();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(TransactionIdBenchmark.class.getSimpleName())
+				.build()).run();
+	}
+}
@@ -0,0 +1,79 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.model.Account;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class AccountCacheTest {
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private AccountCache accountCache;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void balanceReadsAreCachedAndInvalidatedByWrites() {
+		Account account = accountService.createAccountForUser(
+				900601L, "Iris Cache", "00000000601", "iris@nexo.com", "11900000601", Account.AccountType.CORRENTE);
+		String number = account.getAccountNumber();
+
+		assertEquals(0, BigDecimal.ZERO.compareTo(accountService.getBalance(number)));
+		double hits = hits();
+		assertEquals(0, BigDecimal.ZERO.compareTo(accountService.getBalance(number)));
+		assertEquals(hits + 1, hits());
+
+		TransactionRequest request = new TransactionRequest();
+		request.setAmount(new BigDecimal("30.00"));
+		request.setDescription("cache");
+		transactionService.deposit(number, request);
+		assertEquals(0, new BigDecimal("30.00").compareTo(accountService.getBalance(number)));
+
+		// Durante a transação de escrita a conta é lida do banco e não volta ao cache
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			accountService.credit(account.getId(), new BigDecimal("5.00"));
+			accountService.getBalance(number);
+			status.setRollbackOnly();
+		});
+		assertEquals(0, new BigDecimal("30.00").compareTo(accountService.getBalance(number)));
+	}
+
+	@Test
+	void indexHoldsOnlyCachedAccounts() {
+		Account account = accountService.createAccountForUser(
+				900602L, "Ivo Cache", "00000000602", "ivo@nexo.com", "11900000602", Account.AccountType.CORRENTE);
+		int indexed = accountCache.indexedAccounts();
+
+		accountService.getBalance(account.getAccountNumber());
+		assertEquals(indexed + 1, accountCache.indexedAccounts());
+
+		// Entrada invalidada sai do índice junto
+		accountCache.invalidate(account.getId());
+		assertEquals(indexed, accountCache.indexedAccounts());
+	}
+
+	private double hits() {
+		return meterRegistry.get("bank.account.cache").tag("result", "hit").counter().count();
+	}
+}
@@ -0,0 +1,60 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+class AccountNumberAllocatorTest {
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void checkDigitDetectsSingleDigitChanges() {
+		String number = AccountNumberAllocator.format(1234567);
+		assertEquals(10, number.length());
+		assertTrue(AccountNumberAllocator.isValid(number));
+		assertFalse(AccountNumberAllocator.isValid("01234568" + number.substring(8)));
+		assertFalse(AccountNumberAllocator.isValid("12345-6"));
+	}
+
+	@Test
+	void instancesSharingTheSequenceNeverHandOutTheSameNumber() throws Exception {
+		// Duas "instâncias" com blocos pequenos disputando a mesma linha de sequência
+		AccountNumberAllocator first = new AccountNumberAllocator(jdbcTemplate, transactionManager, 7, 1);
+		AccountNumberAllocator second = new AccountNumberAllocator(jdbcTemplate, transactionManager, 7, 1);
+		Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		for (int i = 0; i < 8; i++) {
+			AccountNumberAllocator allocator = i % 2 == 0 ? first : second;
+			executor.submit(() -> {
+				for (int j = 0; j < 250; j++) {
+					String number = allocator.nextAccountNumber();
+					assertTrue(AccountNumberAllocator.isValid(number));
+					numbers.add(number);
+				}
+			});
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+		assertEquals(8 * 250, numbers.size());
+	}
+}
@@ -0,0 +1,160 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.CursorPage;
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.model.Account;
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixTransaction;
+import com.accountservice.repository.PixTransactionRepository;
+
+@SpringBootTest
+class AccountStatementQueryCountTest {
+
+	private static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+	// Só a thread do teste conta: jobs agendados podem abrir statements em paralelo
+	private static volatile Thread countedThread;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private PixTransactionRepository pixTransactionRepository;
+
+	@Test
+	void statementIsASingleQueryRegardlessOfSize() {
+		Account a = accountService.createAccountForUser(
+				900201L, "Ana Extrato", "00000000201", "ana@nexo.com", "11900000201", Account.AccountType.CORRENTE);
+		Account b = accountService.createAccountForUser(
+				900202L, "Bruno Extrato", "00000000202", "bruno@nexo.com", "11900000202", Account.AccountType.CORRENTE);
+
+		for (int i = 0; i < 20; i++) {
+			TransactionRequest request = new TransactionRequest();
+			request.setAmount(new BigDecimal("10.00"));
+			request.setDescription("deposito " + i);
+			transactionService.deposit(a.getAccountNumber(), request);
+		}
+		LocalDateTime now = LocalDateTime.now();
+		for (int i = 0; i < 20; i++) {
+			boolean out = i % 2 == 0;
+			pixTransactionRepository.save(pix("PIXEXTRATO" + i, out ? a : b, out ? b : a, now.plusSeconds(i + 1)));
+		}
+
+		countedThread = Thread.currentThread();
+		STATEMENTS.set(0);
+		List<AccountTransactionDTO> page = transactionService.getTransactionsForAccount(a.getId(), null, 5).getItems();
+		assertEquals(1, STATEMENTS.get());
+
+		assertEquals(5, page.size());
+		AccountTransactionDTO latest = page.get(0);
+		assertEquals("PIXEXTRATO19", latest.getTransactionId());
+		assertEquals("IN", latest.getDirection());
+		assertEquals("Bruno Extrato", latest.getFromUserName());
+		assertEquals("Ana Extrato", latest.getToUserName());
+		for (int i = 1; i < page.size(); i++) {
+			assertTrue(!page.get(i).getCreatedAt().isAfter(page.get(i - 1).getCreatedAt()));
+		}
+
+		// Percorre o extrato inteiro em páginas de 7: sem repetição, sem lacuna, um SELECT por página
+		Set<String> seen = new HashSet<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			STATEMENTS.set(0);
+			CursorPage<AccountTransactionDTO> next = transactionService.getTransactionsForAccount(a.getId(), cursor, 7);
+			assertEquals(1, STATEMENTS.get());
+			for (AccountTransactionDTO row : next.getItems()) {
+				assertTrue(seen.add(row.getTransactionId()));
+			}
+			cursor = next.getNextCursor();
+			pages++;
+		} while (cursor != null);
+		assertEquals(40, seen.size());
+		assertEquals(6, pages);
+	}
+
+	private static PixTransaction pix(String id, Account from, Account to, LocalDateTime createdAt) {
+		PixTransaction pix = new PixTransaction();
+		pix.setTransactionId(id);
+		pix.setFromUserId(from.getUserId());
+		pix.setFromAccountId(from.getId());
+		pix.setToUserId(to.getUserId());
+		pix.setToAccountId(to.getId());
+		pix.setAmount(new BigDecimal("1.00"));
+		pix.setKeyType(PixKey.PixKeyType.CPF);
+		pix.setPixKey(to.getUserCpf());
+		pix.setStatus(PixTransaction.TransactionStatus.COMPLETED);
+		pix.setCreatedAt(createdAt);
+		pix.setProcessedAt(createdAt);
+		return pix;
+	}
+
+	@TestConfiguration
+	static class StatementCountingConfig {
+
+		// Conta todo statement JDBC aberto, venha ele do Hibernate ou do JdbcTemplate
+		@Bean
+		static BeanPostProcessor countingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource dataSource)) {
+						return bean;
+					}
+					return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class },
+							(proxy, method, args) -> {
+								Object result = invoke(dataSource, method, args);
+								return result instanceof Connection connection ? counting(connection) : result;
+							});
+				}
+			};
+		}
+
+		private static Connection counting(Connection connection) {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						String name = method.getName();
+						if (Thread.currentThread() == countedThread && (name.equals("prepareStatement")
+								|| name.equals("createStatement") || name.equals("prepareCall"))) {
+							STATEMENTS.incrementAndGet();
+						}
+						return invoke(connection, method, args);
+					});
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
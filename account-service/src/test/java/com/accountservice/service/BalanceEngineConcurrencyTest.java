@@ -0,0 +1,96 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.model.Account;
+import com.accountservice.model.Transaction;
+import com.accountservice.repository.AccountRepository;
+import com.accountservice.repository.TransactionRepository;
+
+@SpringBootTest
+class BalanceEngineConcurrencyTest {
+
+	private static final int THREADS = 16;
+	private static final int DEPOSITS_PER_THREAD = 50;
+	private static final BigDecimal AMOUNT = new BigDecimal("10.00");
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private TransactionAuditWriter auditWriter;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Test
+	void concurrentDepositsOnSameAccountAreNotLost() throws Exception {
+		Account account = accountService.createAccountForUser(
+				900001L, "Teste Concorrencia", "00000000001", "concorrencia@nexo.com", "11999999999",
+				Account.AccountType.CORRENTE);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < THREADS; t++) {
+			futures.add(pool.submit(() -> {
+				start.await();
+				for (int i = 0; i < DEPOSITS_PER_THREAD; i++) {
+					TransactionRequest request = new TransactionRequest();
+					request.setAmount(AMOUNT);
+					request.setDescription("carga");
+					transactionService.deposit(account.getAccountNumber(), request);
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(2, TimeUnit.MINUTES);
+		}
+		pool.shutdown();
+
+		int operations = THREADS * DEPOSITS_PER_THREAD;
+		BigDecimal expected = AMOUNT.multiply(BigDecimal.valueOf(operations));
+
+		Account reloaded = accountRepository.findById(account.getId()).orElseThrow();
+		assertEquals(0, expected.compareTo(reloaded.getBalance()));
+
+		// As linhas de transactions são gravadas em lote depois do commit
+		auditWriter.flush();
+		List<Transaction> transactions = transactionRepository.findByAccountId(account.getId());
+		assertEquals(operations, transactions.size());
+
+		// Cada depósito viu o saldo gravado pelo anterior: os saldos finais são todos distintos
+		long distinctBalances = transactions.stream()
+				.map(t -> t.getNewBalance().stripTrailingZeros())
+				.distinct()
+				.count();
+		assertEquals(operations, distinctBalances);
+		for (Transaction t : transactions) {
+			assertEquals(0, t.getNewBalance().subtract(t.getPreviousBalance()).compareTo(AMOUNT));
+		}
+	}
+}
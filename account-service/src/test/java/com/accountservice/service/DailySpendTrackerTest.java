@@ -0,0 +1,71 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.dto.TransactionalPasswordRequest;
+import com.accountservice.exception.DailyLimitExceededException;
+import com.accountservice.exception.InsufficientBalanceException;
+import com.accountservice.model.Account;
+
+@SpringBootTest
+class DailySpendTrackerTest {
+
+	private static final Long USER_ID = 900971L;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private TransactionalPasswordService passwordService;
+
+	@Autowired
+	private DailySpendTracker dailySpendTracker;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void limitIsSharedAcrossInstancesAndReleasedOnRollback() {
+		// Conta corrente: limite diário de R$ 1000,00
+		Account account = accountService.createAccountForUser(
+				USER_ID, "Davi Limite", "00000000971", "davi@nexo.com", "11900000971", Account.AccountType.CORRENTE);
+		passwordService.setTransactionalPassword(USER_ID, new TransactionalPasswordRequest("1234", "1234"));
+		String number = account.getAccountNumber();
+		transactionService.deposit(number, request("500.00"));
+
+		transactionService.withdraw(number, request("300.00"), "1234", null, null);
+		assertEquals(0, new BigDecimal("300.00").compareTo(dailySpendTracker.spent(account.getId())));
+
+		// Saque sem saldo: o débito volta e a reserva também
+		assertThrows(InsufficientBalanceException.class,
+				() -> transactionService.withdraw(number, request("600.00"), "1234", null, null));
+		assertEquals(0, new BigDecimal("300.00").compareTo(dailySpendTracker.spent(account.getId())));
+
+		// R$ 600,00 debitados por outra instância: só restam R$ 100,00 aqui
+		jdbcTemplate.update("UPDATE daily_spend SET spent_cents = spent_cents + 60000 WHERE account_id = ?",
+				account.getId());
+		assertThrows(DailyLimitExceededException.class,
+				() -> transactionService.withdraw(number, request("200.00"), "1234", null, null));
+		transactionService.withdraw(number, request("100.00"), "1234", null, null);
+		assertEquals(0, BigDecimal.ZERO.compareTo(dailySpendTracker.remaining(account.getId(), account.getDailyLimit())));
+	}
+
+	private static TransactionRequest request(String amount) {
+		TransactionRequest request = new TransactionRequest();
+		request.setAmount(new BigDecimal(amount));
+		request.setDescription("limite");
+		return request;
+	}
+}
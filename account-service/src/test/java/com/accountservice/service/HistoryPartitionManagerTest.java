@@ -0,0 +1,87 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.model.Account;
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixTransaction;
+import com.accountservice.model.Transaction;
+import com.accountservice.model.TransactionType;
+import com.accountservice.repository.PixTransactionRepository;
+import com.accountservice.repository.TransactionRepository;
+
+@SpringBootTest
+class HistoryPartitionManagerTest {
+
+	private static final YearMonth OLD_MONTH = YearMonth.of(2020, 3);
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private HistoryPartitionManager partitionManager;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private PixTransactionRepository pixTransactionRepository;
+
+	@Test
+	void detachedMonthLeavesMainTableButStaysReachableUntilDropped() {
+		Account a = accountService.createAccountForUser(
+				900301L, "Carla Historico", "00000000301", "carla@nexo.com", "11900000301", Account.AccountType.CORRENTE);
+		Account b = accountService.createAccountForUser(
+				900302L, "Davi Historico", "00000000302", "davi@nexo.com", "11900000302", Account.AccountType.CORRENTE);
+
+		LocalDateTime old = OLD_MONTH.atDay(15).atTime(10, 0);
+		// Mesma precisão da coluna (timestamp(6)): "now" serve de limite do BETWEEN
+		LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+		transactionRepository.save(transaction("TXN-HIST-OLD", a.getId(), old));
+		transactionRepository.save(transaction("TXN-HIST-NEW", a.getId(), now));
+		pixTransactionRepository.save(pix("PIX-HIST-OLD", a, b, old));
+		pixTransactionRepository.save(pix("PIX-HIST-NEW", b, a, now));
+
+		partitionManager.detach(OLD_MONTH);
+
+		// A tabela principal não tem mais o mês destacado
+		List<Transaction> online = transactionRepository.findByAccountId(a.getId());
+		assertEquals(List.of("TXN-HIST-NEW"), online.stream().map(Transaction::getTransactionId).toList());
+
+		// Consultas com período ainda chegam a ele, só pelas tabelas do intervalo
+		LocalDateTime from = OLD_MONTH.atDay(1).atStartOfDay();
+		assertEquals(2, transactionRepository.findByAccountIdInPeriod(a.getId(), from, now).size());
+		assertEquals(1, transactionRepository.findByAccountIdInPeriod(a.getId(), from, OLD_MONTH.atEndOfMonth().atTime(23, 59)).size());
+		assertEquals(2, pixTransactionRepository.findByAccountIdInPeriod(a.getId(), from, now).size());
+		assertEquals(1, pixTransactionRepository.findTransactionsByDateRange(from, OLD_MONTH.atEndOfMonth().atTime(23, 59)).size());
+
+		partitionManager.drop(OLD_MONTH);
+
+		List<Transaction> afterDrop = transactionRepository.findByAccountIdInPeriod(a.getId(), from, now);
+		assertEquals(List.of("TXN-HIST-NEW"), afterDrop.stream().map(Transaction::getTransactionId).toList());
+		assertFalse(partitionManager.partitions().stream()
+				.anyMatch(p -> p.getMonth().equals(OLD_MONTH.atDay(1))));
+	}
+
+	private static Transaction transaction(String id, Long accountId, LocalDateTime createdAt) {
+		return new Transaction(null, id, accountId, TransactionType.DEPOSIT, new BigDecimal("10.00"),
+				BigDecimal.ZERO, new BigDecimal("10.00"), "historico", Transaction.TransactionStatus.COMPLETED, createdAt);
+	}
+
+	private static PixTransaction pix(String id, Account from, Account to, LocalDateTime createdAt) {
+		return new PixTransaction(null, id, from.getUserId(), from.getId(), to.getUserId(), to.getId(),
+				new BigDecimal("5.00"), PixKey.PixKeyType.EMAIL, to.getUserEmail(), "historico",
+				PixTransaction.TransactionStatus.COMPLETED, createdAt, createdAt);
+	}
+}
@@ -0,0 +1,116 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.accountservice.dto.PixTransferRequest;
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.dto.TransactionResponse;
+import com.accountservice.exception.IdempotencyConflictException;
+import com.accountservice.exception.IdempotencyKeyReuseException;
+import com.accountservice.model.Account;
+
+@SpringBootTest
+class IdempotencyServiceTest {
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Test
+	void keyIsBoundToTheRequestThatFirstUsedIt() {
+		AtomicInteger runs = new AtomicInteger();
+
+		assertEquals("ok", idempotencyService.execute("teste", "chave-1", List.of("10.00"), String.class, () -> {
+			runs.incrementAndGet();
+			return "ok";
+		}));
+		// Mesmo pedido: resposta gravada, sem executar de novo
+		assertEquals("ok", idempotencyService.execute("teste", "chave-1", List.of("10.00"), String.class, () -> {
+			runs.incrementAndGet();
+			return "outro";
+		}));
+		assertEquals(1, runs.get());
+
+		// Mesma chave, outro valor: recusado em vez de devolver a resposta do primeiro
+		assertThrows(IdempotencyKeyReuseException.class, () ->
+				idempotencyService.execute("teste", "chave-1", List.of("99.00"), String.class, () -> "nunca"));
+	}
+
+	@Test
+	void claimLeftByACrashedNodeIsTakenOverAfterTheLease() {
+		LocalDateTime now = LocalDateTime.now();
+		jdbcTemplate.update("INSERT INTO idempotency_records (record_key, status, created_at, expires_at, lease_expires_at)"
+				+ " VALUES ('teste:chave-2', 'IN_PROGRESS', ?, ?, ?)",
+				Timestamp.valueOf(now.minusMinutes(5)), Timestamp.valueOf(now.plusHours(23)),
+				Timestamp.valueOf(now.minusMinutes(4)));
+
+		assertEquals("retomado", idempotencyService.execute("teste", "chave-2", List.of("10.00"), String.class,
+				() -> "retomado"));
+		assertEquals("COMPLETED", jdbcTemplate.queryForObject(
+				"SELECT status FROM idempotency_records WHERE record_key = 'teste:chave-2'", String.class));
+	}
+
+	@Test
+	void executedOperationIsNeverRunAgainAfterTheLease() {
+		Account account = accountService.createAccountForUser(
+				900701L, "Otto Idempotente", "00000000701", "otto@nexo.com", "11900000701", Account.AccountType.CORRENTE);
+		TransactionRequest request = new TransactionRequest();
+		request.setAmount(new BigDecimal("25.00"));
+		request.setDescription("idempotente");
+
+		// O depósito confirma e o nó "cai" antes de gravar a resposta
+		assertThrows(IllegalStateException.class, () -> idempotencyService.execute("deposit", "chave-3", request,
+				TransactionResponse.class, () -> {
+					transactionService.deposit(account.getAccountNumber(), request);
+					throw new IllegalStateException("queda simulada");
+				}));
+		assertEquals("EXECUTED", jdbcTemplate.queryForObject(
+				"SELECT status FROM idempotency_records WHERE record_key = 'deposit:chave-3'", String.class));
+		jdbcTemplate.update("UPDATE idempotency_records SET lease_expires_at = ? WHERE record_key = 'deposit:chave-3'",
+				Timestamp.valueOf(LocalDateTime.now().minusMinutes(1)));
+
+		// A repetição não assume a chave: 409 em vez de um segundo depósito
+		assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute("deposit", "chave-3",
+				request, TransactionResponse.class, () -> transactionService.deposit(account.getAccountNumber(), request)));
+		assertEquals(0, new BigDecimal("25.00").compareTo(accountService.getBalance(account.getAccountNumber())));
+	}
+
+	@Test
+	void storedHashDoesNotDependOnThePassword() {
+		PixTransferRequest first = new PixTransferRequest();
+		first.setAmount(new BigDecimal("40.00"));
+		first.setPassword("1234");
+		PixTransferRequest second = new PixTransferRequest();
+		second.setAmount(new BigDecimal("40.00"));
+		second.setPassword("9876");
+
+		idempotencyService.execute("teste", "chave-5", first, String.class, () -> "ok");
+		idempotencyService.execute("teste", "chave-6", second, String.class, () -> "ok");
+
+		// A senha não entra no hash: mesmo valor para os dois pedidos
+		String firstHash = jdbcTemplate.queryForObject(
+				"SELECT request_hash FROM idempotency_records WHERE record_key = 'teste:chave-5'", String.class);
+		assertEquals(firstHash, jdbcTemplate.queryForObject(
+				"SELECT request_hash FROM idempotency_records WHERE record_key = 'teste:chave-6'", String.class));
+	}
+}
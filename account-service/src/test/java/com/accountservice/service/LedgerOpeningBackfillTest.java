@@ -0,0 +1,81 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.model.Account;
+import com.accountservice.repository.AccountRepository;
+
+@SpringBootTest
+class LedgerOpeningBackfillTest {
+
+	private static final String LEDGER_SUM_SQL =
+			"SELECT COALESCE(SUM(CASE WHEN entry_type = 'CREDIT' THEN amount ELSE -amount END), 0)"
+			+ " FROM ledger_entries WHERE account_id = ?";
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private LedgerOpeningBackfill backfill;
+
+	@Autowired
+	private BalanceSnapshotService snapshotService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void accountOlderThanTheLedgerGetsItsBalanceAsOpeningEntry() {
+		Account account = accountService.createAccountForUser(
+				900801L, "Otavio Legado", "00000000801", "otavio@nexo.com", "11900000801", Account.AccountType.CORRENTE);
+		Long id = account.getId();
+		// Conta nova já abre com zero no razão
+		assertEquals(0, ledgerSum(id).signum());
+		assertEquals(0, backfill.backfill());
+
+		// Conta de antes do razão: saldo de 100 sem lançamento nenhum, criada há dez dias
+		LocalDateTime createdAt = LocalDateTime.now().minusDays(10).truncatedTo(ChronoUnit.MICROS);
+		jdbcTemplate.update("DELETE FROM ledger_entries WHERE movement_id = ?", LedgerService.OPENING_MOVEMENT_PREFIX + id);
+		jdbcTemplate.update("UPDATE accounts SET balance = 100.00, created_at = ? WHERE id = ?", Timestamp.valueOf(createdAt), id);
+		// ... que já se movimentou depois que o razão entrou
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			jdbcTemplate.update("UPDATE accounts SET balance = 150.00 WHERE id = ?", id);
+			ledgerService.deposit("TXN-OPENING-1", id, new BigDecimal("50.00"), new BigDecimal("150.00"));
+		});
+
+		assertEquals(1, backfill.backfill());
+		assertEquals(0, backfill.backfill());
+
+		// O razão soma o saldo, e o saldo antes do depósito é o herdado, não zero
+		assertEquals(new BigDecimal("150.00"), ledgerSum(id));
+		Account legacy = accountRepository.findById(id).orElseThrow();
+		assertEquals(new BigDecimal("100.00"),
+				snapshotService.balanceAt(legacy, LocalDateTime.now().minusDays(5)).getBalance());
+		assertEquals(new BigDecimal("150.00"), snapshotService.balanceAt(legacy, LocalDateTime.now()).getBalance());
+	}
+
+	private BigDecimal ledgerSum(Long accountId) {
+		return jdbcTemplate.queryForObject(LEDGER_SUM_SQL, BigDecimal.class, accountId);
+	}
+}
@@ -0,0 +1,80 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.model.Account;
+import com.accountservice.model.TransactionType;
+
+@SpringBootTest
+class OutboxServiceTest {
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private LedgerService ledgerService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void movementsWriteOneEventPerInternalAccountInTheSameTransaction() {
+		Account a = accountService.createAccountForUser(
+				900501L, "Gabi Outbox", "00000000501", "gabi@nexo.com", "11900000501", Account.AccountType.CORRENTE);
+		Account b = accountService.createAccountForUser(
+				900502L, "Hugo Outbox", "00000000502", "hugo@nexo.com", "11900000502", Account.AccountType.CORRENTE);
+
+		TransactionRequest request = new TransactionRequest();
+		request.setAmount(new BigDecimal("40.00"));
+		request.setDescription("outbox");
+		transactionService.deposit(a.getAccountNumber(), request);
+
+		// Depósito: só a conta interna gera evento
+		List<Map<String, Object>> deposit = events(a.getId());
+		assertEquals(1, deposit.size());
+		assertEquals("ACCOUNT_CREDITED", deposit.get(0).get("EVENT_TYPE"));
+		assertTrue(((String) deposit.get(0).get("PAYLOAD")).contains("\"movementType\":\"DEPOSIT\""));
+
+		// Transferência: um evento para cada lado, cada um com a própria conta como chave
+		new TransactionTemplate(transactionManager).executeWithoutResult(status -> ledgerService.transfer(
+				"PIX-OUTBOX-1", TransactionType.PIX, new BigDecimal("15.00"),
+				a.getId(), new BigDecimal("25.00"), b.getId(), new BigDecimal("15.00")));
+		assertEquals(2, events(a.getId()).size());
+		assertEquals("ACCOUNT_DEBITED", events(a.getId()).get(1).get("EVENT_TYPE"));
+		assertEquals(1, events(b.getId()).size());
+		assertEquals("ACCOUNT_CREDITED", events(b.getId()).get(0).get("EVENT_TYPE"));
+
+		// Transação desfeita: nenhum evento
+		assertThrows(IllegalStateException.class, () -> new TransactionTemplate(transactionManager)
+				.executeWithoutResult(status -> {
+					ledgerService.deposit("TXN-OUTBOX-ROLLBACK", b.getId(), BigDecimal.TEN, new BigDecimal("25.00"));
+					throw new IllegalStateException("falha depois do lançamento");
+				}));
+		assertEquals(1, events(b.getId()).size());
+	}
+
+	private List<Map<String, Object>> events(Long accountId) {
+		return jdbcTemplate.queryForList(
+				"SELECT event_type, payload FROM outbox_events WHERE aggregate_id = ? ORDER BY id", accountId);
+	}
+}
@@ -0,0 +1,91 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.accountservice.dto.TransactionalPasswordRequest;
+import com.accountservice.exception.InvalidTransactionalPasswordException;
+import com.accountservice.exception.PasswordBlockedException;
+import com.accountservice.model.Account;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class PasswordAttemptTrackerTest {
+
+	private static final Long USER_ID = 900901L;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionalPasswordService passwordService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void onlyTheBlockTransitionWritesTheAccountRow() {
+		Account account = accountService.createAccountForUser(
+				USER_ID, "Lia Tentativas", "00000000901", "lia@nexo.com", "11900000901", Account.AccountType.CORRENTE);
+		passwordService.setTransactionalPassword(USER_ID, new TransactionalPasswordRequest("1234", "1234"));
+		Object updatedAt = row(account).get("UPDATED_AT");
+		double writes = writes();
+
+		// Acerto e erros abaixo do limite: nenhuma escrita em accounts
+		passwordService.authorizeTransaction(USER_ID, "1234");
+		assertThrows(InvalidTransactionalPasswordException.class, () -> passwordService.authorizeTransaction(USER_ID, "0000"));
+		assertThrows(InvalidTransactionalPasswordException.class, () -> passwordService.authorizeTransaction(USER_ID, "0000"));
+		assertEquals(writes, writes());
+		assertEquals(0, ((Number) row(account).get("FAILED_ATTEMPTS")).intValue());
+		assertEquals(updatedAt, row(account).get("UPDATED_AT"));
+
+		// Terceiro erro: bloqueio gravado, e a senha certa passa a ser recusada
+		assertThrows(PasswordBlockedException.class, () -> passwordService.authorizeTransaction(USER_ID, "0000"));
+		assertEquals(writes + 1, writes());
+		assertEquals(3, ((Number) row(account).get("FAILED_ATTEMPTS")).intValue());
+		assertNotNull(row(account).get("PASSWORD_BLOCKED_UNTIL"));
+		assertThrows(PasswordBlockedException.class, () -> passwordService.authorizeTransaction(USER_ID, "1234"));
+	}
+
+	@Test
+	void failuresCountAcrossInstances() {
+		Long userId = USER_ID + 1;
+		Account account = accountService.createAccountForUser(
+				userId, "Caio Tentativas", "00000000902", "caio@nexo.com", "11900000902", Account.AccountType.CORRENTE);
+		passwordService.setTransactionalPassword(userId, new TransactionalPasswordRequest("1234", "1234"));
+
+		assertThrows(InvalidTransactionalPasswordException.class, () -> passwordService.authorizeTransaction(userId, "0000"));
+		assertEquals(1, failures(account));
+
+		// Segundo erro contado por outra instância: o próximo erro daqui já bloqueia
+		jdbcTemplate.update("UPDATE password_attempts SET failures = failures + 1 WHERE account_id = ?", account.getId());
+		assertThrows(PasswordBlockedException.class, () -> passwordService.authorizeTransaction(userId, "0000"));
+		assertNotNull(row(account).get("PASSWORD_BLOCKED_UNTIL"));
+	}
+
+	private int failures(Account account) {
+		return jdbcTemplate.queryForObject(
+				"SELECT failures FROM password_attempts WHERE account_id = ?", Integer.class, account.getId());
+	}
+
+	private Map<String, Object> row(Account account) {
+		return jdbcTemplate.queryForMap(
+				"SELECT failed_attempts, password_blocked_until, updated_at FROM accounts WHERE id = ?", account.getId());
+	}
+
+	private double writes() {
+		return meterRegistry.get("bank.password.attempt.writes").counter().count();
+	}
+}
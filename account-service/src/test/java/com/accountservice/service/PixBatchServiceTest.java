@@ -0,0 +1,97 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.dto.PixBatchTransferItem;
+import com.accountservice.dto.PixBatchTransferRequest;
+import com.accountservice.dto.PixBatchTransferResponse;
+import com.accountservice.dto.TransactionRequest;
+import com.accountservice.dto.TransactionalPasswordRequest;
+import com.accountservice.model.Account;
+import com.accountservice.model.PixKey.PixKeyType;
+
+// Um item por bloco: cada transferência confirma separada
+@SpringBootTest(properties = "bank.pix.batch.chunk-size=1")
+class PixBatchServiceTest {
+
+	private static final Long USER_ID = 900961L;
+
+	@Autowired
+	private PixBatchService pixBatchService;
+
+	@Autowired
+	private PixService pixService;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private TransactionalPasswordService passwordService;
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Test
+	void clientDisconnectDoesNotStopTheBatchAndTheRetryPaysNothing() {
+		Account payer = accountService.createAccountForUser(
+				USER_ID, "Nara Lote", "00000000961", "nara@nexo.com", "11900000961", Account.AccountType.CORRENTE);
+		passwordService.setTransactionalPassword(USER_ID, new TransactionalPasswordRequest("1234", "1234"));
+		TransactionRequest deposit = new TransactionRequest();
+		deposit.setAmount(new BigDecimal("100.00"));
+		deposit.setDescription("lote");
+		transactionService.deposit(payer.getAccountNumber(), deposit);
+
+		List<Account> payees = new ArrayList<>();
+		PixBatchTransferRequest request = new PixBatchTransferRequest();
+		request.setPassword("1234");
+		request.setItems(new ArrayList<>());
+		for (long i = 2; i <= 4; i++) {
+			Long userId = 900960L + i;
+			payees.add(accountService.createAccountForUser(userId, "Recebedor " + i, "0000000096" + i,
+					"recebedor" + i + "@nexo.com", "1190000096" + i, Account.AccountType.CORRENTE));
+			pixService.createPixKey(userId, "Recebedor " + i, PixKeyType.EMAIL, "recebedor" + i + "@nexo.com");
+			PixBatchTransferItem item = new PixBatchTransferItem();
+			item.setKeyValue("recebedor" + i + "@nexo.com");
+			item.setAmount(new BigDecimal("10.00"));
+			request.getItems().add(item);
+		}
+
+		// O cliente cai no primeiro bloco: os demais são processados mesmo assim
+		AtomicInteger runs = new AtomicInteger();
+		PixBatchTransferResponse first = idempotencyService.execute("pix-batch:" + USER_ID, "lote-1", request,
+				PixBatchTransferResponse.class, () -> {
+					runs.incrementAndGet();
+					return pixBatchService.execute(pixBatchService.prepare(USER_ID, request, null, null), progress -> {
+						throw new UncheckedIOException(new IOException("Broken pipe"));
+					});
+				});
+		assertEquals(3, first.getSucceeded());
+
+		// A repetição do cliente recebe o resumo, sem pagar de novo
+		PixBatchTransferResponse retry = idempotencyService.execute("pix-batch:" + USER_ID, "lote-1", request,
+				PixBatchTransferResponse.class, () -> {
+					runs.incrementAndGet();
+					return pixBatchService.execute(pixBatchService.prepare(USER_ID, request, null, null), progress -> { });
+				});
+		assertEquals(3, retry.getSucceeded());
+		assertEquals(1, runs.get());
+		assertEquals(0, new BigDecimal("70.00").compareTo(accountService.getBalance(payer.getAccountNumber())));
+		for (Account payee : payees) {
+			assertEquals(0, new BigDecimal("10.00").compareTo(accountService.getBalance(payee.getAccountNumber())));
+		}
+	}
+}
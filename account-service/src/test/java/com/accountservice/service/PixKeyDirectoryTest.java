@@ -0,0 +1,71 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixKey.PixKeyType;
+import com.accountservice.repository.PixKeyRepository;
+
+@SpringBootTest
+class PixKeyDirectoryTest {
+
+	private static final Long USER_ID = 900951L;
+
+	@Autowired
+	private PixService pixService;
+
+	@Autowired
+	private PixKeyDirectory directory;
+
+	@Autowired
+	private PixKeyRepository pixKeyRepository;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void followsLocalChangesAndPicksUpKeysFromOtherInstances() {
+		PixKey key = pixService.createPixKey(USER_ID, "Rui Diretorio", PixKeyType.EMAIL, "rui.diretorio@nexo.com");
+		assertEquals(USER_ID, directory.find("rui.diretorio@nexo.com").orElseThrow().getUserId());
+		assertTrue(pixService.checkPixKey(PixKeyType.EMAIL, "rui.diretorio@nexo.com"));
+		assertFalse(pixService.checkPixKey(PixKeyType.EMAIL, "rui.diretorio@nexo.com.br"));
+
+		// Gravada por outra instância: só aparece depois do refresh
+		jdbcTemplate.update("INSERT INTO pix_keys (user_id, key_type, key_value, owner_name, status, created_at)"
+				+ " VALUES (?, 'TELEFONE', '11900000951', 'Rui Diretorio', 'ACTIVE', ?)",
+				USER_ID, Timestamp.valueOf(LocalDateTime.now()));
+		directory.refresh();
+		assertEquals(PixKeyType.TELEFONE, directory.find("11900000951").orElseThrow().getKeyType());
+
+		pixService.deletePixKey(USER_ID, key.getId());
+		assertTrue(directory.find("rui.diretorio@nexo.com").isEmpty());
+		// A leitura seguinte não traz de volta a chave excluída
+		directory.refresh();
+		assertTrue(directory.find("rui.diretorio@nexo.com").isEmpty());
+
+		// Recriada em outra instância: o filtro ainda aceita o valor e o banco responde, sem esperar o refresh
+		jdbcTemplate.update("INSERT INTO pix_keys (user_id, key_type, key_value, owner_name, status, created_at)"
+				+ " VALUES (?, 'EMAIL', 'rui.diretorio@nexo.com', 'Rui Diretorio', 'ACTIVE', ?)",
+				USER_ID, Timestamp.valueOf(LocalDateTime.now()));
+		assertTrue(pixService.checkPixKey(PixKeyType.EMAIL, "rui.diretorio@nexo.com"));
+		assertEquals(USER_ID, directory.find("rui.diretorio@nexo.com").orElseThrow().getUserId());
+
+		// Chave nova de outra instância, antes do refresh: a transferência a encontra no banco
+		jdbcTemplate.update("INSERT INTO pix_keys (user_id, key_type, key_value, owner_name, status, created_at)"
+				+ " VALUES (?, 'CPF', '00000000951', 'Rui Diretorio', 'ACTIVE', ?)",
+				USER_ID, Timestamp.valueOf(LocalDateTime.now()));
+		assertEquals(USER_ID, directory.resolve("00000000951",
+				v -> pixKeyRepository.findByKeyValue(v).map(PixKeyDirectory.Entry::of)).orElseThrow().getUserId());
+		assertTrue(pixService.checkPixKey(PixKeyType.CPF, "00000000951"));
+	}
+}
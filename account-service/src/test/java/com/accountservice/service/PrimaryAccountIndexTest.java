@@ -0,0 +1,143 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import com.accountservice.model.Account;
+
+@SpringBootTest
+class PrimaryAccountIndexTest {
+
+	private static final AtomicInteger STATEMENTS = new AtomicInteger();
+
+	private static volatile Thread countedThread;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private PrimaryAccountIndex primaryAccountIndex;
+
+	@Test
+	void warmIndexResolvesThePrimaryAccountWithOnePrimaryKeyFetch() {
+		Account first = accountService.createAccountForUser(
+				900701L, "Julia Principal", "00000000701", "julia@nexo.com", "11900000701", Account.AccountType.CORRENTE);
+		Account second = accountService.createAccountForUser(
+				900701L, "Julia Principal", "00000000701", "julia@nexo.com", "11900000701", Account.AccountType.POUPANCA);
+		countedThread = Thread.currentThread();
+
+		// Índice preenchido na criação da primeira conta: só o SELECT por id
+		STATEMENTS.set(0);
+		assertEquals(first.getId(), accountService.getActivePrimaryAccount(900701L).getId());
+		assertEquals(1, STATEMENTS.get());
+
+		// Índice frio: um SELECT de id pelo índice (user_id, status) e o SELECT por id
+		primaryAccountIndex.invalidate(900701L);
+		STATEMENTS.set(0);
+		assertEquals(first.getId(), accountService.getActivePrimaryAccount(900701L).getId());
+		assertEquals(2, STATEMENTS.get());
+
+		// Uma transferência PIX resolve três vezes (senha, origem, destino): três SELECTs por id
+		STATEMENTS.set(0);
+		for (int i = 0; i < 3; i++) {
+			accountService.getActivePrimaryAccount(900701L);
+		}
+		assertEquals(3, STATEMENTS.get());
+
+		// Bloquear a principal troca a conta resolvida
+		first.setStatus(Account.AccountStatus.BLOCKED);
+		accountService.updateAccount(first);
+		assertEquals(second.getId(), accountService.getActivePrimaryAccount(900701L).getId());
+
+		first.setStatus(Account.AccountStatus.ACTIVE);
+		accountService.updateAccount(first);
+		assertEquals(first.getId(), accountService.getActivePrimaryAccount(900701L).getId());
+	}
+
+	@Test
+	void userWithoutActiveAccountIsAnsweredByTheIndexUntilAnAccountChanges() {
+		Account blocked = accountService.createAccountForUser(
+				900702L, "Lia Bloqueada", "00000000702", "lia@nexo.com", "11900000702", Account.AccountType.CORRENTE);
+		blocked.setStatus(Account.AccountStatus.BLOCKED);
+		accountService.updateAccount(blocked);
+		countedThread = Thread.currentThread();
+
+		// Primeira consulta vai ao banco; a seguinte sai do índice, sem statement
+		STATEMENTS.set(0);
+		assertThrows(RuntimeException.class, () -> accountService.getActivePrimaryAccount(900702L));
+		assertEquals(1, STATEMENTS.get());
+		STATEMENTS.set(0);
+		assertThrows(RuntimeException.class, () -> accountService.getActivePrimaryAccount(900702L));
+		assertEquals(0, STATEMENTS.get());
+
+		// Reativar a conta desfaz a resposta guardada
+		blocked.setStatus(Account.AccountStatus.ACTIVE);
+		accountService.updateAccount(blocked);
+		assertEquals(blocked.getId(), accountService.getActivePrimaryAccount(900702L).getId());
+
+		// Idem para uma conta nova de quem ficou sem conta ativa
+		blocked.setStatus(Account.AccountStatus.BLOCKED);
+		accountService.updateAccount(blocked);
+		assertThrows(RuntimeException.class, () -> accountService.getActivePrimaryAccount(900702L));
+		Account created = accountService.createAccountForUser(
+				900702L, "Lia Bloqueada", "00000000702", "lia@nexo.com", "11900000702", Account.AccountType.POUPANCA);
+		assertEquals(created.getId(), accountService.getActivePrimaryAccount(900702L).getId());
+	}
+
+	@TestConfiguration
+	static class PrimaryAccountCountingConfig {
+
+		// Conta todo statement JDBC aberto, venha ele do Hibernate ou do JdbcTemplate
+		@Bean
+		static BeanPostProcessor countingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(Object bean, String beanName) {
+					if (!(bean instanceof DataSource dataSource)) {
+						return bean;
+					}
+					return Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] { DataSource.class },
+							(proxy, method, args) -> {
+								Object result = invoke(dataSource, method, args);
+								return result instanceof Connection connection ? counting(connection) : result;
+							});
+				}
+			};
+		}
+
+		private static Connection counting(Connection connection) {
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+					(proxy, method, args) -> {
+						String name = method.getName();
+						if (Thread.currentThread() == countedThread && (name.equals("prepareStatement")
+								|| name.equals("createStatement") || name.equals("prepareCall"))) {
+							STATEMENTS.incrementAndGet();
+						}
+						return invoke(connection, method, args);
+					});
+		}
+
+		private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(target, args);
+			} catch (InvocationTargetException e) {
+				throw e.getCause();
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.dto.AccountTransactionDTO;
+import com.accountservice.dto.CursorPage;
+import com.accountservice.model.Account;
+import com.accountservice.model.HistoryPartition.PartitionStatus;
+import com.accountservice.model.PixKey;
+import com.accountservice.model.PixTransaction;
+import com.accountservice.model.Transaction;
+import com.accountservice.model.TransactionType;
+import com.accountservice.repository.PixTransactionRepository;
+import com.accountservice.repository.TransactionRepository;
+
+@SpringBootTest
+class StatementArchiverTest {
+
+	private static final YearMonth ARCHIVED_MONTH = YearMonth.of(2019, 5);
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionService transactionService;
+
+	@Autowired
+	private StatementArchiver statementArchiver;
+
+	@Autowired
+	private HistoryPartitionManager partitionManager;
+
+	@Autowired
+	private TransactionRepository transactionRepository;
+
+	@Autowired
+	private PixTransactionRepository pixTransactionRepository;
+
+	@Test
+	void statementPagesContinueFromDatabaseIntoArchivedSegments() {
+		Account a = accountService.createAccountForUser(
+				900401L, "Elisa Arquivo", "00000000401", "elisa@nexo.com", "11900000401", Account.AccountType.CORRENTE);
+		Account b = accountService.createAccountForUser(
+				900402L, "Fabio Arquivo", "00000000402", "fabio@nexo.com", "11900000402", Account.AccountType.CORRENTE);
+
+		for (int day = 10; day <= 12; day++) {
+			transactionRepository.save(transaction("TXN-ARQ-" + day, a.getId(), ARCHIVED_MONTH.atDay(day).atTime(10, 0)));
+		}
+		pixTransactionRepository.save(pix("PIX-ARQ", a, b, ARCHIVED_MONTH.atDay(13).atTime(10, 0)));
+		transactionRepository.save(transaction("TXN-ARQ-NEW", a.getId(), LocalDateTime.now()));
+
+		assertEquals(5, statementArchiver.archive(ARCHIVED_MONTH));
+
+		// O mês saiu do banco e está registrado como arquivado
+		assertEquals(List.of("TXN-ARQ-NEW"),
+				transactionRepository.findByAccountId(a.getId()).stream().map(Transaction::getTransactionId).toList());
+		assertTrue(partitionManager.partitions().stream()
+				.filter(p -> p.getMonth().equals(ARCHIVED_MONTH.atDay(1)))
+				.allMatch(p -> p.getStatus() == PartitionStatus.ARCHIVED));
+
+		// O cursor atravessa do banco para o arquivo sem perder nem repetir linhas
+		assertEquals(List.of("TXN-ARQ-NEW", "PIX-ARQ", "TXN-ARQ-12", "TXN-ARQ-11", "TXN-ARQ-10"), statement(a, 2));
+
+		List<AccountTransactionDTO> received = transactionService.getTransactionsForAccount(b.getId(), null, 10).getItems();
+		assertEquals(1, received.size());
+		assertEquals("PIX-ARQ", received.get(0).getTransactionId());
+		assertEquals("IN", received.get(0).getDirection());
+		assertEquals(0, new BigDecimal("5.00").compareTo(received.get(0).getAmount()));
+	}
+
+	private List<String> statement(Account account, int pageSize) {
+		List<String> ids = new ArrayList<>();
+		String cursor = null;
+		do {
+			CursorPage<AccountTransactionDTO> page = transactionService.getTransactionsForAccount(account.getId(), cursor, pageSize);
+			page.getItems().forEach(row -> ids.add(row.getTransactionId()));
+			cursor = page.getNextCursor();
+		} while (cursor != null);
+		return ids;
+	}
+
+	private static Transaction transaction(String id, Long accountId, LocalDateTime createdAt) {
+		return new Transaction(null, id, accountId, TransactionType.DEPOSIT, new BigDecimal("10.00"),
+				BigDecimal.ZERO, new BigDecimal("10.00"), "arquivo", Transaction.TransactionStatus.COMPLETED, createdAt);
+	}
+
+	private static PixTransaction pix(String id, Account from, Account to, LocalDateTime createdAt) {
+		return new PixTransaction(null, id, from.getUserId(), from.getId(), to.getUserId(), to.getId(),
+				new BigDecimal("5.00"), PixKey.PixKeyType.EMAIL, to.getUserEmail(), "arquivo",
+				PixTransaction.TransactionStatus.COMPLETED, createdAt, createdAt);
+	}
+}
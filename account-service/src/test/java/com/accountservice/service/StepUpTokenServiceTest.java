@@ -0,0 +1,73 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.dto.StepUpRequest;
+import com.accountservice.dto.TransactionalPasswordRequest;
+import com.accountservice.dto.UpdateTransactionalPasswordRequest;
+import com.accountservice.exception.InvalidTransactionalPasswordException;
+import com.accountservice.model.Account;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@SpringBootTest
+class StepUpTokenServiceTest {
+
+	private static final Long USER_ID = 900801L;
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransactionalPasswordService passwordService;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void tokenAuthorizesWithoutBcryptOnlyForItsDeviceAndCeiling() {
+		accountService.createAccountForUser(
+				USER_ID, "Karen StepUp", "00000000801", "karen@nexo.com", "11900000801", Account.AccountType.CORRENTE);
+		passwordService.setTransactionalPassword(USER_ID, new TransactionalPasswordRequest("1234", "1234"));
+
+		StepUpRequest stepUp = new StepUpRequest();
+		stepUp.setPassword("1234");
+		stepUp.setMaxAmount(new BigDecimal("100.00"));
+		String token = passwordService.issueStepUpToken(USER_ID, "device-a", stepUp).getToken();
+
+		double bcrypt = meterRegistry.get("bank.password.bcrypt").timer().count();
+		double avoided = meterRegistry.get("bank.password.bcrypt.avoided").counter().count();
+		assertTrue(passwordService.authorizeTransaction(USER_ID, null, token, "device-a", new BigDecimal("100.00")));
+		assertTrue(passwordService.authorizeTransaction(USER_ID, null, token, "device-a", new BigDecimal("5.00")));
+		assertEquals(bcrypt, meterRegistry.get("bank.password.bcrypt").timer().count());
+		assertEquals(avoided + 2, meterRegistry.get("bank.password.bcrypt.avoided").counter().count());
+
+		// Outro dispositivo, valor acima do teto, outro usuário ou token adulterado: recusado
+		assertThrows(InvalidTransactionalPasswordException.class,
+				() -> passwordService.authorizeTransaction(USER_ID, null, token, "device-b", BigDecimal.ONE));
+		assertThrows(InvalidTransactionalPasswordException.class,
+				() -> passwordService.authorizeTransaction(USER_ID, null, token, "device-a", new BigDecimal("100.01")));
+		assertThrows(InvalidTransactionalPasswordException.class,
+				() -> passwordService.authorizeTransaction(USER_ID, null, token + "x", "device-a", BigDecimal.ONE));
+
+		// Token recusado com senha informada: cai na verificação BCrypt
+		assertTrue(passwordService.authorizeTransaction(USER_ID, "1234", token, "device-b", BigDecimal.ONE));
+
+		// Trocar a senha invalida os tokens emitidos antes
+		UpdateTransactionalPasswordRequest change = new UpdateTransactionalPasswordRequest();
+		change.setCurrentPassword("1234");
+		change.setNewPassword("4321");
+		change.setConfirmPassword("4321");
+		passwordService.changeTransactionalPassword(USER_ID, change);
+		assertThrows(InvalidTransactionalPasswordException.class,
+				() -> passwordService.authorizeTransaction(USER_ID, null, token, "device-a", BigDecimal.ONE));
+	}
+}
@@ -0,0 +1,70 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@SpringBootTest
+class TransactionIdGeneratorTest {
+
+	private static final int TIMESTAMP_SHIFT = TransactionIdGenerator.NODE_BITS + TransactionIdGenerator.SEQUENCE_BITS;
+
+	@Autowired
+	private TransactionIdGenerator generator;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Test
+	void nodeIsClaimedBeforeIdsAndReservationSurvivesRestart() {
+		long id = generator.nextId();
+		long nodeId = generator.getNodeId();
+		assertEquals(nodeId, (id >>> TransactionIdGenerator.SEQUENCE_BITS) & TransactionIdGenerator.MAX_NODE_ID);
+		assertTrue(reservedMillis(nodeId) >= id >>> TIMESTAMP_SHIFT);
+
+		// Outra instância configurada com o mesmo nó: falha em vez de emitir ids repetidos
+		TransactionIdGenerator twin = newGenerator(nodeId, 60000);
+		assertThrows(IllegalStateException.class, twin::nextId);
+
+		// Reinício do mesmo nó: o primeiro id vem depois da marca reservada pelo dono anterior
+		long freeNode = freeNode();
+		TransactionIdGenerator before = newGenerator(freeNode, 60000);
+		long first = before.nextId();
+		before.release();
+		long reserved = reservedMillis(freeNode);
+		assertTrue(reserved > (first >>> TIMESTAMP_SHIFT) + 50000);
+
+		TransactionIdGenerator after = newGenerator(freeNode, 60000);
+		long next = after.nextId();
+		assertEquals(freeNode, after.getNodeId());
+		assertTrue((next >>> TIMESTAMP_SHIFT) > reserved);
+		after.release();
+	}
+
+	private TransactionIdGenerator newGenerator(long nodeId, long reserveMillis) {
+		return new TransactionIdGenerator(jdbcTemplate, transactionManager, nodeId, 8080, 1, reserveMillis);
+	}
+
+	private long reservedMillis(long nodeId) {
+		return jdbcTemplate.queryForObject("SELECT reserved_millis FROM id_nodes WHERE node_id = ?", Long.class, nodeId);
+	}
+
+	private long freeNode() {
+		for (long node = TransactionIdGenerator.MAX_NODE_ID; node >= 0; node--) {
+			Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM id_nodes WHERE node_id = ?", Integer.class, node);
+			if (rows == 0) {
+				return node;
+			}
+		}
+		throw new IllegalStateException("Nenhum nó livre");
+	}
+}
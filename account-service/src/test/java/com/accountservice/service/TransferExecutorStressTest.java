@@ -0,0 +1,84 @@
+package com.accountservice.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import com.accountservice.exception.InsufficientBalanceException;
+import com.accountservice.model.Account;
+import com.accountservice.repository.AccountRepository;
+
+@SpringBootTest
+class TransferExecutorStressTest {
+
+	private static final int THREADS = 16;
+	private static final int TRANSFERS = 4000;
+	private static final BigDecimal INITIAL = new BigDecimal("500.00");
+	private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+	@Autowired
+	private AccountService accountService;
+
+	@Autowired
+	private TransferExecutor transferExecutor;
+
+	@Autowired
+	private AccountRepository accountRepository;
+
+	@Test
+	void crossTransfersNeitherDeadlockNorCreateMoney() throws Exception {
+		Account a = accountService.createAccountForUser(
+				900101L, "Conta A", "00000000101", "a@nexo.com", "11900000101", Account.AccountType.CORRENTE);
+		Account b = accountService.createAccountForUser(
+				900102L, "Conta B", "00000000102", "b@nexo.com", "11900000102", Account.AccountType.CORRENTE);
+		accountService.credit(a.getId(), INITIAL);
+		accountService.credit(b.getId(), INITIAL);
+
+		ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger rejected = new AtomicInteger();
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int i = 0; i < TRANSFERS; i++) {
+			boolean aToB = i % 2 == 0;
+			futures.add(pool.submit(() -> {
+				start.await();
+				try {
+					if (aToB) {
+						transferExecutor.transfer(a.getId(), b.getId(), AMOUNT);
+					} else {
+						transferExecutor.transfer(b.getId(), a.getId(), AMOUNT);
+					}
+				} catch (InsufficientBalanceException e) {
+					rejected.incrementAndGet();
+				}
+				return null;
+			}));
+		}
+
+		start.countDown();
+		for (Future<?> future : futures) {
+			// Um deadlock aqui apareceria como TimeoutException
+			future.get(2, TimeUnit.MINUTES);
+		}
+		pool.shutdown();
+
+		BigDecimal balanceA = accountRepository.findBalanceById(a.getId()).orElseThrow();
+		BigDecimal balanceB = accountRepository.findBalanceById(b.getId()).orElseThrow();
+
+		assertEquals(0, INITIAL.add(INITIAL).compareTo(balanceA.add(balanceB)));
+		assertEquals(0, rejected.get());
+	}
+}
@@ -18,6 +18,7 @@ public class CorsConfig {
         config.addAllowedOrigin("http://localhost:3000"); // React
         config.addAllowedHeader("*");
         config.addAllowedMethod("*");
+        config.addExposedHeader("X-Next-Cursor"); // paginação do extrato
         
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", config);
@@ -0,0 +1,143 @@
+package com.bankcommon.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * PasswordEncoder que roda o hash (BCrypt) em um pool próprio do tamanho dos
+ * núcleos, com fila limitada. A thread da requisição só espera o resultado: o
+ * CPU do BCrypt não disputa com as demais requisições, e no máximo
+ * threads + fila requisições ficam presas esperando hash. Com a fila cheia a
+ * chamada falha na hora com {@link PasswordHashingBusyException} (HTTP 429).
+ * Fora de uma requisição HTTP (consumidor Kafka, jobs) não há a quem devolver
+ * 429: o hash roda na própria thread, sem passar pela fila.
+ *
+ * Usado pelo account-service e pelo auth-service; as métricas levam o prefixo
+ * de cada serviço ({@code bank.password.*}, {@code auth.password.*}).
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, AutoCloseable {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long retryAfterSeconds;
+
+    private final Timer queueWait;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+    private final Counter rejected;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity,
+                                  long retryAfterSeconds, String metricPrefix, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueWait = Timer.builder(metricPrefix + ".password.queue.wait")
+                .description("Espera na fila do pool de hash de senha")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.encodeTimer = hashTimer(metricPrefix, "encode", meterRegistry);
+        this.matchesTimer = hashTimer(metricPrefix, "matches", meterRegistry);
+        this.rejected = Counter.builder(metricPrefix + ".password.rejected")
+                .description("Hashes recusados com a fila cheia (HTTP 429)")
+                .register(meterRegistry);
+        Gauge.builder(metricPrefix + ".password.queue.depth", executor, e -> e.getQueue().size())
+                .description("Hashes aguardando na fila")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(encodeTimer, () -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // Só inspeciona o prefixo do hash: não precisa do pool
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Timer hashTimer, Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> result;
+        try {
+            result = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueWait.record(started - queuedAt, TimeUnit.NANOSECONDS);
+                try {
+                    return hash.call();
+                } finally {
+                    hashTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (RequestContextHolder.getRequestAttributes() == null) {
+                return timed(hashTimer, hash);
+            }
+            rejected.increment();
+            throw new PasswordHashingBusyException(
+                    "Muitas validações de senha em andamento. Tente novamente em instantes", retryAfterSeconds);
+        }
+
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrompido aguardando hash de senha", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Falha no hash de senha", e.getCause());
+        }
+    }
+
+    private static <T> T timed(Timer hashTimer, Callable<T> hash) {
+        try {
+            return hashTimer.recordCallable(hash);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Falha no hash de senha", e);
+        }
+    }
+
+    private static Timer hashTimer(String metricPrefix, String operation, MeterRegistry meterRegistry) {
+        return Timer.builder(metricPrefix + ".password.hash")
+                .tag("operation", operation)
+                .description("Tempo de CPU de cada hash de senha")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+}